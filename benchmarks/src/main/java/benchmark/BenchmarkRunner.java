@@ -0,0 +1,56 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import view.components.ToolBarView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the BasicPaint benchmarks headless with the GC profiler (allocation rate and bytes per operation) and
+ * writes the results as JSON, so that the runs of different commits can be compared.
+ * <p>
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regex]}. Without options,
+ * all benchmarks run, the freehand benchmark with every brush size of the toolbar, and the results are written
+ * to {@value #DEFAULT_RESULT_FILE}. JMH options given on the command line take precedence, for example
+ * {@code -rff before.json}, {@code -p size=1024} or {@code FloodFill}.
+ * </p>
+ */
+public class BenchmarkRunner {
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("benchmark\\..*Benchmark");
+        }
+        if (!commandLine.getParameter("brushSize").hasValue()) {
+            options.param("brushSize", Arrays.stream(ToolBarView.BRUSH_SIZES).mapToObj(String::valueOf).toArray(String[]::new));
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+
+        List<String> jvmArgs = new ArrayList<>(commandLine.getJvmArgsAppend().orElse(List.of()));
+        jvmArgs.add("-Djava.awt.headless=true");
+        jvmArgs.add("-Dbasicpaint.logLevel=WARN"); // Resizing the canvas logs at INFO
+        options.jvmArgsAppend(jvmArgs.toArray(String[]::new));
+
+        new Runner(options.build()).run();
+    }
+}
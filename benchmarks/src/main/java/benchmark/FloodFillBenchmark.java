@@ -0,0 +1,49 @@
+package benchmark;
+
+import model.TiledCanvas;
+import org.openjdk.jmh.annotations.*;
+import toolbox.paintingtools.FloodFill;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FloodFill#fill} from the top left corner of synthetic canvases. Fills of more than
+ * {@link FloodFill#PARALLEL_THRESHOLD} pixels continue on the parallel path.
+ * <p>
+ * Every invocation fills a fresh copy-on-write copy of the canvas, so the measured time includes copying the
+ * filled tiles, just like a fill after an undo snapshot in the application.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FloodFillBenchmark {
+
+    @Param({"SOLID", "NOISY", "MAZE"})
+    public SyntheticCanvases.Pattern pattern;
+
+    @Param({"1024", "4096"})
+    public int size;
+
+    private TiledCanvas template;
+    private TiledCanvas canvas;
+
+    @Setup(Level.Trial)
+    public void createTemplate() {
+        template = SyntheticCanvases.create(pattern, size, size);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyTemplate() {
+        canvas = template.copy();
+    }
+
+    @Benchmark
+    public Rectangle fill() {
+        return new FloodFill(canvas).fill(0, 0, Color.RED, 50);
+    }
+}
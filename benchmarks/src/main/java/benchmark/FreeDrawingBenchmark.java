@@ -0,0 +1,52 @@
+package benchmark;
+
+import model.PaintingModel;
+import org.openjdk.jmh.annotations.*;
+import toolbox.paintingtools.FreeDrawing;
+import view.components.ToolBarView;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rasterization of a freehand polyline by {@link FreeDrawing} for every brush size offered by
+ * {@link ToolBarView#BRUSH_SIZES}. The stroke is a zigzag of {@value #POINT_COUNT} points, buffered and then
+ * drawn with one {@link FreeDrawing#flushStroke()}, as during one display frame of fast mouse movement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FreeDrawingBenchmark {
+    private static final int CANVAS_SIZE = 2048;
+    private static final int POINT_COUNT = 64;
+
+    // BenchmarkRunner replaces these values with ToolBarView.BRUSH_SIZES
+    @Param({"1", "2", "3", "4", "5", "10", "20", "30", "50", "100", "150", "200", "250"})
+    public int brushSize;
+
+    private FreeDrawing freeDrawing;
+    private final int[] points = new int[POINT_COUNT * 2];
+
+    @Setup(Level.Trial)
+    public void createStroke() {
+        PaintingModel paintingModel = new PaintingModel(CANVAS_SIZE, CANVAS_SIZE);
+        paintingModel.setStrokeWidth(brushSize);
+        freeDrawing = new FreeDrawing(paintingModel);
+
+        for (int i = 0; i < POINT_COUNT; i++) {
+            points[2 * i] = 300 + i * 20;
+            points[2 * i + 1] = (i % 2 == 0) ? 300 : 700;
+        }
+    }
+
+    @Benchmark
+    public void drawPolyline() {
+        freeDrawing.beginStroke(points[0], points[1], false);
+        for (int i = 2; i < points.length; i += 2) {
+            freeDrawing.addStrokePoint(points[i], points[i + 1]);
+        }
+        freeDrawing.flushStroke();
+    }
+}
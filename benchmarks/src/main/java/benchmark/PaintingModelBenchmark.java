@@ -0,0 +1,46 @@
+package benchmark;
+
+import model.PaintingModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PaintingModel#setCanvasSize(int, int)} when enlarging a painted canvas to twice its width and
+ * height and when cropping it to half of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaintingModelBenchmark {
+
+    @Param({"1024", "4096"})
+    public int size;
+
+    private PaintingModel paintingModel;
+
+    @Setup(Level.Invocation)
+    public void createModel() {
+        paintingModel = new PaintingModel(size, size);
+        paintingModel.paint(new Rectangle(0, 0, size, size), g2d -> {
+            g2d.setColor(Color.BLUE);
+            g2d.fillOval(0, 0, size, size);
+        });
+    }
+
+    @Benchmark
+    public PaintingModel enlarge() {
+        paintingModel.setCanvasSize(2 * size, 2 * size);
+        return paintingModel;
+    }
+
+    @Benchmark
+    public PaintingModel crop() {
+        paintingModel.setCanvasSize(size / 2, size / 2);
+        return paintingModel;
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import model.TiledCanvas;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates reproducible canvases for the benchmarks.
+ */
+public class SyntheticCanvases {
+    private static final int WALL_RGB = Color.BLACK.getRGB();
+    private static final int CORRIDOR_WIDTH = 3; // Rows between two walls of the maze
+
+    /**
+     * The kinds of generated canvases.
+     */
+    public enum Pattern {
+        /** A blank canvas: one fill covers everything. */
+        SOLID,
+
+        /** Grey values scattered around the middle, so the fill tolerance decides pixel by pixel. */
+        NOISY,
+
+        /** Horizontal walls with alternating gaps, so a fill has to follow one long serpentine corridor. */
+        MAZE
+    }
+
+    /**
+     * Creates a canvas with a pattern. The same arguments always produce the same pixels.
+     *
+     * @param pattern The pattern.
+     * @param width   The width of the canvas.
+     * @param height  The height of the canvas.
+     * @return The canvas.
+     */
+    public static TiledCanvas create(Pattern pattern, int width, int height) {
+        TiledCanvas canvas = new TiledCanvas(width, height, Color.WHITE);
+        if (pattern == Pattern.SOLID) return canvas;
+
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            if (pattern == Pattern.NOISY) {
+                for (int x = 0; x < width; x++) {
+                    int grey = 100 + random.nextInt(56);
+                    row[x] = 0xFF000000 | (grey << 16) | (grey << 8) | grey;
+                }
+            } else if (y % (CORRIDOR_WIDTH + 1) == CORRIDOR_WIDTH) {
+                // Every wall has a gap at the opposite end of the previous one
+                boolean isGapLeft = (y / (CORRIDOR_WIDTH + 1)) % 2 == 0;
+                Arrays.fill(row, WALL_RGB);
+                int gapStart = isGapLeft ? 0 : width - CORRIDOR_WIDTH;
+                Arrays.fill(row, gapStart, gapStart + CORRIDOR_WIDTH, Color.WHITE.getRGB());
+            } else {
+                continue; // Corridor rows stay blank
+            }
+            canvas.setRGB(0, y, width, 1, row);
+        }
+        return canvas;
+    }
+}
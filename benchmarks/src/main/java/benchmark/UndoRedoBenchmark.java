@@ -0,0 +1,65 @@
+package benchmark;
+
+import model.PaintingModel;
+import org.openjdk.jmh.annotations.*;
+import toolbox.UndoRedoManager;
+import view.components.MenuBarView;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the undo history: recording an edit ({@link UndoRedoManager#saveCanvasState()}, a painted square,
+ * {@link UndoRedoManager#completeCanvasState()}) and restoring it with undo and redo, at several canvas sizes.
+ * The edited square moves across the canvas, so every edit touches different tiles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UndoRedoBenchmark {
+    private static final int EDIT_SIZE = 200; // Side length of the painted square in pixels
+
+    @Param({"1024", "4096", "8192"})
+    public int size;
+
+    private PaintingModel paintingModel;
+    private UndoRedoManager undoRedoManager;
+    private int editIndex;
+
+    @Setup(Level.Trial)
+    public void createManager() {
+        paintingModel = new PaintingModel(size, size);
+        undoRedoManager = new UndoRedoManager(paintingModel, new MenuBarView(), title -> { });
+        edit(); // Gives undoAndRedo an entry to restore
+    }
+
+    @Benchmark
+    public void saveAndComplete() {
+        edit();
+    }
+
+    @Benchmark
+    public void undoAndRedo() {
+        undoRedoManager.undo();
+        undoRedoManager.redo();
+    }
+
+    /**
+     * Records one edit: a square at the next position of a diagonal walk over the canvas.
+     */
+    private void edit() {
+        int steps = size / EDIT_SIZE;
+        int position = (editIndex++ % steps) * EDIT_SIZE;
+        Color colour = (editIndex % 2 == 0) ? Color.RED : Color.BLUE; // Always a visible change
+
+        undoRedoManager.saveCanvasState();
+        paintingModel.paint(new Rectangle(position, position, EDIT_SIZE, EDIT_SIZE), g2d -> {
+            g2d.setColor(colour);
+            g2d.fillRect(position, position, EDIT_SIZE, EDIT_SIZE);
+        });
+        undoRedoManager.completeCanvasState();
+    }
+}
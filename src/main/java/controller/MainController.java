@@ -11,6 +11,7 @@ import java.awt.event.*;
  * Main controller handling all major interactions between the UI components.
  */
 public class MainController {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(MainController.class);
 
     private final MainWindow mainWindow;
     private final MenuBarController menuBarController;
@@ -60,11 +61,11 @@ public class MainController {
      * Handles window closing event, prompting for unsaved changes before exiting.
      */
     private void handleWindowClosing() {
-        LoggingHelper.log("windowClosing() aufgerufen.");
+        logger.debug("windowClosing() aufgerufen.");
         if (!menuBarController.confirmDiscardChanges()) {
             return;
         }
-        LoggingHelper.log("Anwendung wird geschlossen.");
+        logger.info("Anwendung wird geschlossen.");
         mainWindow.dispose();
         System.exit(0);
     }
@@ -73,12 +74,12 @@ public class MainController {
      * Logs the initial state of the application components.
      */
     private void logInitialApplicationState() {
-        System.out.println(DateTimeStamp.date() + "\n" +
-                DateTimeStamp.time() + ": BasicPaint gestartet. \n");
+        LoggingHelper.print(DateTimeStamp.date());
+        logger.info("BasicPaint gestartet. \n");
 
-        LoggingHelper.log("Initiale Werte MainWindow:");
-        LoggingHelper.log("MainWindow Höhe = " + mainWindow.getHeight() + " px.");
-        LoggingHelper.log("MainWindow Breite = " + mainWindow.getWidth() + " px. \n");
+        logger.debug("Initiale Werte MainWindow:");
+        logger.debug(() -> "MainWindow Höhe = " + mainWindow.getHeight() + " px.");
+        logger.debug(() -> "MainWindow Breite = " + mainWindow.getWidth() + " px. \n");
 
         mainWindow.getPaintingPanelView().getPaintingModel().showInitialPaintingModelValuesInConsole();
     }
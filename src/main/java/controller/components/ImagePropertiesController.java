@@ -13,6 +13,8 @@ import java.io.File;
  * Controller for handling image property settings and user interactions.
  */
 public class ImagePropertiesController {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(ImagePropertiesController.class);
+
     private final ImagePropertiesModel model;
     private final ImagePropertiesView view;
     private boolean confirmed = false;
@@ -214,7 +216,7 @@ public class ImagePropertiesController {
 
             updateViewFields();
         } catch (NumberFormatException ignored) {
-            LoggingHelper.log("Ungültige Eingabe: Bitte nur Zahlen eingeben. \n" );
+            logger.warn("Ungültige Eingabe: Bitte nur Zahlen eingeben. \n");
         }
     }
 
@@ -229,7 +231,7 @@ public class ImagePropertiesController {
             model.setSizeInCurrentUnit(newWidth, newHeight);
             model.convertToPixels();
         } catch (NumberFormatException ignored) {
-            LoggingHelper.log("Ungültige Eingabe: Bitte nur Zahlen eingeben. \n" );
+            logger.warn("Ungültige Eingabe: Bitte nur Zahlen eingeben. \n");
         }
     }
 }
@@ -1,30 +1,38 @@
 package controller.components;
 
 import controller.MainController;
+import model.PaintingExecutor;
 import model.PaintingModel;
+import model.TiledCanvas;
 import toolbox.*;
 import view.MainWindow;
 import view.components.MenuBarView;
 
 import javax.swing.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for managing interactions with the menu bar.
  * Handles file operations, undo/redo functionalities, and user actions from the menu.
+ * Operations that read or change the canvas are posted to the {@link PaintingExecutor}, so they run in order
+ * with the painting commands; the dialogs read the published canvas.
  */
 public class MenuBarController implements ActionListener {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(MenuBarController.class);
+
     private MainWindow mainWindow;
     private MainController mainController;
     private MenuBarView menuBar;
     private PaintingModel paintingModel;
+    private PaintingExecutor paintingExecutor;
 
     private FileHandler fileHandler;
     private boolean hasUnsavedChanges;
+    private CompletableFuture<Boolean> pendingSaveComparison; // Set while a finished save is compared to the canvas
     private DiscardChangesHandler discardChangesHandler;
     private PrintUtility printUtility;
     private UndoRedoManager undoRedoManager;
@@ -44,6 +52,7 @@ public class MenuBarController implements ActionListener {
         this.mainController = mainController;
         this.menuBar = mainWindow.getMenuBarView();
         this.paintingModel = mainWindow.getPaintingPanelView().getPaintingModel();
+        this.paintingExecutor = mainWindow.getPaintingPanelView().getPaintingExecutor();
 
         initActionMap();
         initMenuBarFunctions();
@@ -59,7 +68,7 @@ public class MenuBarController implements ActionListener {
     public void actionPerformed(ActionEvent e) {
         Runnable action = actionMap.get(e.getActionCommand());
         if (action != null) {
-            LoggingHelper.log(e.getActionCommand() + "() aufgerufen.");
+            logger.debug(() -> e.getActionCommand() + "() aufgerufen.");
             action.run();
         }
     }
@@ -69,7 +78,13 @@ public class MenuBarController implements ActionListener {
      * @return true if the user confirms discarding changes, false otherwise.
      */
     public boolean confirmDiscardChanges() {
-        return discardChangesHandler.confirmDiscardChanges(hasUnsavedChanges, this::saveFile);
+        fileHandler.awaitCurrentTask(); // A running save decides whether there are unsaved changes
+        CompletableFuture<Boolean> comparison = pendingSaveComparison;
+        if (comparison != null) {
+            fileHandler.awaitTask(comparison);
+            applySaveComparison(comparison);
+        }
+        return discardChangesHandler.confirmDiscardChanges(hasUnsavedChanges, this::saveFileAndWait);
     }
 
     /**
@@ -84,6 +99,7 @@ public class MenuBarController implements ActionListener {
         actionMap.put("image_properties", this::showImagePropertiesDialog);
         actionMap.put("undo", this::undo);
         actionMap.put("redo", this::redo);
+        actionMap.put("performance_overlay", this::togglePerformanceOverlay);
     }
 
     /**
@@ -115,6 +131,7 @@ public class MenuBarController implements ActionListener {
         initShortcuts();
         registerFileMenuActions();
         registerEditMenuActions();
+        registerViewMenuActions();
         registerMenuBarToolBarActions();
         registerCanvasInteractionListener();
 
@@ -143,6 +160,10 @@ public class MenuBarController implements ActionListener {
         menuBar.getEditMenu().setMnemonic(KeyEvent.VK_B);
         menuBar.getUndoItem().setAccelerator(KeyStroke.getKeyStroke('Z', InputEvent.CTRL_DOWN_MASK));
         menuBar.getRedoItem().setAccelerator(KeyStroke.getKeyStroke('Z', InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
+
+        // Shortcuts 'View' menu
+        menuBar.getViewMenu().setMnemonic(KeyEvent.VK_A);
+        menuBar.getPerformanceOverlayItem().setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0));
     }
 
     /**
@@ -167,6 +188,13 @@ public class MenuBarController implements ActionListener {
         addMenuAction(menuBar.getRedoItem(), "redo");
     }
 
+    /**
+     * Registers action listeners for the View menu items.
+     */
+    private void registerViewMenuActions() {
+        addMenuAction(menuBar.getPerformanceOverlayItem(), "performance_overlay");
+    }
+
     /**
      * Registers action listeners for toolbar buttons in the menu bar.
      * Associates buttons with their respective file and edit operations.
@@ -183,31 +211,66 @@ public class MenuBarController implements ActionListener {
     /**
      * Registers a listener to detect user interactions with the painting canvas.
      * Saves the canvas state before any modification and logs unsaved changes.
+     * The edit is completed once all other listeners have handled the mouse release.
      */
     private void registerCanvasInteractionListener() {
         mainWindow.getPaintingPanelView().addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 super.mousePressed(e);
+                if (paintingModel.isEditingLocked()) return;
                 saveCanvasState();
 
+                pendingSaveComparison = null; // The saved snapshot is outdated by this edit
                 if (!hasUnsavedChanges) {
-                    LoggingHelper.log("Zeichenfläche Bearbeitet. \n" +
+                    logger.info("Zeichenfläche Bearbeitet. \n" +
                             DateTimeStamp.time() + ": Bild hat ungespeicherte Änderungen. \n");
                     hasUnsavedChanges = true;
                 }
             }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                super.mouseReleased(e);
+                if (paintingModel.isEditingLocked()) return;
+                SwingUtilities.invokeLater(() -> paintingExecutor.execute(undoRedoManager::completeCanvasState));
+            }
         });
     }
 
     /**
      * Initialises the file handler, responsible for file-related operations.
-     * Sets up a callback to track unsaved changes when a file is saved.
+     * Sets up a callback to track unsaved changes when a file is saved: changes made while the save
+     * was running are not part of the saved snapshot and remain unsaved. The comparison is posted as a
+     * painting command, so it sees the commands posted so far without blocking the EDT.
+     * The progress of file operations is shown in the status bar.
      */
     private void setUpFileHandler() {
-        this.fileHandler = new FileHandler(paintingModel, mainWindow);
+        this.fileHandler = new FileHandler(paintingModel, paintingExecutor, mainWindow);
         this.hasUnsavedChanges = false;
-        this.fileHandler.setOnSaveFileCallback(() -> hasUnsavedChanges = false);
+        this.fileHandler.setOnSaveFileCallback(savedCanvas -> {
+            CompletableFuture<Boolean> comparison =
+                    paintingExecutor.submit(() -> !paintingModel.getCanvas().contentEquals(savedCanvas));
+            pendingSaveComparison = comparison;
+            comparison.whenComplete((changed, e) -> SwingUtilities.invokeLater(() -> applySaveComparison(comparison)));
+        });
+        this.fileHandler.setProgressCallbacks(
+                (description, percent) -> mainController.getStatusBarController().showFileProgress(description, percent),
+                () -> mainController.getStatusBarController().hideFileProgress());
+    }
+
+    /**
+     * Sets the unsaved-changes flag from a finished save comparison, unless the canvas has been edited
+     * since or the result has already been applied. A failed comparison counts as unsaved changes.
+     */
+    private void applySaveComparison(CompletableFuture<Boolean> comparison) {
+        if (pendingSaveComparison != comparison) return;
+
+        pendingSaveComparison = null;
+        hasUnsavedChanges = comparison.isCompletedExceptionally() || comparison.join();
+        logger.info(hasUnsavedChanges
+                ? "Bild wurde während des Speicherns geändert und hat ungespeicherte Änderungen."
+                : "Bild hat keine ungespeicherten Änderungen.");
     }
 
     /**
@@ -232,7 +295,7 @@ public class MenuBarController implements ActionListener {
             currentFile = null;
             mainWindow.setTitle("BasicPaint | Unbenannt");
 
-            undoRedoManager.clearHistory();
+            paintingExecutor.execute(undoRedoManager::clearHistory);
 
             SwingUtilities.invokeLater(() -> mainWindow.getPaintingPanelView().repaint());
         }
@@ -246,14 +309,11 @@ public class MenuBarController implements ActionListener {
 
         // TODO: Move code to FileHandler
         if (confirmDiscardChanges()) {
-            BufferedImage image = fileHandler.openFile();
-            if (image != null) {
-                mainWindow.getPaintingPanelView().getPaintingModel().setCanvas(image);
-                mainController.getPaintingPanelController()
-                        .resizePanelWhenOpenedFileIsWiderOrHigher(image.getWidth(), image.getHeight());
+            fileHandler.openFile(this::showOpenedCanvas, canvas -> {
+                showOpenedCanvas(canvas);
 
                 hasUnsavedChanges = false;
-                undoRedoManager.clearHistory();
+                paintingExecutor.execute(undoRedoManager::clearHistory);
 
                 File openedFile = fileHandler.getCurrentFile();
                 if (openedFile != null) {
@@ -262,30 +322,44 @@ public class MenuBarController implements ActionListener {
                 }
 
                 SwingUtilities.invokeLater(() -> mainWindow.getPaintingPanelView().repaint());
-            }
+            });
         }
     }
 
     /**
-     * Saves the current file.
-     * @return true if the file was successfully saved, false otherwise.
+     * Saves the current file in the background.
      */
-    public boolean saveFile() {
-        return fileHandler.saveFile();
+    public void saveFile() {
+        fileHandler.saveFile();
     }
 
     /**
-     * Saves the file with a new user specified name/location.
+     * Saves the file with a new user specified name/location in the background.
      */
     public void saveFileAs() {
         fileHandler.saveFileAs();
     }
 
+    /**
+     * Saves the current file and waits for the save to finish, while the user interface stays responsive.
+     * @return true if the file was successfully saved, false otherwise.
+     */
+    public boolean saveFileAndWait() {
+        return fileHandler.awaitTask(fileHandler.saveFile());
+    }
+
+    /**
+     * Cancels the running open or save operation.
+     */
+    public void cancelFileTask() {
+        fileHandler.cancelCurrentTask();
+    }
+
     /**
      * Prints the current canvas content.
      */
     public void printPicture() {
-        printUtility.printPicture(mainWindow, paintingModel.getCanvas());
+        printUtility.printPicture(mainWindow, paintingExecutor.getPublishedCanvas().copy()); // Publications continue while printing
     }
 
     /**
@@ -293,21 +367,22 @@ public class MenuBarController implements ActionListener {
      * Allows the user to view and modify the image dimensions.
      */
     public void showImagePropertiesDialog() {
-        PaintingModel paintingModel = mainWindow.getPaintingPanelView().getPaintingModel();
-        int currentWidth = paintingModel.getCanvas().getWidth();
-        int currentHeight = paintingModel.getCanvas().getHeight();
+        TiledCanvas canvas = paintingExecutor.getPublishedCanvas();
+        int currentWidth = canvas.getWidth();
+        int currentHeight = canvas.getHeight();
 
         ImagePropertiesController controller = new ImagePropertiesController(mainWindow, currentWidth, currentHeight, currentFile);
         controller.showDialog();
 
-        if (controller.isConfirmed()) {
+        if (controller.isConfirmed() && !isEditingLocked()) {
             saveCanvasState();
 
             int newWidth = controller.getImageWidth();
             int newHeight = controller.getImageHeight();
 
             mainController.getPaintingPanelController().setAndUpdateCanvasAndImageSize(newWidth, newHeight);
-            LoggingHelper.log("Neue Größe gesetzt: " + newWidth + "x" + newHeight + "\n");
+            paintingExecutor.execute(undoRedoManager::completeCanvasState);
+            logger.info("Neue Größe gesetzt: " + newWidth + "x" + newHeight + "\n");
         }
     }
 
@@ -316,8 +391,8 @@ public class MenuBarController implements ActionListener {
      * Reverts the canvas to the previous state.
      */
     private void undo() {
-        undoRedoManager.undo();
-        System.out.print("\n");
+        if (isEditingLocked()) return;
+        paintingExecutor.execute(undoRedoManager::undo);
     }
 
     /**
@@ -325,14 +400,49 @@ public class MenuBarController implements ActionListener {
      * Restores the previously undone state.
      */
     private void redo() {
-        undoRedoManager.redo();
-        System.out.print("\n");
+        if (isEditingLocked()) return;
+        paintingExecutor.execute(undoRedoManager::redo);
+    }
+
+    /**
+     * Shows or hides the performance overlay on the painting panel, following the check box of the menu item.
+     */
+    private void togglePerformanceOverlay() {
+        mainWindow.getPaintingPanelView().setPerformanceOverlayVisible(menuBar.getPerformanceOverlayItem().isSelected());
+    }
+
+    /**
+     * Shows an opened canvas (or the preview of a large image that is still being loaded).
+     *
+     * @param canvas The canvas to show.
+     */
+    private void showOpenedCanvas(TiledCanvas canvas) {
+        paintingExecutor.execute(() -> {
+            if (paintingModel.getCanvas() != canvas) { // Unless the preview is already shown and has been completed
+                paintingModel.setCanvas(canvas);
+            }
+        });
+        mainController.getPaintingPanelController()
+                .resizePanelWhenOpenedFileIsWiderOrHigher(canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Checks whether editing is locked because an opened image is still being loaded.
+     *
+     * @return {@code true} if editing is locked.
+     */
+    private boolean isEditingLocked() {
+        if (paintingModel.isEditingLocked()) {
+            logger.info("Bearbeitung gesperrt: Das Bild wird noch geladen.");
+            return true;
+        }
+        return false;
     }
 
     /**
      * Saves the current state of the canvas.
      */
     private void saveCanvasState() {
-        undoRedoManager.saveCanvasState();
+        paintingExecutor.execute(undoRedoManager::saveCanvasState);
     }
 }
@@ -1,6 +1,7 @@
 package controller.components;
 
 import controller.MainController;
+import model.PaintingExecutor;
 import toolbox.*;
 import model.PaintingModel;
 import toolbox.paintingtools.*;
@@ -11,25 +12,40 @@ import view.components.ToolBarView;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.Ellipse2D;
-import java.awt.geom.Line2D;
-import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 
 /**
  * Controls the interaction between the painting panel and user input.
  * Handles drawing actions, shape previews, and event-based input processing.
+ * <p>
+ * Input is handled on the EDT, while the drawing operations are posted to the painting thread
+ * ({@link PaintingExecutor}). Everything a command needs from the user interface, such as the canvas
+ * coordinates and the selected tool, is read before it is posted.
+ * </p>
  */
 public class PaintingPanelController {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(PaintingPanelController.class);
+
     private final MainWindow mainWindow;
     private final MainController mainController;
     private final PaintingPanelView paintingView;
     private final PaintingModel paintingModel;
+    private final PaintingExecutor paintingExecutor;
     private final ToolBarView toolBarView;
+    private final FreeDrawing freeDrawing;
+    private final DrawLine drawLine;
+    private final DrawRectangle drawRectangle;
+    private final DrawEllipse drawEllipse;
+    private final Timer strokeFrameTimer; // Posts the buffered freehand points once per display frame
+    private int[] strokePoints = new int[64]; // x, y pairs of the current stroke not posted yet
+    private int strokePointCount;
 
     private Point startPoint;
     private Point endPoint;
     private boolean isDragging = false;
     private boolean isDrawingShape = false;
+    private boolean isTrackingToolRegion = false; // Whether damage is collected into toolRegion (painting thread only)
+    private Rectangle toolRegion;
 
     /**
      * Constructs the controller for handling user interactions with the painting panel.
@@ -42,7 +58,21 @@ public class PaintingPanelController {
         this.mainController = mainController;
         this.paintingView = mainWindow.getPaintingPanelView();
         this.paintingModel = paintingView.getPaintingModel();
+        this.paintingExecutor = paintingView.getPaintingExecutor();
         this.toolBarView = mainWindow.getToolBarView();
+        // The painting tools are long-lived, so drawing does not create tool objects per event
+        this.freeDrawing = new FreeDrawing(paintingModel);
+        this.drawLine = new DrawLine(paintingModel);
+        this.drawRectangle = new DrawRectangle(paintingModel);
+        this.drawEllipse = new DrawEllipse(paintingModel);
+        this.strokeFrameTimer = new Timer(getFrameInterval(), e -> flushStrokeFrame());
+        this.strokeFrameTimer.setCoalesce(true);
+        paintingModel.addDamageListener(region -> {
+            if (isTrackingToolRegion) {
+                toolRegion = (toolRegion == null) ? region : toolRegion.union(region);
+            }
+        });
+        paintingExecutor.addPublicationListener(paintingView::showPublishedCanvas);
 
         paintingView.setFocusable(true);
         paintingView.requestFocus();
@@ -57,7 +87,7 @@ public class PaintingPanelController {
      * @param height The new canvas height.
      */
     public void setAndUpdateCanvasAndImageSize(int width, int height) {
-        paintingModel.setCanvasSize(width, height);
+        paintingExecutor.execute(() -> paintingModel.setCanvasSize(width, height));
         setPaintingPanelSize(width, height);
         mainController.getStatusBarController().updateImageSize(width, height);
     }
@@ -69,14 +99,26 @@ public class PaintingPanelController {
      * @param height The height of the opened file.
      */
     public void resizePanelWhenOpenedFileIsWiderOrHigher(int width, int height) {
-        boolean isWider = width > paintingView.getWidth();
-        boolean isHigher = height > paintingView.getWidth();
+        boolean isWider = width > paintingView.getDisplaySize().width;
+        boolean isHigher = height > paintingView.getDisplaySize().width;
 
         if (isWider || isHigher) {
             setPaintingPanelSize(width, height);
         }
     }
 
+    /**
+     * Changes the zoom level of the painting panel and updates the zoom controls in the status bar.
+     *
+     * @param zoomPercent The new zoom level in percent.
+     * @param anchor      The point in panel coordinates that keeps its position, or {@code null} for the centre.
+     */
+    public void setZoom(int zoomPercent, Point anchor) {
+        paintingView.setZoom(zoomPercent, anchor);
+        mainController.getStatusBarController().updateZoom(paintingView.getZoomPercent());
+        logger.debug(() -> "Zoomstufe: " + paintingView.getZoomPercent() + " %");
+    }
+
     /**
      * Initialises and registers event listeners.
      */
@@ -128,9 +170,10 @@ public class PaintingPanelController {
         if (toolBarView.getMagnifierButton().isSelected()) {
             handleMagnifierAction(e);
             return;
+        } else if (paintingModel.isEditingLocked()) {
+            logger.info("Bearbeitung gesperrt: Das Bild wird noch geladen.");
         } else {
             handleDrawingAction(e);
-            paintingView.repaint();
         }
     }
 
@@ -140,38 +183,43 @@ public class PaintingPanelController {
      * @param e The mouse event containing position and button information.
      */
     private void handleMouseReleasedAction(MouseEvent e) {
+        finishStroke();
+
         if (isDragging) {
-            endPoint = e.getPoint();
+            endPoint = new Point(canvasX(e), canvasY(e));
             PaintingTool selectedTool = toolBarView.getSelectedTool();
+            int x1 = startPoint.x;
+            int y1 = startPoint.y;
+            int x2 = endPoint.x;
+            int y2 = endPoint.y;
 
             switch (selectedTool) {
                 case RECTANGLE:
-                    new DrawRectangle(paintingModel).drawRectangle(startPoint.x, startPoint.y, endPoint.x, endPoint.y);
-                    LoggingHelper.log("Rechteck gezeichnet.");
+                    applyTool(PerformanceMetrics.RECTANGLE, () -> drawRectangle.drawRectangle(x1, y1, x2, y2));
+                    logger.debug("Rechteck gezeichnet.");
                     break;
                 case ELLIPSE:
-                    new DrawEllipse(paintingModel).drawEllipse(startPoint.x, startPoint.y, endPoint.x, endPoint.y);
-                    LoggingHelper.log("Ellipse gezeichnet.");
+                    applyTool(PerformanceMetrics.ELLIPSE, () -> drawEllipse.drawEllipse(x1, y1, x2, y2));
+                    logger.debug("Ellipse gezeichnet.");
                     break;
                 case LINE:
-                    new DrawLine(paintingModel).drawLine(startPoint.x, startPoint.y, endPoint.x, endPoint.y);
-                    LoggingHelper.log("Linie gezeichnet.");
+                    applyTool(PerformanceMetrics.LINE, () -> drawLine.drawLine(x1, y1, x2, y2));
+                    logger.debug("Linie gezeichnet.");
                     break;
                 case PENCIL:
-                    LoggingHelper.log("Freies zeichnen.");
+                    logger.debug("Freies zeichnen.");
                     break;
                 case ERASER:
-                    LoggingHelper.log("Radieren.");
+                    logger.debug("Radieren.");
                     break;
                 default:
                     break;
             }
             paintingView.clearPreviewShape();
-            paintingView.repaint();
         }
         if (!isPaintingToolSelected(PaintingTool.MAGNIFIER)){
             isDragging = false;
-            LoggingHelper.log("Bearbeitung beendet. \n");
+            logger.debug("Bearbeitung beendet. \n");
         }
     }
 
@@ -184,7 +232,7 @@ public class PaintingPanelController {
         // Falls der Pencil oder Eraser aktiv ist, zeige eine Vorschau des Punktes
         if (isPencilOrEraserSelected()) {
             boolean isEraser = toolBarView.getEraserButton().isSelected();
-            paintingView.setPreviewPoint(e.getPoint(), isEraser);
+            paintingView.setPreviewPoint(canvasX(e), canvasY(e), isEraser);
         } else {
             paintingView.clearPreviewPoint(); // Andernfalls keine Vorschau
         }
@@ -196,54 +244,33 @@ public class PaintingPanelController {
      * @param e The mouse event containing drag position data.
      */
     private void handleMouseDraggedAction(MouseEvent e) {
+        if (paintingModel.isEditingLocked()) return;
+
         if (isPencilOrEraserSelected()) {
             boolean isEraser = toolBarView.getEraserButton().isSelected();
-            paintingView.setPreviewPoint(e.getPoint(), isEraser);
+            int x = canvasX(e);
+            int y = canvasY(e);
+            paintingView.setPreviewPoint(x, y, isEraser);
 
             if (startPoint == null) {
-                startPoint = e.getPoint();
+                startPoint = new Point(x, y);
+                paintingExecutor.execute(() -> freeDrawing.beginStroke(x, y, isEraser));
             }
 
-            new FreeDrawing(paintingModel).freeDrawing(startPoint.x, startPoint.y, e.getX(), e.getY(), isEraser);
-            startPoint = e.getPoint();
-            paintingView.repaint();
+            // Only buffer the point, the stroke is drawn once per frame
+            bufferStrokePoint(x, y);
+            if (!strokeFrameTimer.isRunning()) {
+                strokeFrameTimer.start();
+            }
         }
         else if (isDragging) {
             if (isPencilOrEraserSelected() || isPaintingToolSelected()) {
-                Point endPoint = e.getPoint();
-                PaintingTool selectedTool = toolBarView.getSelectedTool();
-
-                Shape previewShape = null;
-
-                switch (selectedTool) {
-                    case PENCIL, ERASER:
-                        endPoint = e.getPoint();
-                        boolean isEraser = toolBarView.getEraserButton().isSelected();
-                        new FreeDrawing(paintingModel).freeDrawing(startPoint.x, startPoint.y, e.getX(), e.getY(), isEraser);
-                        startPoint = endPoint;
-                        break;
-                    case RECTANGLE:
-                        previewShape = new Rectangle2D.Float(
-                                Math.min(startPoint.x, endPoint.x),
-                                Math.min(startPoint.y, endPoint.y),
-                                Math.abs(startPoint.x - endPoint.x),
-                                Math.abs(startPoint.y - endPoint.y)
-                        );
-                        break;
-                    case ELLIPSE:
-                        previewShape = new Ellipse2D.Float(
-                                Math.min(startPoint.x, endPoint.x),
-                                Math.min(startPoint.y, endPoint.y),
-                                Math.abs(startPoint.x - endPoint.x),
-                                Math.abs(startPoint.y - endPoint.y)
-                        );
-                        break;
-                    case LINE:
-                        previewShape = new Line2D.Float(startPoint.x, startPoint.y, endPoint.x, endPoint.y);
-                        break;
-                    case null, default:
-                        break;
-                }
+                Shape previewShape = switch (toolBarView.getSelectedTool()) {
+                    case RECTANGLE -> drawRectangle.getPreviewShape(startPoint.x, startPoint.y, canvasX(e), canvasY(e));
+                    case ELLIPSE -> drawEllipse.getPreviewShape(startPoint.x, startPoint.y, canvasX(e), canvasY(e));
+                    case LINE -> drawLine.getPreviewShape(startPoint.x, startPoint.y, canvasX(e), canvasY(e));
+                    case null, default -> null;
+                };
 
                 paintingView.setPreviewShape(previewShape);
             }
@@ -262,7 +289,7 @@ public class PaintingPanelController {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (isDragging || isDrawingShape) {
-                    LoggingHelper.log("Zeichnen abgebrochen (ESC).");
+                    logger.debug("Zeichnen abgebrochen (ESC).");
                     cancelDrawing();
                 }
             }
@@ -278,9 +305,9 @@ public class PaintingPanelController {
         e.consume();
 
         if (SwingUtilities.isLeftMouseButton(e)) {
-            // TODO: Implement the zoom control here as soon as the function has been implemented.
+            setZoom(paintingView.getNextZoomLevel(true), e.getPoint());
         } else if (SwingUtilities.isRightMouseButton(e)) {
-            // TODO: Implement the zoom control here as soon as the function has been implemented.
+            setZoom(paintingView.getNextZoomLevel(false), e.getPoint());
         }
     }
 
@@ -291,35 +318,50 @@ public class PaintingPanelController {
      */
     private void handleDrawingAction(MouseEvent e) {
         if (!isDragging) {
-            LoggingHelper.log("Zeichenfläche wird bearbeitet. \n" +
+            logger.debug(() -> "Zeichenfläche wird bearbeitet. \n" +
                     LoggingHelper.formatMessage("Tool: " + toolBarView.getSelectedTool().getDisplayName()));
         }
 
-        startPoint = e.getPoint();
+        int x = canvasX(e);
+        int y = canvasY(e);
+        PaintingTool selectedTool = toolBarView.getSelectedTool();
+        startPoint = new Point(x, y);
         isDragging = true;
         isDrawingShape = true;
 
         if (SwingUtilities.isRightMouseButton(e)) {
-            LoggingHelper.log("Rechte Maustaste gedrückt.");
+            logger.trace("Rechte Maustaste gedrückt.");
         }
 
-        if (isPaintingToolSelected(PaintingTool.PENCIL) || isPaintingToolSelected(PaintingTool.ERASER)) {
-            if (paintingModel.getStrokeWidth() <= 2) {
-                paintingModel.getG2D().fillRect(e.getX(), e.getY(), paintingModel.getStrokeWidth(), paintingModel.getStrokeWidth());
-                LoggingHelper.log("Punkt gesetzt.");
-            } else {
-                // TODO: Make the preview and drawing result identical. The preview is a few pixels smaller at the top left of the image.
-                new FreeDrawing(paintingModel).drawPoint(e.getX(), e.getY(), toolBarView.getSelectedTool());
-                LoggingHelper.log("Punkt gesetzt.");
-            }
-            paintingView.repaint();
+        if (selectedTool == PaintingTool.PENCIL || selectedTool == PaintingTool.ERASER) {
+            applyTool(PerformanceMetrics.FREEHAND, () -> {
+                if (paintingModel.getStrokeWidth() <= 2) {
+                    freeDrawing.drawSquarePoint(x, y, selectedTool);
+                } else {
+                    // TODO: Make the preview and drawing result identical. The preview is a few pixels smaller at the top left of the image.
+                    freeDrawing.drawPoint(x, y, selectedTool);
+                }
+            });
+            logger.trace("Punkt gesetzt.");
+            paintingExecutor.execute(() -> freeDrawing.beginStroke(x, y, selectedTool == PaintingTool.ERASER));
         }
-        else if (toolBarView.getSelectedTool() == PaintingTool.FILL) {
-            new FloodFill(paintingModel.getCanvas()).fill(e.getX(), e.getY(), paintingModel.getCurrentColour(), 50);
-            paintingView.repaint();
+        else if (selectedTool == PaintingTool.FILL) {
+            PaintingTool.FillMode fillMode = e.isShiftDown() ? PaintingTool.FillMode.GLOBAL : PaintingTool.FillMode.CONTIGUOUS;
+
+            switch (fillMode) {
+                case GLOBAL:
+                    applyTool(PerformanceMetrics.REPLACE_COLOUR, () -> paintingModel.markDirty(new ReplaceColour(paintingModel.getCanvas())
+                            .replace(x, y, paintingModel.getCurrentColour(), 50)));
+                    logger.debug("Farbe auf der gesamten Zeichenfläche ersetzt.");
+                    break;
+                case CONTIGUOUS:
+                    applyTool(PerformanceMetrics.FLOOD_FILL, () -> paintingModel.markDirty(new FloodFill(paintingModel.getCanvas())
+                            .fill(x, y, paintingModel.getCurrentColour(), 50)));
+                    break;
+            }
         }
         else if (SwingUtilities.isRightMouseButton(e)) {
-            LoggingHelper.log("Zeichnen abgebrochen (rechte Maustaste). \n");
+            logger.debug("Zeichnen abgebrochen (rechte Maustaste). \n");
             cancelDrawing();
             return;
         }
@@ -329,12 +371,104 @@ public class PaintingPanelController {
      * Cancels an ongoing drawing operation and clears the preview.
      */
     private void cancelDrawing() {
+        finishStroke();
         isDragging = false;
         isDrawingShape = false;
         startPoint = null;
         endPoint = null;
         paintingView.clearPreviewShape();
-        paintingView.repaint();
+    }
+
+    /**
+     * Buffers a point of the current freehand stroke until the next frame.
+     *
+     * @param x The x-coordinate on the canvas.
+     * @param y The y-coordinate on the canvas.
+     */
+    private void bufferStrokePoint(int x, int y) {
+        if (strokePointCount + 2 > strokePoints.length) {
+            strokePoints = Arrays.copyOf(strokePoints, strokePoints.length * 2);
+        }
+        strokePoints[strokePointCount++] = x;
+        strokePoints[strokePointCount++] = y;
+    }
+
+    /**
+     * Posts the freehand points buffered since the last frame, so that the painting thread rasterizes them
+     * together. The frame timer stops itself as soon as no new points arrive.
+     */
+    private void flushStrokeFrame() {
+        if (strokePointCount > 0) {
+            postStrokePoints();
+        } else {
+            strokeFrameTimer.stop();
+        }
+    }
+
+    /**
+     * Posts the remaining buffered points of the current freehand stroke immediately.
+     */
+    private void finishStroke() {
+        strokeFrameTimer.stop();
+        if (strokePointCount > 0) {
+            postStrokePoints();
+        }
+    }
+
+    /**
+     * Hands the buffered points to the painting thread, which draws them as one polyline.
+     */
+    private void postStrokePoints() {
+        int[] points = Arrays.copyOf(strokePoints, strokePointCount);
+        strokePointCount = 0;
+        applyTool(PerformanceMetrics.FREEHAND, () -> {
+            for (int i = 0; i < points.length; i += 2) {
+                freeDrawing.addStrokePoint(points[i], points[i + 1]);
+            }
+            freeDrawing.flushStroke();
+        });
+    }
+
+    /**
+     * Posts a painting tool to the painting thread, which records its duration in a histogram and as a flight
+     * recorder event. The event carries the region changed by the tool, collected from the damage notifications
+     * of the model.
+     *
+     * @param latency   The histogram of the tool; its name is used as tool name of the event.
+     * @param operation The drawing operation, run on the painting thread.
+     */
+    private void applyTool(LatencyHistogram latency, Runnable operation) {
+        paintingExecutor.execute(() -> {
+            FlightRecorderEvents.ToolEvent event = new FlightRecorderEvents.ToolEvent();
+            isTrackingToolRegion = event.isEnabled();
+            toolRegion = null;
+            long start = System.nanoTime();
+            event.begin();
+
+            operation.run();
+
+            latency.recordSince(start);
+            isTrackingToolRegion = false;
+            if (event.shouldCommit()) {
+                event.tool = latency.getName();
+                event.setRegion(toolRegion);
+                event.commit();
+            }
+        });
+    }
+
+    /**
+     * Determines the frame interval from the refresh rate of the default screen (60 Hz if unknown).
+     *
+     * @return The frame interval in milliseconds.
+     */
+    private static int getFrameInterval() {
+        int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+        if (!GraphicsEnvironment.isHeadless()) {
+            refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        }
+        return 1000 / (refreshRate > 0 ? refreshRate : 60);
     }
 
     /**
@@ -344,9 +478,27 @@ public class PaintingPanelController {
      * @param height The new panel height.
      */
     private void setPaintingPanelSize(int width, int height) {
-        paintingView.setPreferredSize(new Dimension(width, height));
-        paintingView.revalidate();
-        paintingView.repaint();
+        paintingView.setDisplaySize(width, height);
+    }
+
+    /**
+     * Converts the x-coordinate of a mouse event into a canvas coordinate, taking the zoom level into account.
+     *
+     * @param e The mouse event.
+     * @return The x-coordinate of the canvas pixel.
+     */
+    private int canvasX(MouseEvent e) {
+        return paintingView.toCanvasX(e.getX());
+    }
+
+    /**
+     * Converts the y-coordinate of a mouse event into a canvas coordinate, taking the zoom level into account.
+     *
+     * @param e The mouse event.
+     * @return The y-coordinate of the canvas pixel.
+     */
+    private int canvasY(MouseEvent e) {
+        return paintingView.toCanvasY(e.getY());
     }
 
     /**
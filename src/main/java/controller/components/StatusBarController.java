@@ -5,6 +5,7 @@ import view.MainWindow;
 import view.components.PaintingPanelView;
 import view.components.StatusBarView;
 
+import javax.swing.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
 
@@ -17,6 +18,8 @@ public class StatusBarController {
     private final StatusBarView statusBar;
     private final PaintingPanelView paintingPanel;
 
+    private boolean isUpdatingZoom = false; // Prevents feedback loops between the zoom controls
+
     /**
      * Constructs a StatusBarController to manage status bar updates.
      *
@@ -29,8 +32,8 @@ public class StatusBarController {
         this.statusBar = mainWindow.getStatusBarView();
         this.paintingPanel = mainWindow.getPaintingPanelView();
 
-        int canvasWidth = paintingPanel.getPaintingModel().getCanvas().getWidth();
-        int canvasHeight = paintingPanel.getPaintingModel().getCanvas().getHeight();
+        int canvasWidth = paintingPanel.getPaintingExecutor().getPublishedCanvas().getWidth();
+        int canvasHeight = paintingPanel.getPaintingExecutor().getPublishedCanvas().getHeight();
         updateImageSize(canvasWidth, canvasHeight);
 
         initialiseListeners();
@@ -47,20 +50,83 @@ public class StatusBarController {
     }
 
     /**
-     * Initializes listeners for mouse motion events.
+     * Shows the given zoom level in the zoom controls without triggering another zoom change.
+     *
+     * @param zoomPercent The zoom level in percent.
+     */
+    public void updateZoom(int zoomPercent) {
+        isUpdatingZoom = true;
+        statusBar.getZoomDropdown().setSelectedItem(zoomPercent + " %");
+        int index = statusBar.getZoomDropdown().getSelectedIndex();
+        if (index >= 0) {
+            statusBar.getZoomSlider().setValue(index);
+        }
+        isUpdatingZoom = false;
+    }
+
+    /**
+     * Shows the progress of a running file operation.
+     *
+     * @param description The description of the operation, e.g. the file name.
+     * @param percent     The progress in percent.
+     */
+    public void showFileProgress(String description, int percent) {
+        JProgressBar progressBar = statusBar.getFileProgressBar();
+        progressBar.setValue(percent);
+        progressBar.setString(description + " – " + percent + " %");
+        progressBar.setVisible(true);
+        statusBar.getCancelFileTaskButton().setVisible(true);
+    }
+
+    /**
+     * Hides the progress display after a file operation has finished.
+     */
+    public void hideFileProgress() {
+        statusBar.getFileProgressBar().setVisible(false);
+        statusBar.getCancelFileTaskButton().setVisible(false);
+    }
+
+    /**
+     * Initializes listeners for mouse motion events, the zoom controls and the cancel button of file operations.
      */
     private void initialiseListeners() {
         paintingPanel.addMouseMotionListener(new MouseMotionListener() {
             @Override
             public void mouseDragged(MouseEvent e) {
-                updateMousePosition(e.getX(), e.getY());
+                updateMousePosition(paintingPanel.toCanvasX(e.getX()), paintingPanel.toCanvasY(e.getY()));
             }
 
             @Override
             public void mouseMoved(MouseEvent e) {
-                updateMousePosition(e.getX(), e.getY());
+                updateMousePosition(paintingPanel.toCanvasX(e.getX()), paintingPanel.toCanvasY(e.getY()));
             }
         });;
+
+        statusBar.getZoomInButton().addActionListener(e -> setZoom(paintingPanel.getNextZoomLevel(true)));
+        statusBar.getZoomOutButton().addActionListener(e -> setZoom(paintingPanel.getNextZoomLevel(false)));
+        statusBar.getZoomDropdown().addActionListener(e -> {
+            int index = statusBar.getZoomDropdown().getSelectedIndex();
+            if (!isUpdatingZoom && index >= 0) {
+                setZoom(PaintingPanelView.ZOOM_LEVELS[index]);
+            }
+        });
+        statusBar.getZoomSlider().addChangeListener(e -> {
+            JSlider slider = statusBar.getZoomSlider();
+            if (!isUpdatingZoom && !slider.getValueIsAdjusting()) {
+                setZoom(PaintingPanelView.ZOOM_LEVELS[slider.getValue()]);
+            }
+        });
+
+        statusBar.getCancelFileTaskButton().addActionListener(e -> mainController.getMenuBarController().cancelFileTask());
+    }
+
+    /**
+     * Zooms the painting panel around the centre of the visible area.
+     *
+     * @param zoomPercent The new zoom level in percent.
+     */
+    private void setZoom(int zoomPercent) {
+        mainController.getPaintingPanelController().setZoom(zoomPercent, null);
     }
 
     /**
@@ -1,6 +1,7 @@
 package controller.components;
 
 import controller.MainController;
+import model.PaintingExecutor;
 import toolbox.LoggingHelper;
 import toolbox.paintingtools.PaintingTool;
 import view.MainWindow;
@@ -17,13 +18,14 @@ import java.awt.event.KeyEvent;
  * Handles user inputs, tool selection, and event handling.
  */
 public class ToolBarController {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(ToolBarController.class);
+
     private final MainWindow mainWindow;
     private final MainController mainController;
     private final ToolBarView toolBarView;
     private final PaintingPanelView paintingPanelView;
     private final PaintingModel paintingModel;
-
-    private boolean isZoomDialogShown = false;
+    private final PaintingExecutor paintingExecutor;
 
     /**
      * Constructs a ToolBarController and binds the toolbar components.
@@ -36,6 +38,7 @@ public class ToolBarController {
         this.toolBarView = mainWindow.getToolBarView();
         this.paintingPanelView = mainWindow.getPaintingPanelView();
         this.paintingModel = paintingPanelView.getPaintingModel();
+        this.paintingExecutor = paintingPanelView.getPaintingExecutor();
 
         initToolBarFunctions();
     }
@@ -76,7 +79,7 @@ public class ToolBarController {
         registerKeyBinding(component, KeyEvent.VK_P, () -> toolBarView.getPencilButton().doClick());
         registerKeyBinding(component, KeyEvent.VK_B, () -> toolBarView.getFillButton().doClick());
         registerKeyBinding(component, KeyEvent.VK_E, () -> toolBarView.getEraserButton().doClick());
-        registerKeyBinding(component, KeyEvent.VK_Z, this::showZoomDialog);
+        registerKeyBinding(component, KeyEvent.VK_Z, () -> toolBarView.getMagnifierButton().doClick());
     }
 
     /**
@@ -89,22 +92,6 @@ public class ToolBarController {
         registerKeyBinding(component, KeyEvent.VK_R, () -> toolBarView.getRectangleButton().doClick());
     }
 
-    /**
-     * Displays a message dialog when the magnifier tool is selected.
-     */
-    private void showZoomDialog() {
-        toolBarView.getMagnifierButton().doClick();
-        if (!isZoomDialogShown) {
-            JOptionPane.showMessageDialog(mainWindow,
-                    "Die Zoomfunktion konnte leider noch nicht zufriedenstellend implementiert werden. \n" +
-                            "Sie enthält daher noch keine Funktionen \n\n" +
-                            "Diese Meldung wird in dieser Sitzung kein weiteres Mal angezeigt.",
-                    "Hinweis: Funktion noch nicht vorhanden",
-                    JOptionPane.INFORMATION_MESSAGE);
-            isZoomDialogShown = true;
-        }
-    }
-
     /**
      * Registers action listeners for UI components.
      */
@@ -151,14 +138,12 @@ public class ToolBarController {
         Point cursorLocation = MouseInfo.getPointerInfo().getLocation();
         SwingUtilities.convertPointFromScreen(cursorLocation, paintingPanelView);
 
-        // Set or clear the preview point based on the selected tool
+        // Set or clear the preview point based on the selected tool (in canvas coordinates)
         if (showPreviewPoint) {
-            paintingPanelView.setPreviewPoint(cursorLocation, isEraser);
+            paintingPanelView.setPreviewPoint(paintingPanelView.toCanvasX(cursorLocation.x), paintingPanelView.toCanvasY(cursorLocation.y), isEraser);
         } else {
             paintingPanelView.clearPreviewPoint();
         }
-
-        paintingPanelView.repaint();
     }
 
     /**
@@ -170,7 +155,7 @@ public class ToolBarController {
 
         if (currentIndex < brushSizeDropdown.getItemCount() - 1) {
             brushSizeDropdown.setSelectedIndex(currentIndex + 1); // Nächste größere Größe wählen
-            paintingPanelView.repaint();
+            paintingPanelView.refreshPreviewPoint();
         }
     }
 
@@ -183,22 +168,27 @@ public class ToolBarController {
 
         if (currentIndex > 0) {
             brushSizeDropdown.setSelectedIndex(currentIndex - 1); // Nächste kleinere Größe wählen
-            paintingPanelView.repaint();
+            paintingPanelView.refreshPreviewPoint();
         }
     }
 
     /**
      * Updates the stroke width based on the selected brush size.
+     * The change is posted to the painting thread, so it applies to the drawing operations posted after it.
      */
     private void updateStrokeWidth() {
         String selectedValue = (String) toolBarView.getBrushSizeSelector().getSelectedItem();
 
         if (selectedValue != null) {
             try {
-                paintingModel.setStrokeWidth(Integer.parseInt(selectedValue.replace(" px", "")));
-                LoggingHelper.log("Neue Pinselbreite: " + paintingModel.getStrokeWidth() + " px \n");
+                int strokeWidth = Integer.parseInt(selectedValue.replace(" px", ""));
+                paintingExecutor.execute(() -> {
+                    paintingModel.setStrokeWidth(strokeWidth);
+                    SwingUtilities.invokeLater(paintingPanelView::refreshPreviewPoint);
+                });
+                logger.debug(() -> "Neue Pinselbreite: " + strokeWidth + " px \n");
             } catch (NumberFormatException e) {
-                LoggingHelper.log("Fehler beim Parsen der Pinselgröße: " + selectedValue + "\n");
+                logger.warn("Fehler beim Parsen der Pinselgröße: " + selectedValue + "\n");
             }
         }
     }
@@ -219,11 +209,15 @@ public class ToolBarController {
 
     /**
      * Changes the currently selected colour in the painting model.
+     * The change is posted to the painting thread, so it applies to the drawing operations posted after it.
      */
     private void changeColour() {
         Color newColour = toolBarView.getSelectedColour();
         if (newColour != null) {
-            paintingModel.setCurrentColour(newColour);
+            paintingExecutor.execute(() -> {
+                paintingModel.setCurrentColour(newColour);
+                SwingUtilities.invokeLater(paintingPanelView::refreshPreviewPoint);
+            });
         }
     }
 
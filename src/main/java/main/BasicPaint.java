@@ -1,6 +1,7 @@
 package main;
 
 import controller.MainController;
+import toolbox.InputRecorder;
 import view.MainWindow;
 
 import javax.swing.*;
@@ -26,5 +27,6 @@ public class BasicPaint {
     private static void runApplication() {
         MainWindow gui = new MainWindow();
         new MainController(gui);
+        InputRecorder.startIfRequested(gui);
     }
 }
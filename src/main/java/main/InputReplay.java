@@ -0,0 +1,186 @@
+package main;
+
+import controller.MainController;
+import toolbox.InputSession;
+import toolbox.LatencyHistogram;
+import toolbox.LoggingHelper;
+import toolbox.PerformanceMetrics;
+import view.MainWindow;
+import view.components.PaintingPanelView;
+import view.components.ToolBarView;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays an input session recorded with the system property {@code basicpaint.recordInput} and reports how
+ * long the application took to handle it.
+ * <p>
+ * Usage: {@code InputReplay <recording> [--max]}. By default, the inputs are replayed with their original timing;
+ * with {@code --max}, every input follows as soon as the previous one has been handled. The replay opens the
+ * regular application window, so it needs a display; on a machine without one, start it with
+ * {@code xvfb-run}. At the end, the time per input, the time per drawn frame, the latencies of the painting
+ * tools and the memory allocated by all threads are printed.
+ * </p>
+ */
+public class InputReplay {
+    private static final long SETTLE_TIME = 500; // Milliseconds to wait for the last repaints after the replay
+
+    private final InputSession.Session session;
+    private final boolean isMaxRate;
+    private final LatencyHistogram inputLatency = new LatencyHistogram("Eingabe");
+    private MainWindow mainWindow;
+    private MainController mainController;
+
+    /**
+     * Constructs a replay of a session.
+     *
+     * @param session   The recorded session.
+     * @param isMaxRate true to replay as fast as possible, false to keep the original timing.
+     */
+    private InputReplay(InputSession.Session session, boolean isMaxRate) {
+        this.session = session;
+        this.isMaxRate = isMaxRate;
+    }
+
+    /**
+     * Starts the replay.
+     *
+     * @param args The recorded session file, optionally followed by {@code --max}.
+     * @throws Exception If the file cannot be read or the replay is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args.length > 2 || (args.length == 2 && !args[1].equals("--max"))) {
+            System.err.println("Aufruf: InputReplay <Aufzeichnung." + InputSession.EXTENSION + "> [--max]");
+            System.exit(2);
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("Die Wiedergabe benötigt eine Anzeige. Ohne Bildschirm z. B. mit xvfb-run starten.");
+            System.exit(1);
+        }
+
+        InputSession.Session session = InputSession.read(Paths.get(args[0]));
+        new InputReplay(session, args.length == 2).run();
+        System.exit(0);
+    }
+
+    /**
+     * Opens the window, replays all inputs and prints the report.
+     */
+    private void run() throws Exception {
+        SwingUtilities.invokeAndWait(this::openWindow);
+        SwingUtilities.invokeAndWait(PerformanceMetrics::reset); // After the first frame has been drawn
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        long startNanos = System.nanoTime();
+
+        for (InputSession.Input input : session.inputs()) {
+            if (!isMaxRate) {
+                long delay = startNanos + TimeUnit.MICROSECONDS.toNanos(input.timeMicros()) - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            }
+            SwingUtilities.invokeAndWait(() -> {
+                long inputStart = System.nanoTime();
+                apply(input);
+                inputLatency.recordSince(inputStart);
+            });
+        }
+        mainWindow.getPaintingPanelView().getPaintingExecutor().submit(() -> null).join(); // Queued painting commands
+        long replayNanos = System.nanoTime() - startNanos;
+
+        Thread.sleep(SETTLE_TIME);
+        SwingUtilities.invokeAndWait(() -> { });
+        long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+
+        printReport(replayNanos, allocatedBefore < 0 ? -1 : allocated);
+    }
+
+    /**
+     * Opens the application window and restores the state of the window at the start of the recording.
+     */
+    private void openWindow() {
+        InputSession.Header header = session.header();
+        mainWindow = new MainWindow();
+        mainController = new MainController(mainWindow);
+        mainWindow.setSize(header.windowWidth(), header.windowHeight());
+        mainWindow.validate();
+
+        apply(new InputSession.ToolInput(0, header.tool()));
+        apply(new InputSession.BrushInput(0, header.brushIndex()));
+        apply(new InputSession.ColourInput(0, header.colourRgb()));
+        apply(new InputSession.ZoomInput(0, header.zoomPercent()));
+        mainWindow.getPaintingPanelView().requestFocusInWindow();
+    }
+
+    /**
+     * Feeds an input to the application. Toolbar and zoom changes are only applied if the state differs, since
+     * they are usually caused by a recorded key or mouse event that was replayed just before.
+     */
+    private void apply(InputSession.Input input) {
+        PaintingPanelView paintingView = mainWindow.getPaintingPanelView();
+        ToolBarView toolBarView = mainWindow.getToolBarView();
+
+        switch (input) {
+            case InputSession.MouseInput mouse -> paintingView.dispatchEvent(new MouseEvent(paintingView, mouse.id(),
+                    System.currentTimeMillis(), mouse.modifiers(), mouse.x(), mouse.y(), mouse.clickCount(), false, mouse.button()));
+            case InputSession.KeyInput key -> {
+                // Delivered to the painting panel directly, independent of the current focus owner
+                KeyEvent event = new KeyEvent(paintingView, key.id(), System.currentTimeMillis(), key.modifiers(),
+                        key.keyCode(), key.keyChar(), key.location());
+                KeyboardFocusManager.getCurrentKeyboardFocusManager().redispatchEvent(paintingView, event);
+            }
+            case InputSession.ToolInput tool -> {
+                if (toolBarView.getSelectedTool() != tool.tool()) {
+                    toolBarView.getToolButton(tool.tool()).doClick();
+                }
+            }
+            case InputSession.BrushInput brush -> {
+                if (toolBarView.getBrushSizeSelector().getSelectedIndex() != brush.brushIndex()) {
+                    toolBarView.getBrushSizeSelector().setSelectedIndex(brush.brushIndex());
+                }
+            }
+            case InputSession.ColourInput colour -> {
+                if (toolBarView.getSelectedColour().getRGB() != colour.rgb()) {
+                    toolBarView.getColourChooser().setColor(new Color(colour.rgb(), true));
+                }
+            }
+            case InputSession.ZoomInput zoom -> {
+                if (paintingView.getZoomPercent() != zoom.zoomPercent()) {
+                    mainController.getPaintingPanelController().setZoom(zoom.zoomPercent(), null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the time per input and per frame, the latencies of the painting tools and the allocated memory.
+     *
+     * @param replayNanos The duration of the replay.
+     * @param allocated   The bytes allocated by all threads during the replay, or -1 if not measurable.
+     */
+    private void printReport(long replayNanos, long allocated) {
+        long recordedMicros = session.inputs().isEmpty() ? 0 : session.inputs().getLast().timeMicros();
+        LoggingHelper.print("");
+        LoggingHelper.print(String.format("Wiedergabe: %d Eingaben in %.3f s (aufgezeichnet: %.3f s, %s)",
+                session.inputs().size(), replayNanos / 1e9, recordedMicros / 1e6,
+                isMaxRate ? "höchstes Tempo" : "Originaltempo"));
+        LoggingHelper.print(inputLatency.formatSummary());
+        LoggingHelper.print(String.format("Bilder gezeichnet: %d", PerformanceMetrics.getFrameCount()));
+        for (LatencyHistogram histogram : PerformanceMetrics.getHistograms()) {
+            if (histogram.getTotalCount() > 0) {
+                LoggingHelper.print(histogram.formatSummary());
+            }
+        }
+        LoggingHelper.print(allocated < 0
+                ? "Allokiert: nicht messbar"
+                : String.format("Allokiert: %.1f MB", allocated / (1024.0 * 1024.0)));
+    }
+}
@@ -0,0 +1,238 @@
+package model;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Mipmap pyramid of a {@link TiledCanvas} for zoomed-out display.
+ * <p>
+ * Level {@code n} holds the canvas downscaled by the factor {@code 2^n} (2×2 box filter applied level by level),
+ * split into tiles of {@value TiledCanvas#TILE_SIZE} × {@value TiledCanvas#TILE_SIZE} pixels like the canvas itself.
+ * Level 0 is the canvas. Tiles are built lazily when they are drawn, and only tiles marked dirty by changes
+ * to the canvas are rebuilt. Areas that are blank on the canvas stay blank (unallocated) in the pyramid.
+ * </p>
+ */
+public class CanvasMipmap {
+    public static final int MAX_LEVEL = 2; // 1/4 resolution, sufficient for the smallest zoom level of 25 %
+    private static final int TILE_SHIFT = TiledCanvas.TILE_SHIFT;
+    private static final int TILE_SIZE = TiledCanvas.TILE_SIZE;
+    private static final int HALF_TILE = TILE_SIZE / 2;
+
+    private TiledCanvas canvas;
+    private final Level[] levels = new Level[MAX_LEVEL + 1]; // Index 0 is unused, level 0 is the canvas
+
+    /**
+     * Constructs an (empty) mipmap pyramid for the given canvas.
+     *
+     * @param canvas The canvas to downscale.
+     */
+    public CanvasMipmap(TiledCanvas canvas) {
+        this.canvas = canvas;
+        for (int level = 1; level <= MAX_LEVEL; level++) {
+            levels[level] = new Level((canvas.getWidth() + (1 << level) - 1) >> level,
+                    (canvas.getHeight() + (1 << level) - 1) >> level);
+        }
+    }
+
+    /**
+     * Getter methods for accessing CanvasMipmap properties.
+     */
+    public TiledCanvas getCanvas() { return canvas; }
+
+    /**
+     * Moves the pyramid to a newer copy of the canvas with the same size, keeping the built tiles.
+     * The areas that differ between the two copies have to be marked dirty.
+     *
+     * @param newer The newer copy of the canvas.
+     * @throws IllegalArgumentException If the size of the canvas differs.
+     */
+    public void setCanvas(TiledCanvas newer) {
+        if (newer.getWidth() != canvas.getWidth() || newer.getHeight() != canvas.getHeight()) {
+            throw new IllegalArgumentException("Größe der Zeichenfläche hat sich geändert: " + newer.getWidth() + "x" + newer.getHeight());
+        }
+        this.canvas = newer;
+    }
+
+    /**
+     * Determines the pyramid level to draw for a display scale: the smallest level whose resolution is
+     * still at least as high as the display resolution.
+     *
+     * @param scale The display scale (1.0 = 100 %).
+     * @return The level between 0 and {@link #MAX_LEVEL}.
+     */
+    public static int levelForScale(double scale) {
+        int level = 0;
+        while (level < MAX_LEVEL && scale * (1 << (level + 1)) <= 1.0) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Marks the pyramid tiles covering a changed area of the canvas for rebuilding.
+     *
+     * @param region The changed area in canvas coordinates.
+     */
+    public void markDirty(Rectangle region) {
+        for (int level = 1; level <= MAX_LEVEL; level++) {
+            Level l = levels[level];
+            int shift = TILE_SHIFT + level;
+            int fromX = Math.max(0, region.x >> shift);
+            int fromY = Math.max(0, region.y >> shift);
+            int toX = Math.min(l.tilesX - 1, (region.x + region.width - 1) >> shift);
+            int toY = Math.min(l.tilesY - 1, (region.y + region.height - 1) >> shift);
+            for (int ty = fromY; ty <= toY; ty++) {
+                l.dirty.set(ty * l.tilesX + fromX, ty * l.tilesX + toX + 1);
+            }
+        }
+    }
+
+    /**
+     * Draws an area of a pyramid level, rebuilding dirty tiles first.
+     * The graphics context must be scaled so that one unit corresponds to one pixel of the level.
+     *
+     * @param g     The target graphics context.
+     * @param level The level to draw (1 to {@link #MAX_LEVEL}; use {@link TiledCanvas#draw} for level 0).
+     * @param area  The area to draw in canvas coordinates.
+     */
+    public void draw(Graphics g, int level, Rectangle area) {
+        Level l = levels[level];
+        int x0 = Math.max(0, area.x >> level);
+        int y0 = Math.max(0, area.y >> level);
+        int x1 = Math.min(l.width, (area.x + area.width + (1 << level) - 1) >> level);
+        int y1 = Math.min(l.height, (area.y + area.height + (1 << level) - 1) >> level);
+        if (x0 >= x1 || y0 >= y1) return;
+
+        Color background = new Color(canvas.getBackgroundRGB(), true);
+        for (int ty = y0 >> TILE_SHIFT; ty <= (y1 - 1) >> TILE_SHIFT; ty++) {
+            for (int tx = x0 >> TILE_SHIFT; tx <= (x1 - 1) >> TILE_SHIFT; tx++) {
+                int left = Math.max(x0, tx << TILE_SHIFT);
+                int top = Math.max(y0, ty << TILE_SHIFT);
+                int right = Math.min(x1, (tx + 1) << TILE_SHIFT);
+                int bottom = Math.min(y1, (ty + 1) << TILE_SHIFT);
+
+                BufferedImage image = tileImage(level, tx, ty);
+                if (image == null) {
+                    g.setColor(background);
+                    g.fillRect(left, top, right - left, bottom - top);
+                } else {
+                    int sx = left & (TILE_SIZE - 1);
+                    int sy = top & (TILE_SIZE - 1);
+                    g.drawImage(image, left, top, right, bottom, sx, sy, sx + right - left, sy + bottom - top, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the image of a pyramid tile, rebuilding it if it is dirty.
+     *
+     * @return The tile image, or {@code null} if the tile is blank.
+     */
+    private BufferedImage tileImage(int level, int tx, int ty) {
+        Level l = levels[level];
+        int index = ty * l.tilesX + tx;
+        if (l.dirty.get(index)) {
+            rebuildTile(level, tx, ty);
+            l.dirty.clear(index);
+        }
+        return l.images[index];
+    }
+
+    /**
+     * Returns the pixels of a tile of the level below, or {@code null} if that tile is blank or outside the level.
+     */
+    private int[] sourcePixels(int level, int tx, int ty) {
+        if (level == 0) {
+            if (tx >= canvas.getTilesX() || ty >= canvas.getTilesY()) return null;
+            return canvas.getTilePixels(tx, ty);
+        }
+        Level l = levels[level];
+        if (tx >= l.tilesX || ty >= l.tilesY) return null;
+        BufferedImage image = tileImage(level, tx, ty);
+        return image == null ? null : l.pixels[ty * l.tilesX + tx];
+    }
+
+    /**
+     * Rebuilds a tile by downscaling the four corresponding tiles of the level below.
+     */
+    private void rebuildTile(int level, int tx, int ty) {
+        Level l = levels[level];
+        int index = ty * l.tilesX + tx;
+        int backgroundRGB = canvas.getBackgroundRGB();
+
+        int[][] sources = new int[4][];
+        boolean isBlank = true;
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            sources[quadrant] = sourcePixels(level - 1, 2 * tx + (quadrant & 1), 2 * ty + (quadrant >> 1));
+            isBlank &= sources[quadrant] == null;
+        }
+        if (isBlank) {
+            l.images[index] = null;
+            l.pixels[index] = null;
+            return;
+        }
+
+        if (l.images[index] == null) {
+            l.images[index] = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+            l.pixels[index] = ((DataBufferInt) l.images[index].getRaster().getDataBuffer()).getData();
+        }
+        int[] target = l.pixels[index];
+
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            int[] source = sources[quadrant];
+            int offsetX = (quadrant & 1) * HALF_TILE;
+            int offsetY = (quadrant >> 1) * HALF_TILE;
+            for (int y = 0; y < HALF_TILE; y++) {
+                int targetRow = (offsetY + y) * TILE_SIZE + offsetX;
+                if (source == null) {
+                    Arrays.fill(target, targetRow, targetRow + HALF_TILE, backgroundRGB);
+                    continue;
+                }
+                int sourceRow = 2 * y * TILE_SIZE;
+                for (int x = 0; x < HALF_TILE; x++) {
+                    int i = sourceRow + 2 * x;
+                    target[targetRow + x] = average(source[i], source[i + 1], source[i + TILE_SIZE], source[i + TILE_SIZE + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Averages four ARGB colours channel by channel.
+     */
+    private static int average(int c0, int c1, int c2, int c3) {
+        int a = ((c0 >>> 24) + (c1 >>> 24) + (c2 >>> 24) + (c3 >>> 24) + 2) >> 2;
+        int r = (((c0 >> 16) & 0xFF) + ((c1 >> 16) & 0xFF) + ((c2 >> 16) & 0xFF) + ((c3 >> 16) & 0xFF) + 2) >> 2;
+        int g = (((c0 >> 8) & 0xFF) + ((c1 >> 8) & 0xFF) + ((c2 >> 8) & 0xFF) + ((c3 >> 8) & 0xFF) + 2) >> 2;
+        int b = ((c0 & 0xFF) + (c1 & 0xFF) + (c2 & 0xFF) + (c3 & 0xFF) + 2) >> 2;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * A single level of the pyramid.
+     */
+    private static final class Level {
+        private final int width;
+        private final int height;
+        private final int tilesX;
+        private final int tilesY;
+        private final BufferedImage[] images; // null = blank tile
+        private final int[][] pixels;
+        private final BitSet dirty;
+
+        private Level(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.tilesX = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+            this.tilesY = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+            this.images = new BufferedImage[tilesX * tilesY];
+            this.pixels = new int[images.length][];
+            this.dirty = new BitSet(images.length);
+            this.dirty.set(0, images.length); // Nothing has been built yet
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package model;
+
+import toolbox.LoggingHelper;
+import toolbox.PerformanceMetrics;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The painting thread: a single thread that owns a {@link PaintingModel} and applies every change to it.
+ * <p>
+ * Controllers post commands with {@link #execute(Runnable)}. The commands wait in a queue of at most
+ * {@value #QUEUE_CAPACITY} entries and run one after the other in the order they were posted, so the result does
+ * not depend on timing, while the Event Dispatch Thread keeps handling input and repainting during a long flood
+ * fill or undo snapshot. If the queue is full, posting blocks until the painting thread has caught up.
+ * </p>
+ * <p>
+ * After commands have changed the canvas, the damaged area is published: immediately once the queue is empty,
+ * and at least once per frame while further commands are waiting. The painting thread copies the damaged pixels
+ * into a reusable staging buffer, and the EDT copies them into its own published canvas, so drawing does not
+ * allocate in the steady state. Only damage larger than {@value #MAX_STAGED_PIXELS} pixels and a replaced canvas
+ * are published as a copy-on-write copy of the whole canvas. Publications are handed to the EDT in order and
+ * merged while the EDT is busy, so the view always draws a complete state and never misses a damaged area.
+ * The EDT reads the canvas only through {@link #getPublishedCanvas()}.
+ * </p>
+ */
+public class PaintingExecutor {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(PaintingExecutor.class);
+    public static final int QUEUE_CAPACITY = 256;
+    private static final long PUBLISH_INTERVAL = 16_000_000; // In nanoseconds, about one frame at 60 Hz
+    private static final int MAX_STAGED_PIXELS = 1 << 20; // Larger damage is published as a canvas copy
+
+    private final PaintingModel paintingModel;
+    private final BlockingQueue<Command> commands = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<BiConsumer<TiledCanvas, Rectangle>> publicationListeners = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private TiledCanvas publishedCanvas; // Only accessed on the EDT after construction
+
+    private Rectangle unpublishedDamage; // Only accessed on the painting thread
+    private TiledCanvas lastPublishedSource;
+    private long lastPublishNanos;
+
+    // The publication waiting for the EDT, guarded by publicationLock
+    private final Object publicationLock = new Object();
+    private Rectangle pendingDamage;
+    private TiledCanvas pendingSnapshot;
+    private Rectangle stagedArea;
+    private int[] stagedPixels = new int[0];
+
+    /**
+     * Constructs the executor and starts the painting thread. From now on, the model must only be changed by
+     * commands posted to this executor.
+     *
+     * @param paintingModel The model owned by the painting thread.
+     */
+    public PaintingExecutor(PaintingModel paintingModel) {
+        this.paintingModel = paintingModel;
+        this.publishedCanvas = paintingModel.getCanvas().copy();
+        this.lastPublishedSource = paintingModel.getCanvas();
+        paintingModel.addDamageListener(this::collectDamage);
+        this.thread = Thread.ofPlatform().name("BasicPaint-Zeichnen").daemon().start(this::processCommands);
+    }
+
+    /**
+     * Getter methods for accessing PaintingExecutor properties. The published canvas is updated in place on the
+     * EDT; code that keeps it beyond the current event has to take a {@link TiledCanvas#copy()}.
+     */
+    public TiledCanvas getPublishedCanvas() { return publishedCanvas; }
+    public boolean isPaintingThread() { return Thread.currentThread() == thread; }
+
+    /**
+     * Registers a listener that is notified on the EDT whenever a new state of the canvas has been published.
+     * It receives the published canvas and the area changed since the previous publication (in canvas coordinates).
+     *
+     * @param listener The listener to add.
+     */
+    public void addPublicationListener(BiConsumer<TiledCanvas, Rectangle> listener) {
+        publicationListeners.add(listener);
+    }
+
+    /**
+     * Posts a command to the painting thread. Commands run in the order they were posted; a command posted by
+     * another command runs immediately.
+     *
+     * @param command The command, which may change the painting model.
+     */
+    public void execute(Runnable command) {
+        if (isPaintingThread()) {
+            command.run();
+            return;
+        }
+
+        Command queued = new Command(command, System.nanoTime());
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                commands.put(queued);
+                break;
+            } catch (InterruptedException e) {
+                isInterrupted = true; // The command must not get lost, the interrupt is restored afterwards
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Posts a command that computes a result, for example a consistent copy of the canvas after all commands
+     * posted so far.
+     *
+     * @param task The command.
+     * @return A future completed on the painting thread with the result of the command, or exceptionally if
+     *         the command throws.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e); // Waiting threads must not hang, e.g. on an OutOfMemoryError
+                if (e instanceof Error error) throw error;
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Main loop of the painting thread: runs the queued commands and publishes their changes.
+     */
+    private void processCommands() {
+        while (true) {
+            Command command = takeCommand();
+            PerformanceMetrics.PAINT_QUEUE.recordSince(command.postedNanos());
+            try {
+                command.action().run();
+            } catch (RuntimeException | OutOfMemoryError e) {
+                logger.error("Zeichenbefehl fehlgeschlagen: " + e);
+            }
+
+            if (commands.isEmpty() || System.nanoTime() - lastPublishNanos >= PUBLISH_INTERVAL) {
+                publish();
+            }
+        }
+    }
+
+    /**
+     * Takes the next command from the queue, waiting until one is posted. The painting thread is never interrupted.
+     */
+    private Command takeCommand() {
+        while (true) {
+            try {
+                return commands.take();
+            } catch (InterruptedException e) {
+                logger.warn("Zeichen-Thread unterbrochen, Unterbrechung wird ignoriert.");
+            }
+        }
+    }
+
+    /**
+     * Collects the areas damaged by the running command. Called on the painting thread.
+     */
+    private void collectDamage(Rectangle region) {
+        unpublishedDamage = (unpublishedDamage == null) ? region : unpublishedDamage.union(region);
+    }
+
+    /**
+     * Publishes the damaged area of the canvas if it has changed since the last publication. If the EDT has not
+     * picked up the previous publication yet, the two are merged instead of queueing another one.
+     */
+    private void publish() {
+        lastPublishNanos = System.nanoTime();
+        if (unpublishedDamage == null) return;
+
+        TiledCanvas canvas = paintingModel.getCanvas();
+        boolean isReplaced = canvas != lastPublishedSource;
+        lastPublishedSource = canvas;
+
+        synchronized (publicationLock) {
+            boolean isQueued = pendingDamage != null;
+            pendingDamage = isQueued ? pendingDamage.union(unpublishedDamage) : unpublishedDamage;
+            Rectangle area = pendingDamage.intersection(new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight()));
+
+            if (isReplaced || pendingSnapshot != null || (long) area.width * area.height > MAX_STAGED_PIXELS) {
+                pendingSnapshot = canvas.copy();
+                stagedArea = null;
+            } else if (!area.isEmpty()) {
+                if (stagedPixels.length < area.width * area.height) {
+                    stagedPixels = new int[area.width * area.height];
+                }
+                canvas.getRGB(area.x, area.y, area.width, area.height, stagedPixels);
+                stagedArea = area;
+            }
+
+            if (!isQueued) {
+                SwingUtilities.invokeLater(this::deliverPublication);
+            }
+        }
+        unpublishedDamage = null;
+    }
+
+    /**
+     * Applies the pending publication to the published canvas and hands it to the listeners. Runs on the EDT.
+     */
+    private void deliverPublication() {
+        Rectangle damage;
+        synchronized (publicationLock) {
+            damage = pendingDamage;
+            if (pendingSnapshot != null) {
+                publishedCanvas = pendingSnapshot;
+            } else if (stagedArea != null) {
+                publishedCanvas.setRGB(stagedArea.x, stagedArea.y, stagedArea.width, stagedArea.height, stagedPixels);
+            }
+            pendingDamage = null;
+            pendingSnapshot = null;
+            stagedArea = null;
+        }
+
+        for (BiConsumer<TiledCanvas, Rectangle> listener : publicationListeners) {
+            listener.accept(publishedCanvas, new Rectangle(damage));
+        }
+    }
+
+    /**
+     * A queued command with the time it was posted, for measuring how long it waited.
+     */
+    private record Command(Runnable action, long postedNanos) { }
+}
@@ -4,16 +4,31 @@ import toolbox.LoggingHelper;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Manages the painting canvas, including drawing operations and flood fill.
+ * The canvas is held as a {@link TiledCanvas}, so blank regions cost no memory.
+ * Every change is reported as a damaged rectangle to the registered damage listeners,
+ * so that views can repaint only the affected area.
+ * <p>
+ * In the application, the model is owned by a {@link PaintingExecutor}: the canvas is only changed and read
+ * by commands on the painting thread, and damage listeners are notified on that thread. The painting settings
+ * (colour, stroke width) are set by commands as well, so they apply in order with the drawing operations.
+ * </p>
  */
 public class PaintingModel {
-    private BufferedImage canvas;
-    private Graphics2D g2d;
-    private Color currentColour;
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(PaintingModel.class);
+
+    private TiledCanvas canvas;
+    private volatile Color currentColour; // The settings are read by the previews on the EDT as well
     private Color backgroundColour;
-    private int strokeWidth;
+    private volatile int strokeWidth;
+    private Rectangle dirtyRegion; // Area changed since the last reset, null if unchanged
+    private volatile boolean isEditingLocked; // Set on the EDT while a file is still being loaded into the canvas
+    private final List<Consumer<Rectangle>> damageListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs a new painting model with the specified dimensions.
@@ -22,27 +37,70 @@ public class PaintingModel {
      * @param height The height of the canvas.
      */
     public PaintingModel(int width, int height) {
-        this.canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        this.g2d = canvas.createGraphics();
-        this.g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF); // TODO: Implement function to switch antialiasing on/off after a floolFill function has been implemented that takes antialiasing sufficiently into account.
-
         this.backgroundColour = Color.WHITE;
         this.currentColour = Color.BLACK;
         this.strokeWidth = 3;
 
-        g2d.setColor(currentColour);
-        g2d.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-        clearCanvas();
+        this.canvas = new TiledCanvas(width, height, backgroundColour);
     }
 
     /**
      * Getter methods for accessing PaintinModel components.
      */
-    public BufferedImage getCanvas() { return canvas; }
-    public Graphics2D getG2D() { return g2d; }
+    public TiledCanvas getCanvas() { return canvas; }
     public Color getCurrentColour() { return currentColour; }
     public Color getBackgroundColour() { return backgroundColour; }
     public int getStrokeWidth() { return strokeWidth; }
+    public boolean isEditingLocked() { return isEditingLocked; }
+
+    /**
+     * Locks or unlocks editing, for example while the full resolution of an opened image is still being loaded.
+     * The canvas can still be displayed and zoomed while editing is locked.
+     *
+     * @param isLocked {@code true} to lock editing.
+     */
+    public void setEditingLocked(boolean isLocked) {
+        this.isEditingLocked = isLocked;
+    }
+
+    /**
+     * Returns the bounding rectangle of all changes since the last {@link #resetDirtyRegion()}.
+     *
+     * @return A copy of the dirty region, or {@code null} if nothing has changed.
+     */
+    public Rectangle getDirtyRegion() {
+        return dirtyRegion == null ? null : new Rectangle(dirtyRegion);
+    }
+
+    /**
+     * Forgets all changes recorded so far.
+     */
+    public void resetDirtyRegion() {
+        dirtyRegion = null;
+    }
+
+    /**
+     * Registers a listener that is notified with the damaged rectangle (in canvas coordinates)
+     * whenever the canvas is modified.
+     *
+     * @param listener The listener to add.
+     */
+    public void addDamageListener(Consumer<Rectangle> listener) {
+        damageListeners.add(listener);
+    }
+
+    /**
+     * Records that an area of the canvas has been modified and notifies the damage listeners.
+     *
+     * @param region The modified area (clipped to the canvas bounds).
+     */
+    public void markDirty(Rectangle region) {
+        if (region == null) return;
+        Rectangle clipped = region.intersection(new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight()));
+        if (clipped.isEmpty()) return;
+        dirtyRegion = (dirtyRegion == null) ? clipped : dirtyRegion.union(clipped);
+        fireDamage(clipped);
+    }
 
     /**
      * Replaces the current canvas with a new image (for example, when loading a file).
@@ -50,8 +108,35 @@ public class PaintingModel {
      * @param newImage The new BufferedImage to use as the canvas.
      */
     public void setCanvas(BufferedImage newImage) {
-        this.canvas = newImage;
-        g2d = canvas.createGraphics();
+        setCanvas(TiledCanvas.fromImage(newImage, backgroundColour));
+    }
+
+    /**
+     * Replaces the current canvas with another tiled canvas (for example, when restoring an undo state).
+     *
+     * @param newCanvas The new canvas.
+     */
+    public void setCanvas(TiledCanvas newCanvas) {
+        Rectangle oldBounds = new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight());
+        this.canvas = newCanvas;
+        markDirty(new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight()));
+
+        // Areas of a larger previous canvas have to be repainted as well
+        if (oldBounds.width > canvas.getWidth() || oldBounds.height > canvas.getHeight()) {
+            fireDamage(oldBounds);
+        }
+    }
+
+    /**
+     * Paints on the canvas within the given bounds.
+     * The painter is called once per affected tile with a graphics context in canvas coordinates.
+     *
+     * @param bounds  The area touched by the operation.
+     * @param painter The drawing operation.
+     */
+    public void paint(Rectangle bounds, Consumer<Graphics2D> painter) {
+        canvas.paint(bounds, painter);
+        markDirty(bounds);
     }
 
     /**
@@ -61,14 +146,9 @@ public class PaintingModel {
      * @param height The new height.
      */
     public void setCanvasSize(int width, int height) {
-        BufferedImage newCanvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D tempG2D = newCanvas.createGraphics();
-        tempG2D.setColor(backgroundColour);
-        tempG2D.fillRect(0, 0, width, height);
-        tempG2D.drawImage(canvas, 0, 0, null);
-        tempG2D.dispose();
-
-        LoggingHelper.log("Größe der Zeichenfläche geändert. \n" +
+        TiledCanvas newCanvas = canvas.resize(width, height);
+
+        logger.info(() -> "Größe der Zeichenfläche geändert. \n" +
                 LoggingHelper.formatMessage("Neue Breite: " + width + " px \n" +
                         LoggingHelper.formatMessage("Neue Höhe: " + height + " px \n")));
 
@@ -79,9 +159,8 @@ public class PaintingModel {
      * Clears the entire canvas by filling it with the background colour.
      */
     public void clearCanvas() {
-        g2d.setBackground(backgroundColour);
-        g2d.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-        g2d.setColor(currentColour); // Restore drawing colour
+        canvas.clear();
+        markDirty(new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight()));
     }
 
     /**
@@ -91,8 +170,7 @@ public class PaintingModel {
      */
     public void setCurrentColour(Color colour) {
         this.currentColour = colour;
-        g2d.setColor(colour);
-        LoggingHelper.log("Farbe gewechselt. \n" +
+        logger.debug(() -> "Farbe gewechselt. \n" +
                 LoggingHelper.formatMessage("Neue Farbe: " + currentColour + "\n"));
     }
 
@@ -103,21 +181,29 @@ public class PaintingModel {
      */
     public void setStrokeWidth(int strokeWidth) {
         this.strokeWidth = strokeWidth;
-        if (g2d == null) {  // Falls `g2d` nicht existiert, neu erstellen
-            g2d = canvas.createGraphics();
-        }
-        g2d.setStroke(new BasicStroke(strokeWidth));
     }
 
     /**
      * Logs the initial state of the painting model to the console.
      */
     public void showInitialPaintingModelValuesInConsole() {
-        LoggingHelper.log("Initiale Werte PaintingModel:");
-        LoggingHelper.log("Zeichenfläche Höhe = " + canvas.getHeight() + " px.");
-        LoggingHelper.log("Zeichenfläche Breite = " + canvas.getWidth() + " px.");
-        LoggingHelper.log("currentColour = " + getCurrentColour() + ".");
-        LoggingHelper.log("backgroundColour = " + getBackgroundColour() + ".");
-        LoggingHelper.log("strokeWidth = " + getStrokeWidth() + " px. \n");
+        logger.debug("Initiale Werte PaintingModel:");
+        logger.debug(() -> "Zeichenfläche Höhe = " + canvas.getHeight() + " px.");
+        logger.debug(() -> "Zeichenfläche Breite = " + canvas.getWidth() + " px.");
+        logger.debug(() -> "Kachelgröße = " + TiledCanvas.TILE_SIZE + " px.");
+        logger.debug(() -> "currentColour = " + getCurrentColour() + ".");
+        logger.debug(() -> "backgroundColour = " + getBackgroundColour() + ".");
+        logger.debug(() -> "strokeWidth = " + getStrokeWidth() + " px. \n");
+    }
+
+    /**
+     * Notifies the damage listeners about a damaged area.
+     *
+     * @param region The damaged area in canvas coordinates.
+     */
+    private void fireDamage(Rectangle region) {
+        for (Consumer<Rectangle> listener : damageListeners) {
+            listener.accept(new Rectangle(region));
+        }
     }
 }
\ No newline at end of file
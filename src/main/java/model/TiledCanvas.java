@@ -0,0 +1,577 @@
+package model;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Tiled backing store for the painting canvas.
+ * <p>
+ * The canvas is split into square tiles of {@value #TILE_SIZE} × {@value #TILE_SIZE} ARGB pixels.
+ * Tiles are only allocated once something is painted on them, so blank regions cost no memory and
+ * the document size is not limited by the maximum length of a single Java array.
+ * Copies share their tiles and a tile is only duplicated when one side writes to it (copy-on-write).
+ * Tiles can also be decoded lazily from a {@link TileSource} on first access.
+ * </p>
+ * Pixels outside the canvas bounds but inside an edge tile always hold the background colour,
+ * so growing the canvas never reveals stale content.
+ */
+public class TiledCanvas {
+    public static final int TILE_SHIFT = 8;
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tilesY;
+    private final int backgroundRGB;
+    private final Tile[] tiles; // null = blank tile (background colour only)
+
+    /**
+     * Constructs a blank canvas with the given dimensions.
+     *
+     * @param width      The width of the canvas in pixels.
+     * @param height     The height of the canvas in pixels.
+     * @param background The background colour of blank regions.
+     */
+    public TiledCanvas(int width, int height, Color background) {
+        this(width, height, background.getRGB());
+    }
+
+    /**
+     * Constructs a blank canvas with the given dimensions and packed background colour.
+     *
+     * @param width         The width of the canvas in pixels.
+     * @param height        The height of the canvas in pixels.
+     * @param backgroundRGB The packed ARGB background colour.
+     */
+    private TiledCanvas(int width, int height, int backgroundRGB) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Ungültige Größe der Zeichenfläche: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.tilesX = (width + TILE_MASK) >> TILE_SHIFT;
+        this.tilesY = (height + TILE_MASK) >> TILE_SHIFT;
+        this.backgroundRGB = backgroundRGB;
+        this.tiles = new Tile[Math.multiplyExact(tilesX, tilesY)];
+    }
+
+    /**
+     * Creates a tiled canvas from an image (for example, after loading a file).
+     * Tiles that only contain the background colour are not allocated.
+     *
+     * @param image      The source image.
+     * @param background The background colour of the canvas.
+     * @return A new canvas holding a copy of the image.
+     */
+    public static TiledCanvas fromImage(BufferedImage image, Color background) {
+        TiledCanvas canvas = new TiledCanvas(image.getWidth(), image.getHeight(), background);
+        for (int ty = 0; ty < canvas.tilesY; ty++) {
+            for (int tx = 0; tx < canvas.tilesX; tx++) {
+                int x = tx << TILE_SHIFT;
+                int y = ty << TILE_SHIFT;
+                int w = Math.min(TILE_SIZE, canvas.width - x);
+                int h = Math.min(TILE_SIZE, canvas.height - y);
+
+                Tile tile = new Tile(canvas.backgroundRGB);
+                image.getRGB(x, y, w, h, tile.pixels(), 0, TILE_SIZE);
+                if (!tile.isFilledWith(canvas.backgroundRGB)) {
+                    canvas.tiles[ty * canvas.tilesX + tx] = tile;
+                }
+            }
+        }
+        return canvas;
+    }
+
+    /**
+     * Creates a tiled canvas whose tiles are decoded on first access (for example, from a memory-mapped
+     * project file), so only the tiles that are actually displayed or edited are ever decoded.
+     *
+     * @param width         The width of the canvas in pixels.
+     * @param height        The height of the canvas in pixels.
+     * @param backgroundRGB The packed ARGB background colour.
+     * @param source        The source of the tile pixels.
+     * @return A new canvas backed by the source.
+     */
+    public static TiledCanvas fromTileSource(int width, int height, int backgroundRGB, TileSource source) {
+        TiledCanvas canvas = new TiledCanvas(width, height, backgroundRGB);
+        for (int ty = 0; ty < canvas.tilesY; ty++) {
+            for (int tx = 0; tx < canvas.tilesX; tx++) {
+                if (source.isBlank(tx, ty)) continue;
+                int column = tx;
+                int row = ty;
+                canvas.tiles[ty * canvas.tilesX + tx] = new Tile(pixels -> source.decode(column, row, pixels));
+            }
+        }
+        return canvas;
+    }
+
+    /**
+     * Getter methods for accessing TiledCanvas properties.
+     */
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getTilesX() { return tilesX; }
+    public int getTilesY() { return tilesY; }
+    public int getBackgroundRGB() { return backgroundRGB; }
+
+    /**
+     * Creates a copy of this canvas that shares all tiles until one side modifies them.
+     *
+     * @return The copy.
+     */
+    public TiledCanvas copy() {
+        TiledCanvas copy = new TiledCanvas(width, height, backgroundRGB);
+        for (int i = 0; i < tiles.length; i++) {
+            copy.tiles[i] = share(tiles[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a resized copy of this canvas, preserving the content in the overlapping area.
+     * Unchanged tiles are shared with this canvas.
+     *
+     * @param newWidth  The new width.
+     * @param newHeight The new height.
+     * @return The resized canvas.
+     */
+    public TiledCanvas resize(int newWidth, int newHeight) {
+        TiledCanvas resized = new TiledCanvas(newWidth, newHeight, backgroundRGB);
+        int commonTilesX = Math.min(tilesX, resized.tilesX);
+        int commonTilesY = Math.min(tilesY, resized.tilesY);
+
+        for (int ty = 0; ty < commonTilesY; ty++) {
+            for (int tx = 0; tx < commonTilesX; tx++) {
+                resized.tiles[ty * resized.tilesX + tx] = share(tiles[ty * tilesX + tx]);
+            }
+        }
+
+        // Content cut off by shrinking must not reappear when the canvas grows again
+        if (newWidth < width) {
+            resized.fillOutside(newWidth, 0, TILE_SIZE, newHeight);
+        }
+        if (newHeight < height) {
+            resized.fillOutside(0, newHeight, newWidth, TILE_SIZE);
+        }
+        return resized;
+    }
+
+    /**
+     * Checks whether a tile is still shared with another canvas of the same size, i.e. neither canvas has
+     * modified it since one was copied from the other. Blank tiles on both sides count as shared.
+     *
+     * @param other The other canvas.
+     * @param tx    The tile column.
+     * @param ty    The tile row.
+     * @return {@code true} if both canvases hold the same tile, otherwise {@code false}.
+     */
+    public boolean isSameTile(TiledCanvas other, int tx, int ty) {
+        return other.tilesX == tilesX && tiles[ty * tilesX + tx] == other.tiles[ty * tilesX + tx];
+    }
+
+    /**
+     * Counts the allocated tiles that none of the other canvases holds at the same position, i.e. the tiles
+     * that only this canvas keeps in memory. Tiles still shared with copy-on-write copies are not counted.
+     *
+     * @param others The canvases to compare with, of any size.
+     * @return The number of tiles held by this canvas alone.
+     */
+    public int getUnsharedTileCount(TiledCanvas... others) {
+        int count = 0;
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                Tile tile = tiles[ty * tilesX + tx];
+                if (tile != null && !isHeldByAny(tile, tx, ty, others)) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resets the canvas to the background colour and releases all tiles.
+     */
+    public void clear() {
+        Arrays.fill(tiles, null);
+    }
+
+    /**
+     * Returns the colour of a single pixel.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The packed ARGB colour.
+     */
+    public int getRGB(int x, int y) {
+        Tile tile = tiles[(y >> TILE_SHIFT) * tilesX + (x >> TILE_SHIFT)];
+        return tile == null ? backgroundRGB : tile.pixels()[((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK)];
+    }
+
+    /**
+     * Sets the colour of a single pixel.
+     *
+     * @param x   The x-coordinate.
+     * @param y   The y-coordinate.
+     * @param rgb The packed ARGB colour.
+     */
+    public void setRGB(int x, int y, int rgb) {
+        Tile tile = tiles[(y >> TILE_SHIFT) * tilesX + (x >> TILE_SHIFT)];
+        if (tile == null && rgb == backgroundRGB) return;
+        writableTile(x >> TILE_SHIFT, y >> TILE_SHIFT).pixels()[((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK)] = rgb;
+    }
+
+    /**
+     * Returns the pixel array of a tile for reading (row-major, {@value #TILE_SIZE} pixels per row).
+     * The array may be shared with copies of this canvas and must not be modified.
+     *
+     * @param tx The tile column.
+     * @param ty The tile row.
+     * @return The pixels of the tile, or {@code null} if the tile is blank.
+     */
+    public int[] getTilePixels(int tx, int ty) {
+        Tile tile = tiles[ty * tilesX + tx];
+        return tile == null ? null : tile.pixels();
+    }
+
+    /**
+     * Returns the pixel array of a tile for writing, allocating the tile or creating a private copy
+     * of a shared tile first. The array stays valid until the next {@link #copy()} of this canvas.
+     *
+     * @param tx The tile column.
+     * @param ty The tile row.
+     * @return The writable pixels of the tile.
+     */
+    public int[] getWritableTilePixels(int tx, int ty) {
+        return writableTile(tx, ty).pixels();
+    }
+
+    /**
+     * Copies the pixels of a region into an array (row by row, without padding).
+     *
+     * @param x   The left edge of the region.
+     * @param y   The top edge of the region.
+     * @param w   The width of the region.
+     * @param h   The height of the region.
+     * @param rgb The destination array, or {@code null} to allocate one.
+     * @return The array holding the region's pixels.
+     */
+    public int[] getRGB(int x, int y, int w, int h, int[] rgb) {
+        if (rgb == null) rgb = new int[w * h];
+        for (int row = 0; row < h; row++) {
+            int cy = y + row;
+            int ty = cy >> TILE_SHIFT;
+            int cx = x;
+            int offset = row * w;
+            while (cx < x + w) {
+                int tx = cx >> TILE_SHIFT;
+                int run = Math.min(TILE_SIZE - (cx & TILE_MASK), x + w - cx);
+                Tile tile = tiles[ty * tilesX + tx];
+                if (tile == null) {
+                    Arrays.fill(rgb, offset, offset + run, backgroundRGB);
+                } else {
+                    System.arraycopy(tile.pixels(), ((cy & TILE_MASK) << TILE_SHIFT) | (cx & TILE_MASK), rgb, offset, run);
+                }
+                cx += run;
+                offset += run;
+            }
+        }
+        return rgb;
+    }
+
+    /**
+     * Writes the pixels of a region from an array (row by row, without padding).
+     *
+     * @param x   The left edge of the region.
+     * @param y   The top edge of the region.
+     * @param w   The width of the region.
+     * @param h   The height of the region.
+     * @param rgb The source pixels.
+     */
+    public void setRGB(int x, int y, int w, int h, int[] rgb) {
+        for (int row = 0; row < h; row++) {
+            int cy = y + row;
+            int ty = cy >> TILE_SHIFT;
+            int cx = x;
+            int offset = row * w;
+            while (cx < x + w) {
+                int tx = cx >> TILE_SHIFT;
+                int run = Math.min(TILE_SIZE - (cx & TILE_MASK), x + w - cx);
+                System.arraycopy(rgb, offset, writableTile(tx, ty).pixels(), ((cy & TILE_MASK) << TILE_SHIFT) | (cx & TILE_MASK), run);
+                cx += run;
+                offset += run;
+            }
+        }
+    }
+
+    /**
+     * Paints on the canvas. The painter is invoked once for every tile intersecting the bounds,
+     * with a graphics context translated to canvas coordinates and clipped to that tile.
+     *
+     * @param bounds  The area the painter may touch (in canvas coordinates).
+     * @param painter The drawing operation.
+     */
+    public void paint(Rectangle bounds, Consumer<Graphics2D> painter) {
+        Rectangle area = bounds.intersection(new Rectangle(0, 0, width, height));
+        if (area.isEmpty()) return;
+
+        for (int ty = area.y >> TILE_SHIFT; ty <= (area.y + area.height - 1) >> TILE_SHIFT; ty++) {
+            for (int tx = area.x >> TILE_SHIFT; tx <= (area.x + area.width - 1) >> TILE_SHIFT; tx++) {
+                Graphics2D g2d = writableTile(tx, ty).image().createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF); // TODO: Implement function to switch antialiasing on/off after a floolFill function has been implemented that takes antialiasing sufficiently into account.
+                g2d.translate(-(tx << TILE_SHIFT), -(ty << TILE_SHIFT));
+                g2d.clip(area.intersection(tileBounds(tx, ty)));
+                painter.accept(g2d);
+                g2d.dispose();
+            }
+        }
+    }
+
+    /**
+     * Draws the given area of the canvas onto a graphics context.
+     * Blank tiles are drawn as background-coloured rectangles.
+     *
+     * @param g    The target graphics context (in canvas coordinates).
+     * @param area The area of the canvas to draw.
+     */
+    public void draw(Graphics g, Rectangle area) {
+        Rectangle visible = area.intersection(new Rectangle(0, 0, width, height));
+        if (visible.isEmpty()) return;
+
+        Color background = new Color(backgroundRGB, true);
+        for (int ty = visible.y >> TILE_SHIFT; ty <= (visible.y + visible.height - 1) >> TILE_SHIFT; ty++) {
+            for (int tx = visible.x >> TILE_SHIFT; tx <= (visible.x + visible.width - 1) >> TILE_SHIFT; tx++) {
+                Rectangle r = tileBounds(tx, ty).intersection(visible); // Blit only the requested part of the tile
+                Tile tile = tiles[ty * tilesX + tx];
+                if (tile == null) {
+                    g.setColor(background);
+                    g.fillRect(r.x, r.y, r.width, r.height);
+                } else {
+                    int sx = r.x & TILE_MASK;
+                    int sy = r.y & TILE_MASK;
+                    g.drawImage(tile.image(), r.x, r.y, r.x + r.width, r.y + r.height,
+                            sx, sy, sx + r.width, sy + r.height, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flattens the canvas into a single image (for example, for saving or printing).
+     *
+     * @return A new TYPE_INT_ARGB image with the canvas content.
+     * @throws IllegalStateException If the canvas is too large for a single image.
+     */
+    public BufferedImage toBufferedImage() {
+        if ((long) width * height > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Zeichenfläche ist zu groß für ein einzelnes Bild: " + width + "x" + height);
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setComposite(AlphaComposite.Src);
+        draw(g2d, new Rectangle(0, 0, width, height));
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * Checks whether two canvases have identical dimensions and pixels.
+     * Shared tiles are recognised without comparing their pixels.
+     *
+     * @param other The canvas to compare with.
+     * @return {@code true} if both canvases are identical, otherwise {@code false}.
+     */
+    public boolean contentEquals(TiledCanvas other) {
+        if (other == null || other.width != width || other.height != height || other.backgroundRGB != backgroundRGB) {
+            return false;
+        }
+        for (int i = 0; i < tiles.length; i++) {
+            Tile a = tiles[i];
+            Tile b = other.tiles[i];
+            if (a == b) continue;
+            if (a == null ? !b.isFilledWith(backgroundRGB)
+                    : b == null ? !a.isFilledWith(backgroundRGB) : !Arrays.equals(a.pixels(), b.pixels())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the tile at the given tile coordinates for writing, allocating it or
+     * resolving a shared tile into a private copy first.
+     *
+     * @param tx The tile column.
+     * @param ty The tile row.
+     * @return The writable tile.
+     */
+    private Tile writableTile(int tx, int ty) {
+        int index = ty * tilesX + tx;
+        Tile tile = tiles[index];
+        if (tile == null) {
+            tile = new Tile(backgroundRGB);
+            tiles[index] = tile;
+        } else if (tile.shared) {
+            tile = new Tile(tile);
+            tiles[index] = tile;
+        }
+        return tile;
+    }
+
+    /**
+     * Fills the part of a region lying outside the canvas bounds with the background colour.
+     * Only tiles that actually exist are touched.
+     */
+    private void fillOutside(int x, int y, int w, int h) {
+        for (int ty = y >> TILE_SHIFT; ty < tilesY && ty <= (y + h - 1) >> TILE_SHIFT; ty++) {
+            for (int tx = x >> TILE_SHIFT; tx < tilesX && tx <= (x + w - 1) >> TILE_SHIFT; tx++) {
+                if (tiles[ty * tilesX + tx] == null) continue;
+                int[] pixels = writableTile(tx, ty).pixels();
+                for (int py = 0; py < TILE_SIZE; py++) {
+                    for (int px = 0; px < TILE_SIZE; px++) {
+                        int cx = (tx << TILE_SHIFT) + px;
+                        int cy = (ty << TILE_SHIFT) + py;
+                        if (cx >= width || cy >= height) {
+                            pixels[(py << TILE_SHIFT) | px] = backgroundRGB;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the bounds of a tile in canvas coordinates.
+     */
+    private static Rectangle tileBounds(int tx, int ty) {
+        return new Rectangle(tx << TILE_SHIFT, ty << TILE_SHIFT, TILE_SIZE, TILE_SIZE);
+    }
+
+    /**
+     * Checks whether one of the canvases holds the given tile at the given tile position.
+     */
+    private static boolean isHeldByAny(Tile tile, int tx, int ty, TiledCanvas[] canvases) {
+        for (TiledCanvas canvas : canvases) {
+            if (tx < canvas.tilesX && ty < canvas.tilesY && canvas.tiles[ty * canvas.tilesX + tx] == tile) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks a tile as shared so that the next write to it creates a private copy.
+     */
+    private static Tile share(Tile tile) {
+        if (tile != null) tile.shared = true;
+        return tile;
+    }
+
+    /**
+     * Supplies the pixels of tiles that are decoded lazily, see {@link #fromTileSource}.
+     */
+    public interface TileSource {
+        /**
+         * Checks whether a tile only holds the background colour and does not need to be decoded.
+         *
+         * @param tx The tile column.
+         * @param ty The tile row.
+         * @return {@code true} if the tile is blank.
+         */
+        boolean isBlank(int tx, int ty);
+
+        /**
+         * Decodes the pixels of a tile. May be called from any thread.
+         *
+         * @param tx     The tile column.
+         * @param ty     The tile row.
+         * @param pixels The array to fill ({@value TiledCanvas#TILE_SIZE} × {@value TiledCanvas#TILE_SIZE} pixels, row-major).
+         */
+        void decode(int tx, int ty, int[] pixels);
+    }
+
+    /**
+     * A single tile of pixel data, backed by a TYPE_INT_ARGB image.
+     */
+    private static final class Tile {
+        private volatile BufferedImage image; // null until a lazily loaded tile has been decoded
+        private int[] pixels;
+        private Consumer<int[]> decoder;
+        private volatile boolean shared;
+
+        /**
+         * Constructs a tile filled with the given colour.
+         *
+         * @param rgb The packed ARGB fill colour.
+         */
+        private Tile(int rgb) {
+            BufferedImage created = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+            this.pixels = ((DataBufferInt) created.getRaster().getDataBuffer()).getData();
+            this.image = created;
+            Arrays.fill(pixels, rgb);
+        }
+
+        /**
+         * Constructs a private copy of a tile.
+         *
+         * @param source The tile to copy.
+         */
+        private Tile(Tile source) {
+            BufferedImage created = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+            this.pixels = ((DataBufferInt) created.getRaster().getDataBuffer()).getData();
+            this.image = created;
+            System.arraycopy(source.pixels(), 0, pixels, 0, pixels.length);
+        }
+
+        /**
+         * Constructs a tile whose pixels are decoded on first access.
+         *
+         * @param decoder Fills the pixel array of the tile.
+         */
+        private Tile(Consumer<int[]> decoder) {
+            this.decoder = decoder;
+        }
+
+        /**
+         * Returns the image of the tile, decoding it first if necessary.
+         */
+        private BufferedImage image() {
+            BufferedImage decoded = image;
+            return (decoded != null) ? decoded : decode();
+        }
+
+        /**
+         * Returns the pixels of the tile, decoding them first if necessary.
+         */
+        private int[] pixels() {
+            image(); // The volatile read makes the pixels visible to every thread
+            return pixels;
+        }
+
+        /**
+         * Decodes a lazily loaded tile. Synchronised, as tiles may be read by background threads as well.
+         */
+        private synchronized BufferedImage decode() {
+            if (image == null) {
+                BufferedImage decoded = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+                int[] data = ((DataBufferInt) decoded.getRaster().getDataBuffer()).getData();
+                decoder.accept(data);
+                this.pixels = data;
+                this.decoder = null;
+                this.image = decoded;
+            }
+            return image;
+        }
+
+        /**
+         * Checks whether every pixel of the tile has the given colour.
+         */
+        private boolean isFilledWith(int rgb) {
+            for (int pixel : pixels()) {
+                if (pixel != rgb) return false;
+            }
+            return true;
+        }
+    }
+}
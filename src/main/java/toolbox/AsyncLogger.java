@@ -0,0 +1,316 @@
+package toolbox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous logger behind {@link LoggingHelper}.
+ * <p>
+ * Logging threads only store the message and its time in a preallocated ring buffer of {@value #CAPACITY}
+ * entries, which takes a few atomic operations and no locks. A background thread formats the entries and writes
+ * them in batches, flushing the output whenever the buffer has been emptied. If the buffer is full, logging
+ * threads wait for the writer, so no message is lost.
+ * </p>
+ * <p>
+ * Messages are written to the standard output. If the system property {@value #FILE_PROPERTY} names a file,
+ * they are written to that file instead, which is rotated once it exceeds {@value #FILE_SIZE_PROPERTY} KB
+ * (default {@value #DEFAULT_FILE_SIZE_KB}), keeping {@value #FILE_COUNT_PROPERTY} old files
+ * (default {@value #DEFAULT_FILE_COUNT}) with the suffixes .1, .2, and so on.
+ * </p>
+ */
+public class AsyncLogger {
+    public static final String FILE_PROPERTY = "basicpaint.logFile";
+    public static final String FILE_SIZE_PROPERTY = "basicpaint.logFileMaxKB";
+    public static final String FILE_COUNT_PROPERTY = "basicpaint.logFileCount";
+    public static final int DEFAULT_FILE_SIZE_KB = 1024;
+    public static final int DEFAULT_FILE_COUNT = 3;
+    public static final int CAPACITY = 8192; // Must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE; // Marks entries written without a timestamp
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+
+    // Entry i is free for position p if sequences[i] == p and readable if sequences[i] == p + 1
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final long[] timestamps = new long[CAPACITY];
+    private final String[] messages = new String[CAPACITY];
+    private final AtomicLong tail = new AtomicLong(); // Next position to claim
+    private long head; // Next position to write, only accessed by the writer thread
+
+    private final Path file;
+    private final long maxFileSize;
+    private final int fileCount;
+    private final StringBuilder batch = new StringBuilder(4096);
+    private Thread writer; // Set by start() before the logger is handed out
+    private OutputStream fileOutput;
+    private long fileSize;
+    private volatile boolean isWriterWaiting;
+    private volatile boolean isClosed;
+
+    /**
+     * Constructs a logger. Its writer thread is started by {@link #start()}.
+     *
+     * @param file        The log file, or {@code null} to write to the standard output.
+     * @param maxFileSize The size in bytes at which the log file is rotated.
+     * @param fileCount   The number of rotated files to keep.
+     */
+    private AsyncLogger(Path file, long maxFileSize, int fileCount) {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.fileCount = fileCount;
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Creates and starts a logger configured by the system properties described above.
+     *
+     * @return The new logger.
+     */
+    public static AsyncLogger fromSystemProperties() {
+        String fileName = System.getProperty(FILE_PROPERTY);
+        AsyncLogger logger = new AsyncLogger(fileName == null || fileName.isBlank() ? null : Paths.get(fileName),
+                Long.getLong(FILE_SIZE_PROPERTY, DEFAULT_FILE_SIZE_KB) * 1024,
+                Math.max(0, Integer.getInteger(FILE_COUNT_PROPERTY, DEFAULT_FILE_COUNT)));
+        logger.start();
+        return logger;
+    }
+
+    /**
+     * Queues a message with the current time.
+     *
+     * @param message The message.
+     */
+    public void log(String message) {
+        append(System.currentTimeMillis(), message);
+    }
+
+    /**
+     * Queues a line of text without a timestamp.
+     *
+     * @param text The text.
+     */
+    public void print(String text) {
+        append(NO_TIMESTAMP, text);
+    }
+
+    /**
+     * Writes all queued messages and stops the writer thread. Messages logged afterwards are written directly.
+     * Called automatically when the application exits.
+     */
+    public void close() {
+        isClosed = true;
+        LockSupport.unpark(writer);
+        joinWriter();
+    }
+
+    /**
+     * Claims the next entry of the ring buffer, fills it and wakes up the writer if it is idle.
+     */
+    private void append(long timestamp, String message) {
+        if (isClosed) {
+            writeDirectly(timestamp, message);
+            return;
+        }
+
+        long position = tail.getAndIncrement();
+        int index = (int) position & MASK;
+        while (sequences.get(index) != position) { // Buffer full: wait until the writer has freed the entry
+            if (!writer.isAlive()) {
+                writeDirectly(timestamp, message);
+                return;
+            }
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+
+        timestamps[index] = timestamp;
+        messages[index] = message;
+        sequences.set(index, position + 1);
+
+        if (isWriterWaiting) {
+            LockSupport.unpark(writer);
+        }
+
+        // Closed after the check above: the writer may have exited before the entry was filled
+        if (isClosed) {
+            joinWriter();
+            if (sequences.compareAndSet(index, position + 1, position + CAPACITY)) {
+                messages[index] = null;
+                writeDirectly(timestamp, message);
+            }
+        }
+    }
+
+    /**
+     * Starts the writer thread and registers the shutdown hook that writes the remaining messages.
+     */
+    private void start() {
+        writer = Thread.ofPlatform().name("BasicPaint-Log").daemon().start(this::runWriter);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "BasicPaint-Log-Beenden"));
+    }
+
+    /**
+     * Main loop of the writer thread: writes all readable entries, flushes and sleeps until new ones arrive.
+     */
+    private void runWriter() {
+        while (true) {
+            if (drain()) continue;
+
+            flush();
+            if (isClosed && head == tail.get()) break;
+
+            isWriterWaiting = true;
+            if (!isReadable(head) && !isClosed) {
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+            isWriterWaiting = false;
+        }
+        closeFile();
+    }
+
+    /**
+     * Formats all readable entries into the batch and writes it.
+     *
+     * @return {@code true} if at least one entry was written.
+     */
+    private boolean drain() {
+        int count = 0;
+        while (isReadable(head)) {
+            int index = (int) head & MASK;
+            appendLine(batch, timestamps[index], messages[index]);
+            messages[index] = null;
+            sequences.set(index, head + CAPACITY);
+            head++;
+
+            if (++count % 256 == 0) {
+                writeBatch();
+            }
+        }
+        writeBatch();
+        return count > 0;
+    }
+
+    /**
+     * Waits until the writer thread has written the remaining entries and stopped, at most
+     * {@value #CLOSE_TIMEOUT_MILLIS} ms.
+     */
+    private void joinWriter() {
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isReadable(long position) {
+        return sequences.get((int) position & MASK) == position + 1;
+    }
+
+    private static void appendLine(StringBuilder builder, long timestamp, String message) {
+        if (timestamp != NO_TIMESTAMP) {
+            builder.append(DateTimeStamp.time(timestamp)).append(": ");
+        }
+        builder.append(message).append(System.lineSeparator());
+    }
+
+    /**
+     * Writes the formatted batch to the standard output or the log file.
+     */
+    private void writeBatch() {
+        if (batch.isEmpty()) return;
+
+        if (file == null) {
+            System.out.print(batch);
+        } else {
+            writeToFile(batch.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        batch.setLength(0);
+    }
+
+    /**
+     * Appends bytes to the log file, rotating it first if it would grow beyond its maximum size.
+     * If the file cannot be written, the bytes are written to the standard output instead.
+     */
+    private void writeToFile(byte[] bytes) {
+        try {
+            if (fileOutput != null && fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+                rotate();
+            }
+            if (fileOutput == null) {
+                fileOutput = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                fileSize = Files.size(file);
+            }
+            fileOutput.write(bytes);
+            fileSize += bytes.length;
+        } catch (IOException e) {
+            System.err.println("Protokolldatei kann nicht geschrieben werden: " + e.getMessage());
+            System.out.print(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Closes the log file and shifts it and the older files by one suffix, dropping the oldest one.
+     */
+    private void rotate() throws IOException {
+        closeFile();
+        if (fileCount == 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(rotatedFile(fileCount));
+        for (int i = fileCount - 1; i >= 1; i--) {
+            if (Files.exists(rotatedFile(i))) {
+                Files.move(rotatedFile(i), rotatedFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotatedFile(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotatedFile(int number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    private void flush() {
+        try {
+            if (fileOutput != null) {
+                fileOutput.flush();
+            } else {
+                System.out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Protokolldatei kann nicht geschrieben werden: " + e.getMessage());
+        }
+    }
+
+    private void closeFile() {
+        if (fileOutput == null) return;
+        try {
+            fileOutput.close();
+        } catch (IOException e) {
+            System.err.println("Protokolldatei kann nicht geschlossen werden: " + e.getMessage());
+        }
+        fileOutput = null;
+        fileSize = 0;
+    }
+
+    /**
+     * Writes a message synchronously after the writer thread has stopped.
+     */
+    private static synchronized void writeDirectly(long timestamp, String message) {
+        StringBuilder line = new StringBuilder();
+        appendLine(line, timestamp, message);
+        System.out.print(line);
+    }
+}
@@ -0,0 +1,77 @@
+package toolbox;
+
+import model.TiledCanvas;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+/**
+ * Read-only data buffer that presents a {@link TiledCanvas} as one contiguous block of pixels.
+ * <p>
+ * Encoders that read an image row by row (such as the ImageIO JPEG writer) only ever need a few rows at a time.
+ * This buffer therefore copies one band of {@value #BAND_HEIGHT} rows out of the canvas tiles at a time, instead
+ * of the whole canvas. Wrapped in an RGB colour model, the alpha channel is masked out on the fly, so no ARGB to
+ * RGB converted copy of the canvas is needed either. Not thread-safe.
+ * </p>
+ */
+public class CanvasBandBuffer extends DataBuffer {
+    public static final int BAND_HEIGHT = TiledCanvas.TILE_SIZE;
+
+    private final TiledCanvas canvas;
+    private final int width;
+    private final int[] band;
+    private int bandY;
+    private int bandRows; // Number of valid rows in the band, 0 until the first access
+
+    /**
+     * Constructs a buffer over a canvas.
+     *
+     * @param canvas The canvas to read. It must not be modified while the buffer is in use (use a snapshot).
+     */
+    public CanvasBandBuffer(TiledCanvas canvas) {
+        super(DataBuffer.TYPE_INT, Math.multiplyExact(canvas.getWidth(), canvas.getHeight()));
+        this.canvas = canvas;
+        this.width = canvas.getWidth();
+        this.band = new int[width * Math.min(BAND_HEIGHT, canvas.getHeight())];
+    }
+
+    /**
+     * Creates an opaque RGB image backed by a canvas, for encoders without alpha support.
+     *
+     * @param canvas The canvas to read. It must not be modified while the image is in use (use a snapshot).
+     * @return An image of the type {@link BufferedImage#TYPE_CUSTOM} that reads the canvas band by band.
+     */
+    public static BufferedImage createRgbImage(TiledCanvas canvas) {
+        DirectColorModel colorModel = new DirectColorModel(24, 0xFF0000, 0x00FF00, 0x0000FF);
+        WritableRaster raster = Raster.createWritableRaster(
+                colorModel.createCompatibleSampleModel(canvas.getWidth(), canvas.getHeight()),
+                new CanvasBandBuffer(canvas), null);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    @Override
+    public int getElem(int bank, int i) {
+        int y = i / width;
+        if (y < bandY || y >= bandY + bandRows) {
+            loadBand(y);
+        }
+        return band[i - bandY * width];
+    }
+
+    @Override
+    public void setElem(int bank, int i, int val) {
+        throw new UnsupportedOperationException("Der Puffer kann nur gelesen werden.");
+    }
+
+    /**
+     * Copies the band containing the given row out of the canvas.
+     */
+    private void loadBand(int y) {
+        bandY = y - y % BAND_HEIGHT;
+        bandRows = Math.min(BAND_HEIGHT, canvas.getHeight() - bandY);
+        canvas.getRGB(0, bandY, width, bandRows, band);
+    }
+}
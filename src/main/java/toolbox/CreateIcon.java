@@ -9,6 +9,7 @@ import java.io.File;
  * Utility class for creating buttons with icons.
  */
 public class CreateIcon {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(CreateIcon.class);
 
     private static final int defaultIconSize = 15;
 
@@ -46,7 +47,7 @@ public class CreateIcon {
     public static ImageIcon loadIcon(String path, int width, int height) {
         File file = new File(path);
         if (!file.exists()) {
-            LoggingHelper.log("Hinweis: Icon nicht gefunden -> " + path);
+            logger.warn("Hinweis: Icon nicht gefunden -> " + path);
             return getDefaultIcon(width, height);
         }
 
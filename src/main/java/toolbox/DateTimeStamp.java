@@ -1,5 +1,6 @@
 package toolbox;
 
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -8,11 +9,21 @@ import java.util.Locale;
 
 /**
  * Utility class for retrieving formatted date and time strings.
+ * <p>
+ * The formatters are created once. Since {@link #time()} is called for every log message, the formatted time
+ * is additionally cached for the current second.
+ * </p>
  */
 public class DateTimeStamp {
 
     private static final Locale systemLocale = Locale.getDefault();
     private static final ZoneId systemTimeZone = ZoneId.systemDefault();
+    private static final DateTimeFormatter mediumDateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(systemLocale);
+    private static final DateTimeFormatter fullDateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.FULL).withLocale(systemLocale);
+    private static final DateTimeFormatter shortTimeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT).withLocale(systemLocale);
+    private static final DateTimeFormatter longTimeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.LONG).withLocale(systemLocale);
+
+    private static volatile CachedTime cachedTime = new CachedTime(Long.MIN_VALUE, "");
 
     /**
      * Returns the current date and time formatted in a medium date style and short time style.
@@ -24,12 +35,8 @@ public class DateTimeStamp {
      * @return A formatted string representing the current date and time.
      */
     public static String dateTime() {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(systemLocale);
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT).withLocale(systemLocale);
-
         ZonedDateTime dateTimeNow = ZonedDateTime.now(systemTimeZone);
-        String dateTimeString = dateTimeNow.format(dateFormatter) + " " + dateTimeNow.format(timeFormatter);
-        return dateTimeString;
+        return dateTimeNow.format(mediumDateFormatter) + " " + dateTimeNow.format(shortTimeFormatter);
     }
 
     /**
@@ -42,11 +49,7 @@ public class DateTimeStamp {
      * @return A formatted string representing the current date.
      */
     public static String date() {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.FULL).withLocale(systemLocale);
-
-        ZonedDateTime dateTimeNow = ZonedDateTime.now(systemTimeZone);
-        String dateString = dateTimeNow.format(dateFormatter);
-        return dateString;
+        return ZonedDateTime.now(systemTimeZone).format(fullDateFormatter);
     }
 
     /**
@@ -59,10 +62,27 @@ public class DateTimeStamp {
      * @return A formatted string representing the current time.
      */
     public static String time() {
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.LONG).withLocale(systemLocale);
+        return time(System.currentTimeMillis());
+    }
 
-        ZonedDateTime dateTimeNow = ZonedDateTime.now(systemTimeZone);
-        String timeString = dateTimeNow.format(timeFormatter);
-        return timeString;
+    /**
+     * Returns a point in time formatted in a long time style, like {@link #time()}.
+     *
+     * @param epochMillis The point in time in milliseconds since the epoch.
+     * @return A formatted string representing the time.
+     */
+    public static String time(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        CachedTime cached = cachedTime;
+        if (cached.second() != second) {
+            cached = new CachedTime(second, Instant.ofEpochMilli(epochMillis).atZone(systemTimeZone).format(longTimeFormatter));
+            cachedTime = cached;
+        }
+        return cached.text();
     }
+
+    /**
+     * The formatted time of a whole second.
+     */
+    private record CachedTime(long second, String text) { }
 }
@@ -11,6 +11,7 @@ import java.util.function.BooleanSupplier;
  * Handles user confirmation when discarding unsaved changes.
  */
 public class DiscardChangesHandler {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(DiscardChangesHandler.class);
 
     private final MainWindow mainWindow;
 
@@ -145,24 +146,24 @@ public class DiscardChangesHandler {
      */
     private boolean handleUserSelection(Object selectedValue, BooleanSupplier saveCallback) {
         if (selectedValue == null || selectedValue.equals("Abbrechen")) {
-            LoggingHelper.log("Abbrechen gewählt. \n");
+            logger.info("Abbrechen gewählt. \n");
             return false;
         }
         if (selectedValue.equals("Ja")) {
-            LoggingHelper.log("Ja gewählt -> Speichern wird versucht.");
+            logger.info("Ja gewählt -> Speichern wird versucht.");
 
             // Execute save and check success
             boolean isSaveSuccessful = saveCallback.getAsBoolean();
 
             if (!isSaveSuccessful) {
-                LoggingHelper.log("Speichern abgebrochen oder fehlgeschlagen. \n");
+                logger.info("Speichern abgebrochen oder fehlgeschlagen. \n");
                 return false;
             }
 
             return true;
         }
         if (selectedValue.equals("Nein")) {
-            LoggingHelper.log("Nein gewählt -> Änderungen wurden nicht gespeichert. \n");
+            logger.info("Nein gewählt -> Änderungen wurden nicht gespeichert. \n");
         }
         return true;
     }
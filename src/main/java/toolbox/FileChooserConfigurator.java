@@ -86,11 +86,14 @@ public class FileChooserConfigurator {
         // Generate file filters
         FileNameExtensionFilter jpgFilter = new FileNameExtensionFilter("JPEG Bilder (*.jpg, *.jpeg)", "jpg", "jpeg");
         FileNameExtensionFilter pngFilter = new FileNameExtensionFilter("PNG Bilder (*.png)", "png");
-        FileNameExtensionFilter allImagesFilter = new FileNameExtensionFilter("Alle unterstützten Bilder (*.jpg, *.jpeg, *.png)", "jpg", "jpeg", "png");
+        FileNameExtensionFilter projectFilter = new FileNameExtensionFilter("BasicPaint-Projekte (*.bpaint)", ProjectFile.EXTENSION);
+        FileNameExtensionFilter allImagesFilter = new FileNameExtensionFilter("Alle unterstützten Dateien (*.jpg, *.jpeg, *.png, *.bpaint)",
+                "jpg", "jpeg", "png", ProjectFile.EXTENSION);
 
         // Add file filters to fileChooser
         fileChooser.addChoosableFileFilter(jpgFilter);
         fileChooser.addChoosableFileFilter(pngFilter);
+        fileChooser.addChoosableFileFilter(projectFilter);
         fileChooser.addChoosableFileFilter(allImagesFilter);
         fileChooser.setFileFilter(allImagesFilter);
     }
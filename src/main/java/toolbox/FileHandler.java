@@ -1,32 +1,99 @@
 package toolbox;
 
+import model.PaintingExecutor;
 import model.PaintingModel;
+import model.TiledCanvas;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.event.IIOWriteProgressListener;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 import javax.swing.*;
 
 /**
  * Handles file operations such as opening, saving, and managing images.
+ * <p>
+ * Images are decoded and encoded on a virtual thread, so the user interface stays responsive.
+ * Saving works on a copy-on-write snapshot of the canvas, which allows drawing to continue meanwhile.
+ * Only one file operation runs at a time; its progress is reported through the progress callbacks and it
+ * can be cancelled with {@link #cancelCurrentTask()}. Results are applied on the Event Dispatch Thread;
+ * changes to the canvas are posted to the {@link PaintingExecutor}, in order with the painting commands.
+ * </p>
+ * <p>
+ * Images with more than {@value #PREVIEW_PROPERTY} megapixels (default {@value #DEFAULT_PREVIEW_MEGAPIXELS})
+ * are opened progressively: a subsampled preview is decoded alongside the full image and shown as soon as it is
+ * ready, then the full-resolution data replaces it band by band while decoding continues. Editing is locked
+ * until the full image is in place.
+ * </p>
+ * <p>
+ * Files are written to a temporary file that atomically replaces the target once it is complete, so a failed
+ * or cancelled save never leaves a truncated file behind. JPEG files are written with the quality
+ * {@value #JPEG_QUALITY_PROPERTY} (0 to 100, default {@value #DEFAULT_JPEG_QUALITY}).
+ * </p>
  */
 public class FileHandler {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(FileHandler.class);
+    public static final String PREVIEW_PROPERTY = "basicpaint.previewMegapixels";
+    public static final int DEFAULT_PREVIEW_MEGAPIXELS = 16;
+    public static final String JPEG_QUALITY_PROPERTY = "basicpaint.jpegQuality";
+    public static final int DEFAULT_JPEG_QUALITY = 90;
+    private static final int PREVIEW_PIXELS = 1_000_000; // Approximate size of the subsampled preview
+    private static final int BAND_HEIGHT = TiledCanvas.TILE_SIZE;
 
     private File currentFile;
     private final PaintingModel paintingModel;
+    private final PaintingExecutor paintingExecutor;
     private final Component parent;
-    private Runnable onSaveFileCallback;
+    private Consumer<TiledCanvas> onSaveFileCallback;
+    private ObjIntConsumer<String> onProgressCallback;
+    private Runnable onTaskFinishedCallback;
+
+    private CompletableFuture<?> currentTask; // Only accessed on the EDT
+    private String taskDescription;
+    private volatile boolean isCancelled;
+    private volatile ImageReader activeReader;
+    private volatile ImageReader previewReader;
+    private volatile ImageWriter activeWriter;
+    private volatile int reportedPercent;
+    private volatile ProjectFile projectFile; // The open .bpaint file, saved incrementally
+    private TiledCanvas canvasBeforePreview; // Restored if opening fails after the preview was shown (painting thread only)
+    private final int jpegQuality = Math.max(0, Math.min(100, Integer.getInteger(JPEG_QUALITY_PROPERTY, DEFAULT_JPEG_QUALITY)));
+    private final long previewThreshold = Long.getLong(PREVIEW_PROPERTY, DEFAULT_PREVIEW_MEGAPIXELS) * 1_000_000;
 
     /**
      * Constructs a new FileHandler for managing image files.
      *
-     * @param paintingModel The model holding the canvas data.
-     * @param parent        The parent component for dialog windows.
+     * @param paintingModel    The model holding the canvas data.
+     * @param paintingExecutor The painting thread owning the model.
+     * @param parent           The parent component for dialog windows.
      */
-    public FileHandler(PaintingModel paintingModel, Component parent) {
+    public FileHandler(PaintingModel paintingModel, PaintingExecutor paintingExecutor, Component parent) {
         this.paintingModel = paintingModel;
+        this.paintingExecutor = paintingExecutor;
         this.parent = parent;
         this.currentFile = null;
     }
@@ -34,92 +101,164 @@ public class FileHandler {
     /**
      * Sets a callback that is executed after saving a file.
      *
-     * @param callback The callback function to execute after saving.
+     * @param callback The callback function to execute after saving. It receives the saved snapshot of the canvas.
      */
-    public void setOnSaveFileCallback(Runnable callback) {
+    public void setOnSaveFileCallback(Consumer<TiledCanvas> callback) {
         this.onSaveFileCallback = callback;
     }
 
+    /**
+     * Sets the callbacks reporting the progress of a running file operation (called on the EDT).
+     *
+     * @param onProgress Receives a description of the operation and its progress in percent.
+     * @param onFinished Executed once the operation has finished, failed or been cancelled.
+     */
+    public void setProgressCallbacks(ObjIntConsumer<String> onProgress, Runnable onFinished) {
+        this.onProgressCallback = onProgress;
+        this.onTaskFinishedCallback = onFinished;
+    }
+
     /**
      * Starts a new file by clearing the canvas and resetting the file reference.
      */
     public void newFile() {
-        paintingModel.clearCanvas();
+        paintingExecutor.execute(paintingModel::clearCanvas);
         resetFile();
-        LoggingHelper.log("Neues Bild erstellt. \n" +
+        setProjectFile(null);
+        logger.info("Neues Bild erstellt. \n" +
                 DateTimeStamp.time() + ": Keine ungespeicherten Änderungen. \n");
     }
 
     /**
-     * Opens an image file into the drawing panel.
+     * Lets the user choose an image or project file and loads it in the background.
      *
-     * @return The loaded image, or {@code null} if cancelled or failed.
+     * @param onPreview Receives the canvas of a large image on the EDT as soon as a preview is ready. The canvas
+     *                  is completed in the background and editing is locked meanwhile. If opening fails or is
+     *                  cancelled afterwards, the previous canvas is restored.
+     * @param onOpened  Receives the loaded canvas on the EDT. Not called if cancelled or failed.
      */
-    public BufferedImage openFile() {
+    public void openFile(Consumer<TiledCanvas> onPreview, Consumer<TiledCanvas> onOpened) {
+        if (isTaskRunning()) return;
+
         JFileChooser fileChooser = new JFileChooser();
         FileChooserConfigurator.configureFileChooser(fileChooser);
 
         int result = fileChooser.showOpenDialog(parent);
         if (result != JFileChooser.APPROVE_OPTION) {
-            return null;
+            return;
         }
 
         File file = fileChooser.getSelectedFile();
-        try {
-            BufferedImage image = ImageIO.read(file);
-            if (image == null) {
+        runInBackground("Öffnen: " + file.getName(), PerformanceMetrics.FILE_OPEN, () -> readFile(file, onPreview), (opened, e) -> {
+            endPreview(e == null && !isCancelled && opened != null);
+            if (e != null) {
+                JOptionPane.showMessageDialog(parent,
+                        "Fehler beim Laden der Datei:\n" + e.getMessage(),
+                        "Fehler",
+                        JOptionPane.ERROR_MESSAGE);
+            } else if (isCancelled) {
+                logger.info("Öffnen abgebrochen. \n");
+            } else if (opened == null) {
                 JOptionPane.showMessageDialog(parent,
                         "Format wird nicht unterstützt oder ist beschädigt.",
                         "Fehler: Die Datei konnte nicht geöffnet werden!",
                         JOptionPane.ERROR_MESSAGE);
-                return null;
-            }
-            currentFile = file;
-            LoggingHelper.log("Bild geöffnet: " + currentFile.getName() + "\n");
-            return image;
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(parent,
-                    "Fehler beim Laden der Datei:\n" + e.getMessage(),
-                    "Fehler",
-                    JOptionPane.ERROR_MESSAGE);
-            return null;
-        }
+            } else {
+                currentFile = file;
+                setProjectFile(opened.project());
+                logger.info("Bild geöffnet: " + currentFile.getName() + "\n");
+                onOpened.accept(opened.canvas());
+            }
+            return opened;
+        });
     }
 
     /**
-     * Saves the current file. If no file is selected, it prompts the user.
+     * Saves the current file in the background. If no file is selected, it prompts the user.
      *
-     * @return {@code true} if the file was saved successfully, otherwise {@code false}.
+     * @return A future completed on the EDT with {@code true} if the file was saved successfully.
      */
-    public boolean saveFile() {
+    public CompletableFuture<Boolean> saveFile() {
         if (currentFile == null) {
-            LoggingHelper.log("Datei noch nicht vorhanden -> saveFileAs() wird aufgerufen.");
+            logger.debug("Datei noch nicht vorhanden -> saveFileAs() wird aufgerufen.");
             return saveFileAs();
         }
         return writeFile(currentFile);
     }
 
     /**
-     * Prompts the user to choose a file name and location, then saves the image.
+     * Prompts the user to choose a file name and location, then saves the image in the background.
      *
-     * @return {@code true} if the file was saved successfully, otherwise {@code false}.
+     * @return A future completed on the EDT with {@code true} if the file was saved successfully.
      */
-    public boolean saveFileAs() {
+    public CompletableFuture<Boolean> saveFileAs() {
+        if (isTaskRunning()) return CompletableFuture.completedFuture(false);
+
         JFileChooser fileChooser = new JFileChooser();
         FileChooserConfigurator.configureFileChooser(fileChooser);
 
         if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
-            LoggingHelper.log("Speichern abgebrochen. \n");
-            return false;
+            logger.info("Speichern abgebrochen. \n");
+            return CompletableFuture.completedFuture(false);
         }
 
         File selectedFile = ensureValidFileExtension(fileChooser.getSelectedFile(), fileChooser);
-        currentFile = selectedFile;
-        boolean success = writeFile(currentFile);
-        if (success) {
-            updateWindowTitle();
+        return writeFile(selectedFile).thenApply(success -> {
+            if (success) {
+                currentFile = selectedFile;
+                updateWindowTitle();
+            }
+            return success;
+        });
+    }
+
+    /**
+     * Waits for a file operation to finish while the user interface keeps processing events.
+     *
+     * @param task The operation to wait for.
+     * @return The result of the operation, or {@code false} if it failed.
+     */
+    public boolean awaitTask(CompletableFuture<Boolean> task) {
+        waitFor(task);
+        return !task.isCompletedExceptionally() && task.join();
+    }
+
+    /**
+     * Waits for the running file operation (if any) to finish, e.g. before the application is closed.
+     */
+    public void awaitCurrentTask() {
+        if (currentTask != null) {
+            waitFor(currentTask);
         }
-        return success;
+    }
+
+    /**
+     * Cancels the running file operation. A cancelled save leaves an existing file untouched.
+     */
+    public void cancelCurrentTask() {
+        if (currentTask == null) return;
+
+        isCancelled = true;
+        ImageReader reader = activeReader;
+        if (reader != null) reader.abort();
+        ImageReader preview = previewReader;
+        if (preview != null) preview.abort();
+        ImageWriter writer = activeWriter;
+        if (writer != null) writer.abort();
+        logger.info(taskDescription + " wird abgebrochen.");
+    }
+
+    /**
+     * Checks whether a file operation is running.
+     *
+     * @return {@code true} if a file is being opened or saved, otherwise {@code false}.
+     */
+    public boolean isTaskRunning() {
+        if (currentTask != null) {
+            logger.info("Es läuft bereits ein Dateivorgang: " + taskDescription);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -128,6 +267,22 @@ public class FileHandler {
      */
     public File getCurrentFile() { return currentFile; }
 
+    /**
+     * Replaces a file with another one, atomically if the file system supports it, so the target is either
+     * the old or the new file and never a partly written one.
+     *
+     * @param source The complete new file.
+     * @param target The file to replace.
+     * @throws IOException If the file could not be moved.
+     */
+    static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     /**
      * Ensures the file has a valid image extension.
      *
@@ -137,53 +292,399 @@ public class FileHandler {
      */
     private File ensureValidFileExtension(File file, JFileChooser fileChooser) {
         String fileName = file.getName().toLowerCase();
-        String selectedExtension = fileChooser.getFileFilter().getDescription().contains("PNG") ? "png" : "jpg";
+        String description = fileChooser.getFileFilter().getDescription();
+        String selectedExtension = description.contains("BasicPaint") ? ProjectFile.EXTENSION
+                : description.contains("PNG") ? "png" : "jpg";
 
-        if (!fileName.endsWith(".jpg") && !fileName.endsWith(".jpeg") && !fileName.endsWith(".png")) {
+        if (!fileName.endsWith(".jpg") && !fileName.endsWith(".jpeg") && !fileName.endsWith(".png")
+                && !fileName.endsWith("." + ProjectFile.EXTENSION)) {
             return new File(file.getParentFile(), file.getName() + "." + selectedExtension);
         }
         return file;
     }
 
     /**
-     * Writes the image data to a file.
+     * Snapshots the canvas and writes it to a file in the background.
      *
      * @param file The file to save to.
-     * @return {@code true} if successful, otherwise {@code false}.
+     * @return A future completed on the EDT with {@code true} if successful, otherwise {@code false}.
      */
-    private boolean writeFile(File file) {
-        try {
-            BufferedImage image = paintingModel.getCanvas();
-            if (image == null) {
-                LoggingHelper.log("Fehler: Das Bildobjekt ist null. \n");
+    private CompletableFuture<Boolean> writeFile(File file) {
+        if (isTaskRunning()) return CompletableFuture.completedFuture(false);
+
+        if (file.exists() && !file.canWrite()) {
+            logger.error("Fehler: Datei ist schreibgeschützt oder gesperrt. \n");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // Copy-on-write after the painting commands posted so far, drawing may continue
+        CompletableFuture<TiledCanvas> snapshot = paintingExecutor.submit(() -> paintingModel.getCanvas().copy());
+        return runInBackground("Speichern: " + file.getName(), PerformanceMetrics.FILE_SAVE, () -> writeImage(snapshot.join(), file), (success, e) -> {
+            if (e != null) {
+                JOptionPane.showMessageDialog(parent,
+                        "Fehler beim Speichern der Datei.\n" + e.getMessage(),
+                        "Fehler",
+                        JOptionPane.ERROR_MESSAGE);
                 return false;
             }
-
-            if (file.exists() && !file.canWrite()) {
-                LoggingHelper.log("Fehler: Datei ist schreibgeschützt oder gesperrt. \n");
+            if (!success) {
+                logger.info("Speichern abgebrochen. \n");
                 return false;
             }
 
-            String format = file.getName().toLowerCase().endsWith(".png") ? "png" : "jpg";
-            boolean success = ImageIO.write(image, format, file) || ImageIO.write(convertImage(image), format, file);
-            if (success) {
-                LoggingHelper.log("Speichern erfolgreich!");
-                if (onSaveFileCallback != null) {
-                    onSaveFileCallback.run();  // Sets 'hasUnsavedChanges = false' in MenuBarController
-                    LoggingHelper.log("Bild hat keine ungespeicherten Änderungen.");
-                }
+            logger.info("Speichern erfolgreich!");
+            if (onSaveFileCallback != null) {
+                onSaveFileCallback.accept(snapshot.join());  // Updates 'hasUnsavedChanges' in MenuBarController
+            }
+            logger.info("Datei " + file.getName() + " gespeichert: " + file.getAbsolutePath() + "\n");
+            return true;
+        });
+    }
+
+    /**
+     * Loads a project or image file, reported as flight recorder event. Runs on the background thread.
+     *
+     * @return The loaded canvas, or {@code null} if the format is not supported or the operation was cancelled.
+     */
+    private OpenedFile readFile(File file, Consumer<TiledCanvas> onPreview) throws IOException {
+        FlightRecorderEvents.FileEvent event = new FlightRecorderEvents.FileEvent();
+        event.begin();
+        OpenedFile opened = null;
+        try {
+            if (ProjectFile.isProjectFile(file.toPath())) {
+                ProjectFile project = ProjectFile.open(file.toPath()); // Tiles are decoded lazily, no progress needed
+                opened = new OpenedFile(project.getCanvas(), project);
             } else {
-                throw new IOException(DateTimeStamp.time() + ": Fehler beim Speichern des Bildes. \n");
+                TiledCanvas canvas = readImage(file, onPreview);
+                opened = (canvas == null) ? null : new OpenedFile(canvas, null);
             }
+            return opened;
+        } finally {
+            commitFileEvent(event, "Dekodieren", file, opened != null);
+        }
+    }
+
+    /**
+     * Decodes an image file, reporting the progress. Large images are decoded progressively.
+     * Runs on the background thread.
+     *
+     * @return The canvas, or {@code null} if the format is not supported or the operation was cancelled.
+     */
+    private TiledCanvas readImage(File file, Consumer<TiledCanvas> onPreview) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null) {
+                throw new IOException("Die Datei kann nicht gelesen werden: " + file.getName());
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            activeReader = reader;
+            try {
+                reader.setInput(input, true, true);
+                reader.addIIOReadProgressListener(new ProgressListener());
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > previewThreshold) {
+                    return readProgressively(file, reader, onPreview);
+                }
+
+                BufferedImage image = reader.read(0);
+                return isCancelled ? null : TiledCanvas.fromImage(image, paintingModel.getBackgroundColour());
+            } finally {
+                activeReader = null;
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decodes a large image at full resolution while a subsampled preview is decoded on a second thread.
+     * Once the preview is shown, the decoded rows are handed to the painting thread in bands that overwrite the preview.
+     * If the full image is complete before the preview, it is returned directly.
+     *
+     * @return The canvas, or {@code null} if the operation was cancelled.
+     */
+    private TiledCanvas readProgressively(File file, ImageReader reader, Consumer<TiledCanvas> onPreview) throws IOException {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        TiledCanvas canvas = new TiledCanvas(width, height, paintingModel.getBackgroundColour());
+        BandPublisher bands = new BandPublisher(canvas);
+
+        Thread previewThread = Thread.ofVirtual().name("BasicPaint-Vorschau").start(() -> {
+            BufferedImage preview = readPreview(file, width, height, bands);
+            if (preview == null || bands.isFinished || isCancelled) return;
+
+            canvas.paint(new Rectangle(0, 0, width, height), g -> {
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(preview, 0, 0, width, height, null);
+            });
+            bands.isPreviewPosted = true; // Bands decoded from now on are queued behind the preview
+            SwingUtilities.invokeLater(() -> showPreview(canvas, onPreview));
+        });
+
+        reader.addIIOReadUpdateListener(bands);
+        BufferedImage image;
+        try {
+            image = reader.read(0);
+        } finally {
+            bands.isFinished = true;
+            ImageReader preview = previewReader;
+            if (preview != null) preview.abort();
+            joinUninterruptibly(previewThread);
+        }
+        if (isCancelled) return null;
+
+        if (!bands.isPreviewPosted) {
+            return TiledCanvas.fromImage(image, paintingModel.getBackgroundColour());
+        }
+        bands.publish(image, height);
+        return canvas;
+    }
+
+    /**
+     * Decodes a subsampled preview of roughly {@value #PREVIEW_PIXELS} pixels. Runs on the preview thread.
+     *
+     * @return The preview, or {@code null} if it failed or was aborted because the full image is complete.
+     */
+    private BufferedImage readPreview(File file, int width, int height, BandPublisher bands) {
+        int step = (int) Math.ceil(Math.sqrt((double) width * height / PREVIEW_PIXELS));
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = ImageIO.getImageReaders(input).next();
+            previewReader = reader;
+            try {
+                if (bands.isFinished) return null;
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage preview = reader.read(0, param);
+                return bands.isFinished ? null : preview;
+            } finally {
+                previewReader = null;
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Vorschau konnte nicht geladen werden: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Shows the preview canvas and locks editing until the full image is in place. Runs on the EDT.
+     */
+    private void showPreview(TiledCanvas canvas, Consumer<TiledCanvas> onPreview) {
+        if (isCancelled) return;
+
+        paintingModel.setEditingLocked(true);
+        paintingExecutor.execute(() -> canvasBeforePreview = paintingModel.getCanvas());
+        onPreview.accept(canvas);
+        logger.info("Vorschau angezeigt, volle Auflösung wird geladen.");
+    }
+
+    /**
+     * Unlocks editing after a progressive load and restores the previous canvas if the image was not opened.
+     * Runs on the EDT; the canvas is restored before any edit posted after the unlock.
+     */
+    private void endPreview(boolean isOpened) {
+        if (!paintingModel.isEditingLocked()) return;
+
+        paintingExecutor.execute(() -> {
+            if (canvasBeforePreview == null) return;
+            if (!isOpened) {
+                paintingModel.setCanvas(canvasBeforePreview);
+            }
+            canvasBeforePreview = null;
+        });
+        paintingModel.setEditingLocked(false);
+    }
 
-            LoggingHelper.log("Datei " + file.getName() + " gespeichert: " + file.getAbsolutePath() + "\n");
+    /**
+     * Copies a band of full-resolution rows into the canvas. Runs on the painting thread.
+     */
+    private void applyBand(TiledCanvas canvas, int y, int rows, int[] rgb) {
+        if (isCancelled) return;
+
+        canvas.setRGB(0, y, canvas.getWidth(), rows, rgb);
+        if (paintingModel.getCanvas() == canvas) {
+            paintingModel.markDirty(new Rectangle(0, y, canvas.getWidth(), rows));
+        }
+    }
+
+    /**
+     * Writes a canvas snapshot, reported as flight recorder event. Runs on the background thread.
+     *
+     * @return {@code true} if the file was written, {@code false} if the operation was cancelled.
+     */
+    private boolean writeImage(TiledCanvas snapshot, File file) throws IOException {
+        FlightRecorderEvents.FileEvent event = new FlightRecorderEvents.FileEvent();
+        event.begin();
+        boolean isWritten = false;
+        try {
+            isWritten = encodeImage(snapshot, file.getAbsoluteFile());
+            return isWritten;
+        } finally {
+            commitFileEvent(event, "Kodieren", file, isWritten);
+        }
+    }
+
+    /**
+     * Encodes a canvas snapshot into a temporary file next to the target, which replaces the target once
+     * the image is complete. PNG files are written by the parallel {@link PngEncoder}, other formats by ImageIO.
+     * Project files are saved by {@link #writeProject}.
+     *
+     * @return {@code true} if the file was written, {@code false} if the operation was cancelled.
+     */
+    private boolean encodeImage(TiledCanvas snapshot, File target) throws IOException {
+        if (ProjectFile.isProjectFile(target.toPath())) {
+            return writeProject(snapshot, target);
+        }
+
+        File temporaryFile = File.createTempFile(target.getName() + ".", ".tmp", target.getParentFile());
+        try {
+            boolean isComplete = target.getName().toLowerCase().endsWith(".png")
+                    ? writePng(snapshot, temporaryFile)
+                    : writeJpeg(snapshot, temporaryFile);
+            if (!isComplete || isCancelled) return false;
+
+            replaceFile(temporaryFile.toPath(), target.toPath());
             return true;
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(parent,
-                    "Fehler beim Speichern der Datei.\n" + e.getMessage(),
-                    "Fehler",
-                    JOptionPane.ERROR_MESSAGE);
-            return false;
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+    /**
+     * Saves a canvas snapshot as project file. If the file is the open project file, only the tiles changed
+     * since the last save are written.
+     *
+     * @return {@code true} if the file was written, {@code false} if the operation was cancelled.
+     */
+    private boolean writeProject(TiledCanvas snapshot, File file) throws IOException {
+        ProjectFile project = projectFile;
+        if (project != null && project.getPath().toAbsolutePath().equals(file.toPath())) {
+            return project.save(snapshot, this::reportProgress, () -> isCancelled);
+        }
+
+        ProjectFile created = ProjectFile.create(file.toPath(), snapshot, this::reportProgress, () -> isCancelled);
+        if (created == null) return false;
+        setProjectFile(created);
+        return true;
+    }
+
+    /**
+     * Writes a canvas snapshot as PNG, compressed on all cores.
+     *
+     * @return {@code true} if the file was written, {@code false} if the operation was cancelled.
+     */
+    private boolean writePng(TiledCanvas snapshot, File file) throws IOException {
+        PngEncoder encoder = new PngEncoder(PngEncoder.RowFilter.fromSystemProperty());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return encoder.encode(snapshot, channel, this::reportProgress, () -> isCancelled);
+        }
+    }
+
+    /**
+     * Writes a canvas snapshot as JPEG. The writer is chosen once for an RGB image that reads the canvas
+     * band by band, so neither a full copy of the canvas nor an ARGB to RGB converted copy is made.
+     *
+     * @return {@code true} if the file was written, {@code false} if the operation was cancelled.
+     */
+    private boolean writeJpeg(TiledCanvas snapshot, File file) throws IOException {
+        BufferedImage image = CanvasBandBuffer.createRgbImage(snapshot);
+        Iterator<ImageWriter> writers = ImageIO.getImageWriters(ImageTypeSpecifier.createFromRenderedImage(image), "jpg");
+        if (!writers.hasNext()) {
+            throw new IOException(DateTimeStamp.time() + ": Fehler beim Speichern des Bildes. \n");
+        }
+
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality / 100f);
+
+        activeWriter = writer;
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            writer.addIIOWriteProgressListener(new ProgressListener());
+            writer.write(null, new IIOImage(image, null, null), param);
+            return !isCancelled;
+        } finally {
+            activeWriter = null;
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Runs a file operation on a virtual thread. Once it has finished, the progress display is closed and
+     * the result (or the exception) is handled on the EDT. The duration of the operation is recorded in the
+     * given histogram.
+     *
+     * @return A future completed on the EDT with the value returned by the handler.
+     */
+    private <T, R> CompletableFuture<R> runInBackground(String description, LatencyHistogram latency, Callable<T> task, BiFunction<T, Exception, R> onDone) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        currentTask = future;
+        taskDescription = description;
+        isCancelled = false;
+        reportedPercent = 0;
+        if (onProgressCallback != null) {
+            onProgressCallback.accept(description, 0);
+        }
+        logger.info(description + " gestartet.");
+
+        Thread.ofVirtual().name("BasicPaint-Datei").start(() -> {
+            T result = null;
+            Exception error = null;
+            long start = System.nanoTime();
+            try {
+                result = task.call();
+            } catch (Exception | OutOfMemoryError e) {
+                error = (e instanceof Exception exception) ? exception : new IOException("Nicht genügend Arbeitsspeicher.", e);
+            }
+            latency.recordSince(start);
+
+            T finalResult = result;
+            Exception finalError = error;
+            SwingUtilities.invokeLater(() -> {
+                currentTask = null;
+                if (onTaskFinishedCallback != null) {
+                    onTaskFinishedCallback.run();
+                }
+                try {
+                    future.complete(onDone.apply(finalResult, finalError));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                    throw e;
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Forwards the progress of the running operation to the EDT whenever it has advanced by a full percent.
+     * Called on the background thread.
+     */
+    private void reportProgress(float percentageDone) {
+        int percent = Math.min(100, (int) percentageDone);
+        if (percent == reportedPercent || onProgressCallback == null) return;
+
+        reportedPercent = percent;
+        String description = taskDescription;
+        SwingUtilities.invokeLater(() -> {
+            if (currentTask != null) {
+                onProgressCallback.accept(description, percent);
+            }
+        });
+    }
+
+    /**
+     * Blocks until a future is done. On the EDT, events are processed meanwhile in a secondary loop.
+     */
+    private void waitFor(CompletableFuture<?> future) {
+        if (future.isDone()) return;
+
+        SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+        future.whenComplete((result, e) -> loop.exit());
+        if (!future.isDone()) {
+            loop.enter();
         }
     }
 
@@ -197,20 +698,138 @@ public class FileHandler {
     }
 
     /**
-     * Converts an image to a supported format if necessary.
-     * @param image The image to convert.
-     * @return A converted BufferedImage.
+     * Resets the file reference (e.g., after starting a new file).
      */
-    private BufferedImage convertImage(BufferedImage image) {
-        BufferedImage formattedImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = formattedImage.createGraphics();
-        g.drawImage(image, 0, 0, null);
-        g.dispose();
-        return formattedImage;
+    private void resetFile() { this.currentFile = null; }
+
+    /**
+     * Replaces the open project file, closing the previous one.
+     */
+    private void setProjectFile(ProjectFile project) {
+        ProjectFile previous = projectFile;
+        projectFile = project;
+        if (previous != null && previous != project) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                logger.warn("Projektdatei konnte nicht geschlossen werden: " + e.getMessage());
+            }
+        }
     }
 
     /**
-     * Resets the file reference (e.g., after starting a new file).
+     * A loaded canvas and the project file it was loaded from ({@code null} for images).
      */
-    private void resetFile() { this.currentFile = null; }
+    private record OpenedFile(TiledCanvas canvas, ProjectFile project) { }
+
+    /**
+     * Waits for a thread to end, keeping the interrupt status.
+     */
+    private static void joinUninterruptibly(Thread thread) {
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Commits a flight recorder event for the decoding or encoding of a file.
+     */
+    private static void commitFileEvent(FlightRecorderEvents.FileEvent event, String operation, File file, boolean succeeded) {
+        if (!event.shouldCommit()) return;
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        event.operation = operation;
+        event.format = (dot < 0) ? "" : name.substring(dot + 1).toLowerCase();
+        event.bytes = file.length();
+        event.path = file.getAbsolutePath();
+        event.succeeded = succeeded;
+        event.commit();
+    }
+
+    /**
+     * Forwards the progress of an image reader or writer.
+     */
+    private final class ProgressListener implements IIOReadProgressListener, IIOWriteProgressListener {
+        @Override public void imageProgress(ImageReader source, float percentageDone) { reportProgress(percentageDone); }
+        @Override public void imageProgress(ImageWriter source, float percentageDone) { reportProgress(percentageDone); }
+
+        @Override public void sequenceStarted(ImageReader source, int minIndex) { }
+        @Override public void sequenceComplete(ImageReader source) { }
+        @Override public void imageStarted(ImageReader source, int imageIndex) { }
+        @Override public void imageComplete(ImageReader source) { }
+        @Override public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) { }
+        @Override public void thumbnailProgress(ImageReader source, float percentageDone) { }
+        @Override public void thumbnailComplete(ImageReader source) { }
+        @Override public void readAborted(ImageReader source) { }
+
+        @Override public void imageStarted(ImageWriter source, int imageIndex) { }
+        @Override public void imageComplete(ImageWriter source) { }
+        @Override public void thumbnailStarted(ImageWriter source, int imageIndex, int thumbnailIndex) { }
+        @Override public void thumbnailProgress(ImageWriter source, float percentageDone) { }
+        @Override public void thumbnailComplete(ImageWriter source) { }
+        @Override public void writeAborted(ImageWriter source) { }
+    }
+
+    /**
+     * Hands the rows decoded so far to the painting thread in bands of {@value #BAND_HEIGHT} rows, once the preview has been
+     * posted. Rows of multi-pass images (interlaced PNG, progressive JPEG) are only final at the end, so these are
+     * published when decoding is complete.
+     */
+    private final class BandPublisher implements IIOReadUpdateListener {
+        private final TiledCanvas canvas;
+        private volatile boolean isPreviewPosted;
+        private volatile boolean isFinished;
+        private boolean isSinglePass = true;
+        private int decodedRows;
+        private int publishedRows; // Only accessed on the decoding thread
+
+        private BandPublisher(TiledCanvas canvas) {
+            this.canvas = canvas;
+        }
+
+        @Override
+        public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass,
+                                int minX, int minY, int periodX, int periodY, int[] bands) {
+            if (minPass != maxPass) isSinglePass = false;
+        }
+
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width, int height,
+                                int periodX, int periodY, int[] bands) {
+            if (!isSinglePass || periodY != 1) return;
+
+            decodedRows = Math.max(decodedRows, minY + height);
+            if (isPreviewPosted && decodedRows - publishedRows >= BAND_HEIGHT) {
+                publish(theImage, decodedRows - (decodedRows - publishedRows) % BAND_HEIGHT);
+            }
+        }
+
+        /**
+         * Posts the rows from the last published row up to the given row to the painting thread.
+         */
+        private void publish(BufferedImage image, int toRow) {
+            int width = canvas.getWidth();
+            for (int y = publishedRows; y < toRow; y += BAND_HEIGHT) {
+                int band = y;
+                int rows = Math.min(BAND_HEIGHT, toRow - y);
+                int[] rgb = image.getRGB(0, y, width, rows, null, 0, width);
+                paintingExecutor.execute(() -> applyBand(canvas, band, rows, rgb));
+            }
+            publishedRows = Math.max(publishedRows, toRow);
+        }
+
+        @Override public void passComplete(ImageReader source, BufferedImage theImage) { }
+        @Override public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass,
+                                                   int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) { }
+        @Override public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY,
+                                              int width, int height, int periodX, int periodY, int[] bands) { }
+        @Override public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) { }
+    }
 }
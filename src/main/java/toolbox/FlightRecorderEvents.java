@@ -0,0 +1,157 @@
+package toolbox;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.awt.*;
+
+/**
+ * Custom JDK Flight Recorder events of BasicPaint.
+ * <p>
+ * The events appear under the category "BasicPaint" of a recording (for example
+ * {@code -XX:StartFlightRecording=filename=basicpaint.jfr}), so stalls seen in JDK Mission Control can be
+ * matched to the painting, undo, repaint and file operations running at the same time. Every event is timed
+ * from {@link Event#begin()} to {@link Event#commit()}. Without a recording, creating and committing an event
+ * costs next to nothing.
+ * </p>
+ */
+public class FlightRecorderEvents {
+
+    /**
+     * A painting tool applied to the canvas.
+     */
+    @Name("basicpaint.Tool")
+    @Label("Werkzeug")
+    @Category({"BasicPaint", "Zeichnen"})
+    @Description("Ein Zeichenwerkzeug wurde auf die Zeichenfläche angewendet.")
+    @StackTrace(false)
+    public static final class ToolEvent extends Event {
+        @Label("Werkzeug")
+        public String tool;
+
+        @Label("Bereich x")
+        public int regionX;
+
+        @Label("Bereich y")
+        public int regionY;
+
+        @Label("Bereich Breite")
+        public int regionWidth;
+
+        @Label("Bereich Höhe")
+        public int regionHeight;
+
+        @Label("Fläche (Pixel)")
+        public long pixelArea;
+
+        /**
+         * Sets the region changed by the tool.
+         *
+         * @param changed The bounding rectangle of the changed pixels, or {@code null} if nothing changed.
+         */
+        public void setRegion(Rectangle changed) {
+            if (changed == null) return;
+            regionX = changed.x;
+            regionY = changed.y;
+            regionWidth = changed.width;
+            regionHeight = changed.height;
+            pixelArea = (long) changed.width * changed.height;
+        }
+    }
+
+    /**
+     * A flood fill, in addition to its {@link ToolEvent}.
+     */
+    @Name("basicpaint.FloodFill")
+    @Label("Füllen")
+    @Category({"BasicPaint", "Zeichnen"})
+    @StackTrace(false)
+    public static final class FloodFillEvent extends Event {
+        @Label("Gefüllte Pixel")
+        public long filledPixels;
+
+        @Label("Toleranz")
+        public int tolerance;
+    }
+
+    /**
+     * The capture of an undo snapshot: the copy-on-write copy at the start of an edit or the pixels of the
+     * changed region at its end.
+     */
+    @Name("basicpaint.UndoCapture")
+    @Label("Rückgängig-Schnappschuss")
+    @Category({"BasicPaint", "Rückgängig"})
+    @StackTrace(false)
+    public static final class UndoCaptureEvent extends Event {
+        @Label("Schritt")
+        public String step;
+
+        @Label("Kopierte Bytes")
+        @DataAmount
+        public long bytesCopied;
+    }
+
+    /**
+     * The restore of an undo entry by undo or redo.
+     */
+    @Name("basicpaint.UndoRestore")
+    @Label("Rückgängig-Wiederherstellung")
+    @Category({"BasicPaint", "Rückgängig"})
+    @StackTrace(false)
+    public static final class UndoRestoreEvent extends Event {
+        @Label("Vorgang")
+        public String operation;
+
+        @Label("Kopierte Bytes")
+        @DataAmount
+        public long bytesCopied;
+    }
+
+    /**
+     * A repaint of the painting panel.
+     */
+    @Name("basicpaint.Repaint")
+    @Label("Neuzeichnen")
+    @Category({"BasicPaint", "Anzeige"})
+    @StackTrace(false)
+    public static final class RepaintEvent extends Event {
+        @Label("Breite des Ausschnitts")
+        public int clipWidth;
+
+        @Label("Höhe des Ausschnitts")
+        public int clipHeight;
+
+        @Label("Zoom (%)")
+        public int zoomPercent;
+    }
+
+    /**
+     * The decoding or encoding of a file.
+     */
+    @Name("basicpaint.File")
+    @Label("Datei")
+    @Category({"BasicPaint", "Dateien"})
+    @StackTrace(false)
+    public static final class FileEvent extends Event {
+        @Label("Vorgang")
+        public String operation;
+
+        @Label("Format")
+        public String format;
+
+        @Label("Dateigröße")
+        @DataAmount
+        public long bytes;
+
+        @Label("Datei")
+        public String path;
+
+        @Label("Erfolgreich")
+        public boolean succeeded;
+    }
+}
@@ -0,0 +1,156 @@
+package toolbox;
+
+import toolbox.paintingtools.PaintingTool;
+import view.MainWindow;
+import view.components.PaintingPanelView;
+import view.components.ToolBarView;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.AWTEventListener;
+import java.awt.event.ItemEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Records the inputs of a session into an {@link InputSession} file, so that the session can be replayed later
+ * with {@code main.InputReplay}.
+ * <p>
+ * Recording is started by the system property {@value #FILE_PROPERTY}, which names the file to write. Mouse events
+ * on the painting panel and key events in the main window are recorded as they are dispatched; the toolbar is
+ * recorded by its effect (selected tool, brush size and colour), not by the clicks on its components. File and
+ * menu operations are not recorded, so a replay only reproduces sessions that start on the blank canvas and do not
+ * open files.
+ * </p>
+ */
+public class InputRecorder implements AWTEventListener {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(InputRecorder.class);
+    public static final String FILE_PROPERTY = "basicpaint.recordInput";
+    private static final long EVENT_MASK = AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.KEY_EVENT_MASK;
+
+    private final MainWindow mainWindow;
+    private final PaintingPanelView paintingView;
+    private final ToolBarView toolBarView;
+    private final InputSession.Writer writer;
+    private final long startNanos = System.nanoTime();
+    private int recordedZoomPercent;
+    private boolean isClosed = false;
+
+    /**
+     * Creates the file and records the current state of the window as its header.
+     *
+     * @param mainWindow The main application window.
+     * @param file       The file to write, replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    private InputRecorder(MainWindow mainWindow, Path file) throws IOException {
+        this.mainWindow = mainWindow;
+        this.paintingView = mainWindow.getPaintingPanelView();
+        this.toolBarView = mainWindow.getToolBarView();
+        this.recordedZoomPercent = paintingView.getZoomPercent();
+        this.writer = new InputSession.Writer(file, new InputSession.Header(mainWindow.getWidth(), mainWindow.getHeight(),
+                toolBarView.getSelectedTool(), toolBarView.getBrushSizeSelector().getSelectedIndex(),
+                toolBarView.getSelectedColour().getRGB(), recordedZoomPercent));
+    }
+
+    /**
+     * Starts recording if the system property {@value #FILE_PROPERTY} names a file. Must be called on the Event
+     * Dispatch Thread once the controllers are set up.
+     *
+     * @param mainWindow The main application window.
+     */
+    public static void startIfRequested(MainWindow mainWindow) {
+        String fileName = System.getProperty(FILE_PROPERTY);
+        if (fileName == null || fileName.isBlank()) return;
+
+        try {
+            new InputRecorder(mainWindow, Paths.get(fileName)).start();
+            logger.info("Eingaben werden aufgezeichnet: " + fileName);
+        } catch (IOException e) {
+            logger.error("Eingabeaufzeichnung konnte nicht gestartet werden: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void eventDispatched(AWTEvent event) {
+        if (event instanceof MouseEvent e && e.getSource() == paintingView) {
+            recordZoomChange();
+            write(new InputSession.MouseInput(elapsedMicros(), e.getID(), e.getX(), e.getY(), e.getButton(),
+                    e.getModifiersEx(), e.getClickCount()));
+        } else if (event instanceof KeyEvent e && isInMainWindow(e.getComponent())) {
+            write(new InputSession.KeyInput(elapsedMicros(), e.getID(), e.getKeyCode(), e.getKeyChar(),
+                    e.getModifiersEx(), e.getKeyLocation()));
+        }
+    }
+
+    /**
+     * Registers the listeners and the shutdown hook that closes the file.
+     */
+    private void start() {
+        for (PaintingTool tool : PaintingTool.values()) {
+            toolBarView.getToolButton(tool).addItemListener(e -> {
+                if (e.getStateChange() == ItemEvent.SELECTED) {
+                    write(new InputSession.ToolInput(elapsedMicros(), tool));
+                }
+            });
+        }
+        toolBarView.getBrushSizeSelector().addActionListener(e ->
+                write(new InputSession.BrushInput(elapsedMicros(), toolBarView.getBrushSizeSelector().getSelectedIndex())));
+        toolBarView.getColourChooser().getSelectionModel().addChangeListener(e ->
+                write(new InputSession.ColourInput(elapsedMicros(), toolBarView.getSelectedColour().getRGB())));
+
+        Toolkit.getDefaultToolkit().addAWTEventListener(this, EVENT_MASK);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "BasicPaint-Eingabeaufzeichnung"));
+    }
+
+    /**
+     * Records a zoom level that changed since the last mouse event, for example through the status bar.
+     * Changes caused by the magnifier are recorded as well; the replay skips them, since replaying the
+     * magnifier click already sets the zoom level.
+     */
+    private void recordZoomChange() {
+        int zoomPercent = paintingView.getZoomPercent();
+        if (zoomPercent != recordedZoomPercent) {
+            recordedZoomPercent = zoomPercent;
+            write(new InputSession.ZoomInput(elapsedMicros(), zoomPercent));
+        }
+    }
+
+    /**
+     * Appends an input to the file. After a write error, recording stops.
+     */
+    private synchronized void write(InputSession.Input input) {
+        if (isClosed) return;
+        try {
+            writer.write(input);
+        } catch (IOException e) {
+            logger.error("Eingabeaufzeichnung abgebrochen: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Stops recording and closes the file.
+     */
+    private synchronized void close() {
+        if (isClosed) return;
+        isClosed = true;
+        Toolkit.getDefaultToolkit().removeAWTEventListener(this);
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.error("Eingabeaufzeichnung konnte nicht geschlossen werden: " + e.getMessage());
+        }
+    }
+
+    private long elapsedMicros() {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    private boolean isInMainWindow(Component component) {
+        return component == mainWindow || (component != null && SwingUtilities.getWindowAncestor(component) == mainWindow);
+    }
+}
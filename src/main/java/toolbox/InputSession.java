@@ -0,0 +1,278 @@
+package toolbox;
+
+import toolbox.paintingtools.PaintingTool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary file format of a recorded input session ({@code .bpinput}), written by {@link InputRecorder} and read
+ * by the replay driver {@code main.InputReplay}.
+ * <p>
+ * Layout: magic, version and the {@link Header} with the state of the window when the recording started,
+ * followed by one entry per input until the end of the file. Every entry starts with the time since the previous
+ * entry in microseconds and the kind of input. Numbers are stored as variable-length integers and mouse positions
+ * as the difference to the previous mouse position, so a mouse movement usually takes about ten bytes.
+ * </p>
+ */
+public class InputSession {
+    public static final String EXTENSION = "bpinput";
+    private static final byte[] MAGIC = {'B', 'P', 'I', 'N'};
+    private static final short VERSION = 1;
+
+    private static final int MOUSE = 1;
+    private static final int KEY = 2;
+    private static final int TOOL = 3;
+    private static final int BRUSH = 4;
+    private static final int COLOUR = 5;
+    private static final int ZOOM = 6;
+
+    /**
+     * The state of the window when the recording started.
+     *
+     * @param windowWidth  The width of the main window.
+     * @param windowHeight The height of the main window.
+     * @param tool         The selected painting tool.
+     * @param brushIndex   The index of the selected brush size.
+     * @param colourRgb    The selected colour.
+     * @param zoomPercent  The zoom level of the painting panel.
+     */
+    public record Header(int windowWidth, int windowHeight, PaintingTool tool, int brushIndex, int colourRgb, int zoomPercent) { }
+
+    /**
+     * A recorded input. The time is measured in microseconds from the start of the recording.
+     */
+    public sealed interface Input permits MouseInput, KeyInput, ToolInput, BrushInput, ColourInput, ZoomInput {
+        long timeMicros();
+    }
+
+    /**
+     * A mouse event on the painting panel, in panel coordinates.
+     */
+    public record MouseInput(long timeMicros, int id, int x, int y, int button, int modifiers, int clickCount) implements Input { }
+
+    /**
+     * A key event in the main window.
+     */
+    public record KeyInput(long timeMicros, int id, int keyCode, char keyChar, int modifiers, int location) implements Input { }
+
+    /**
+     * The selection of a painting tool in the toolbar.
+     */
+    public record ToolInput(long timeMicros, PaintingTool tool) implements Input { }
+
+    /**
+     * The selection of a brush size in the toolbar, as index into {@code ToolBarView.BRUSH_SIZES}.
+     */
+    public record BrushInput(long timeMicros, int brushIndex) implements Input { }
+
+    /**
+     * The selection of a colour in the toolbar.
+     */
+    public record ColourInput(long timeMicros, int rgb) implements Input { }
+
+    /**
+     * A zoom level that was set by other means than a recorded mouse event (for example in the status bar).
+     */
+    public record ZoomInput(long timeMicros, int zoomPercent) implements Input { }
+
+    /**
+     * A complete session as read from a file.
+     *
+     * @param header The state at the start of the recording.
+     * @param inputs The inputs in the order of recording.
+     */
+    public record Session(Header header, List<Input> inputs) { }
+
+    /**
+     * Reads a complete session.
+     *
+     * @param path The file to read.
+     * @return The session.
+     * @throws IOException If the file cannot be read or is not a recorded input session.
+     */
+    public static Session read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readShort() != VERSION) {
+                throw new IOException("Keine Eingabeaufzeichnung: " + path);
+            }
+            Header header = new Header(in.readInt(), in.readInt(), PaintingTool.values()[in.readUnsignedByte()],
+                    in.readUnsignedByte(), in.readInt(), in.readInt());
+
+            List<Input> inputs = new ArrayList<>();
+            long time = 0;
+            int mouseX = 0;
+            int mouseY = 0;
+            int kind;
+            while ((kind = in.read()) >= 0) {
+                time += readVarLong(in);
+                switch (kind) {
+                    case MOUSE -> {
+                        int id = (int) readVarLong(in);
+                        mouseX += zigZagDecode(readVarLong(in));
+                        mouseY += zigZagDecode(readVarLong(in));
+                        inputs.add(new MouseInput(time, id, mouseX, mouseY, in.readUnsignedByte(), (int) readVarLong(in), (int) readVarLong(in)));
+                    }
+                    case KEY -> inputs.add(new KeyInput(time, (int) readVarLong(in), (int) readVarLong(in),
+                            (char) readVarLong(in), (int) readVarLong(in), in.readUnsignedByte()));
+                    case TOOL -> inputs.add(new ToolInput(time, PaintingTool.values()[in.readUnsignedByte()]));
+                    case BRUSH -> inputs.add(new BrushInput(time, in.readUnsignedByte()));
+                    case COLOUR -> inputs.add(new ColourInput(time, in.readInt()));
+                    case ZOOM -> inputs.add(new ZoomInput(time, (int) readVarLong(in)));
+                    default -> throw new IOException("Unbekannter Eintrag " + kind + " in der Eingabeaufzeichnung: " + path);
+                }
+            }
+            return new Session(header, inputs);
+        } catch (EOFException e) {
+            throw new IOException("Eingabeaufzeichnung ist unvollständig: " + path, e);
+        }
+    }
+
+    /**
+     * Writes a session entry by entry. Not thread-safe; the recorder writes from the Event Dispatch Thread only.
+     */
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private long previousTime = 0;
+        private int mouseX = 0;
+        private int mouseY = 0;
+
+        /**
+         * Creates the file and writes the header.
+         *
+         * @param path   The file to write, replaced if it exists.
+         * @param header The state at the start of the recording.
+         * @throws IOException If the file cannot be written.
+         */
+        public Writer(Path path, Header header) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            out.write(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(header.windowWidth());
+            out.writeInt(header.windowHeight());
+            out.writeByte(header.tool().ordinal());
+            out.writeByte(header.brushIndex());
+            out.writeInt(header.colourRgb());
+            out.writeInt(header.zoomPercent());
+        }
+
+        /**
+         * Appends an input. Inputs have to be written in the order of their time.
+         *
+         * @param input The input.
+         * @throws IOException If the file cannot be written.
+         */
+        public void write(Input input) throws IOException {
+            switch (input) {
+                case MouseInput mouse -> {
+                    writeEntryStart(MOUSE, mouse.timeMicros());
+                    writeVarLong(out, mouse.id());
+                    writeVarLong(out, zigZagEncode(mouse.x() - mouseX));
+                    writeVarLong(out, zigZagEncode(mouse.y() - mouseY));
+                    out.writeByte(mouse.button());
+                    writeVarLong(out, mouse.modifiers());
+                    writeVarLong(out, mouse.clickCount());
+                    mouseX = mouse.x();
+                    mouseY = mouse.y();
+                }
+                case KeyInput key -> {
+                    writeEntryStart(KEY, key.timeMicros());
+                    writeVarLong(out, key.id());
+                    writeVarLong(out, key.keyCode());
+                    writeVarLong(out, key.keyChar());
+                    writeVarLong(out, key.modifiers());
+                    out.writeByte(key.location());
+                }
+                case ToolInput tool -> {
+                    writeEntryStart(TOOL, tool.timeMicros());
+                    out.writeByte(tool.tool().ordinal());
+                }
+                case BrushInput brush -> {
+                    writeEntryStart(BRUSH, brush.timeMicros());
+                    out.writeByte(brush.brushIndex());
+                }
+                case ColourInput colour -> {
+                    writeEntryStart(COLOUR, colour.timeMicros());
+                    out.writeInt(colour.rgb());
+                }
+                case ZoomInput zoom -> {
+                    writeEntryStart(ZOOM, zoom.timeMicros());
+                    writeVarLong(out, zoom.zoomPercent());
+                }
+            }
+        }
+
+        /**
+         * Writes the buffered entries to the file.
+         *
+         * @throws IOException If the file cannot be written.
+         */
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        /**
+         * Writes the kind of an entry and the time since the previous entry.
+         */
+        private void writeEntryStart(int kind, long timeMicros) throws IOException {
+            out.writeByte(kind);
+            writeVarLong(out, Math.max(0, timeMicros - previousTime));
+            previousTime = Math.max(previousTime, timeMicros);
+        }
+    }
+
+    /**
+     * Writes a non-negative number in groups of seven bits, least significant group first.
+     */
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarLong}.
+     */
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Ungültige Zahl in der Eingabeaufzeichnung.");
+    }
+
+    /**
+     * Maps signed numbers to non-negative ones so that small differences in both directions stay short.
+     */
+    private static long zigZagEncode(int value) {
+        return Integer.toUnsignedLong((value << 1) ^ (value >> 31));
+    }
+
+    private static int zigZagDecode(long value) {
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+}
@@ -0,0 +1,164 @@
+package toolbox;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Like an HdrHistogram, values are counted in buckets whose width grows with the value: every power of two is
+ * split into {@value #SUB_BUCKETS} linear sub-buckets, so every recorded value and every percentile is accurate
+ * to about 1.6 % from 1 ns up to {@value #MAX_VALUE_BITS} bits (about 18 minutes). Recording is a few atomic
+ * increments and can be done from any thread; reading while recording gives an approximate but consistent enough
+ * view for monitoring.
+ * </p>
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Constructs an empty histogram.
+     *
+     * @param name The name of the measured operation (shown in the overlay and the dump).
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Getter methods for accessing LatencyHistogram properties.
+     */
+    public String getName() { return name; }
+    public long getTotalCount() { return totalCount.get(); }
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds (clamped to the range of the histogram).
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(value);
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records the time elapsed since a start time.
+     *
+     * @param startNanos The start time as returned by {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Discards all recorded durations. Durations recorded at the same time may be lost or partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    /**
+     * Returns the mean of all recorded durations.
+     *
+     * @return The mean in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMeanNanos() {
+        long count = totalCount.get();
+        return (count == 0) ? 0 : totalNanos.get() / count;
+    }
+
+    /**
+     * Returns the duration below which the given percentage of all recorded durations lies.
+     *
+     * @param percentile The percentile between 0 and 100.
+     * @return The duration in nanoseconds (the upper end of the matching bucket), or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Formats the main percentiles in milliseconds.
+     *
+     * @return A summary such as "Füllen: n=12, Mittel 3,204 ms, p50 3,101 ms, …".
+     */
+    public String formatSummary() {
+        return String.format("%s: n=%d, Mittel %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99,9 %.3f ms, max %.3f ms",
+                name, getTotalCount(), millis(getMeanNanos()), millis(getValueAtPercentile(50)),
+                millis(getValueAtPercentile(90)), millis(getValueAtPercentile(99)),
+                millis(getValueAtPercentile(99.9)), millis(getMaxNanos()));
+    }
+
+    /**
+     * Formats the distribution: one line per non-empty bucket with its upper bound, count and cumulative percentile.
+     *
+     * @return The distribution, one bucket per line.
+     */
+    public String formatDistribution() {
+        StringBuilder builder = new StringBuilder();
+        long count = totalCount.get();
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount == 0) continue;
+            seen += bucketCount;
+            builder.append(String.format("  bis %12.4f ms %10d %8.3f %%%n", millis(bucketUpperBound(i)), bucketCount,
+                    100.0 * seen / Math.max(count, seen)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Maps a value to its bucket: values below {@value #SUB_BUCKETS} have their own bucket, larger values share a
+     * bucket with the values that have the same {@value #SUB_BUCKET_BITS} + 1 leading bits.
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS; // Number of dropped low bits
+        return (exponent << SUB_BUCKET_BITS) + (int) (value >>> exponent);
+    }
+
+    /**
+     * Returns the largest value that is counted in a bucket.
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = (index >>> SUB_BUCKET_BITS) - 1;
+        long leadingBits = index - ((long) exponent << SUB_BUCKET_BITS);
+        return ((leadingBits + 1) << exponent) - 1;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
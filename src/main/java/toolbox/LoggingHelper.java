@@ -1,9 +1,52 @@
 package toolbox;
 
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
 /**
  * Utility class for logging application messages.
+ * <p>
+ * Messages are handed to an {@link AsyncLogger}, so logging from the EDT or from painting code does not wait
+ * for the console or the log file.
+ * </p>
+ * <p>
+ * Classes log through a {@link Logger} obtained with {@link #getLogger(Class)}. Every message has a {@link Level};
+ * messages below the threshold of the class are dropped before they are built when passed as a
+ * {@link Supplier}. The thresholds are configured with the system property {@value #LEVEL_PROPERTY}: a default
+ * level, optionally followed by thresholds for packages or classes, for example
+ * {@code -Dbasicpaint.logLevel=INFO,toolbox.paintingtools=TRACE}. The most specific entry wins. The default
+ * threshold is {@link Level#INFO}, which hides the chatter of individual tool actions.
+ * </p>
  */
 public class LoggingHelper {
+    public static final String LEVEL_PROPERTY = "basicpaint.logLevel";
+
+    private static final AsyncLogger logger = AsyncLogger.fromSystemProperties();
+    private static final Map<String, Level> thresholds = parseThresholds(System.getProperty(LEVEL_PROPERTY, "INFO"));
+
+    /**
+     * Severity of a log message, from the most verbose to the most severe.
+     */
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR
+    }
+
+    /**
+     * Returns the logger for a class, using the threshold configured for the class or its package.
+     *
+     * @param source The class that logs.
+     * @return The logger.
+     */
+    public static Logger getLogger(Class<?> source) {
+        String name = source.getName();
+        while (!thresholds.containsKey(name)) {
+            int end = name.lastIndexOf('.');
+            name = (end < 0) ? "" : name.substring(0, end);
+        }
+        return new Logger(thresholds.get(name));
+    }
 
     /**
      * Logs an informational message with a timestamp.
@@ -11,7 +54,16 @@ public class LoggingHelper {
      * @param message The message to be logged.
      */
     public static void log(String message) {
-        System.out.println(DateTimeStamp.time() + ": " + message);
+        logger.log(message);
+    }
+
+    /**
+     * Logs a line of text without a timestamp (for example, an empty separator line).
+     *
+     * @param text The text to be logged.
+     */
+    public static void print(String text) {
+        logger.print(text);
     }
 
     /**
@@ -23,4 +75,68 @@ public class LoggingHelper {
     public static String formatMessage(String message) {
         return DateTimeStamp.time() + ": " + message;
     }
+
+    /**
+     * Parses the threshold configuration. The default level is stored under the empty name.
+     */
+    private static Map<String, Level> parseThresholds(String configuration) {
+        Map<String, Level> result = new LinkedHashMap<>();
+        result.put("", Level.INFO);
+        for (String entry : configuration.split(",")) {
+            String[] parts = entry.split("=", 2);
+            String name = (parts.length == 2) ? parts[0].trim() : "";
+            String level = parts[parts.length - 1].trim().toUpperCase(Locale.ROOT);
+            if (level.isEmpty()) continue;
+            try {
+                result.put(name, Level.valueOf(level));
+            } catch (IllegalArgumentException e) {
+                logger.log("Unbekannte Protokollstufe '" + level + "' in " + LEVEL_PROPERTY + " wird ignoriert.");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Logs the messages of one class, dropping messages below the threshold of the class.
+     */
+    public static final class Logger {
+        private final int threshold;
+
+        private Logger(Level threshold) {
+            this.threshold = threshold.ordinal();
+        }
+
+        /**
+         * Checks whether messages of a level are logged.
+         *
+         * @param level The level.
+         * @return {@code true} if messages of the level are logged.
+         */
+        public boolean isEnabled(Level level) {
+            return level.ordinal() >= threshold;
+        }
+
+        public void trace(String message) { log(Level.TRACE, message); }
+        public void trace(Supplier<String> message) { log(Level.TRACE, message); }
+        public void debug(String message) { log(Level.DEBUG, message); }
+        public void debug(Supplier<String> message) { log(Level.DEBUG, message); }
+        public void info(String message) { log(Level.INFO, message); }
+        public void info(Supplier<String> message) { log(Level.INFO, message); }
+        public void warn(String message) { log(Level.WARN, message); }
+        public void warn(Supplier<String> message) { log(Level.WARN, message); }
+        public void error(String message) { log(Level.ERROR, message); }
+        public void error(Supplier<String> message) { log(Level.ERROR, message); }
+
+        private void log(Level level, String message) {
+            if (level.ordinal() >= threshold) {
+                logger.log(message);
+            }
+        }
+
+        private void log(Level level, Supplier<String> message) {
+            if (level.ordinal() >= threshold) {
+                logger.log(message.get());
+            }
+        }
+    }
 }
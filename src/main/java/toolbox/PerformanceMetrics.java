@@ -0,0 +1,124 @@
+package toolbox;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the latencies of the painting tools, undo snapshots, repaints and file operations, and how long
+ * painting commands wait for the painting thread.
+ * <p>
+ * Every measured operation records into its own {@link LatencyHistogram}, so measuring costs a call to
+ * {@link System#nanoTime()} and a few atomic increments. The performance overlay of the painting panel shows the
+ * histograms while the application is running. When the application exits, all histograms that recorded anything
+ * are written to the file named by the system property {@value #FILE_PROPERTY} (default basicpaint-metrics.txt in
+ * the temporary directory); an empty value disables the file.
+ * </p>
+ */
+public class PerformanceMetrics {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(PerformanceMetrics.class);
+    public static final String FILE_PROPERTY = "basicpaint.metricsFile";
+
+    private static final List<LatencyHistogram> histograms = new CopyOnWriteArrayList<>();
+    private static final AtomicLong frameCount = new AtomicLong();
+
+    public static final LatencyHistogram FREEHAND = register("Freihand");
+    public static final LatencyHistogram LINE = register("Linie");
+    public static final LatencyHistogram RECTANGLE = register("Rechteck");
+    public static final LatencyHistogram ELLIPSE = register("Ellipse");
+    public static final LatencyHistogram FLOOD_FILL = register("Füllen");
+    public static final LatencyHistogram REPLACE_COLOUR = register("Farbe ersetzen");
+    public static final LatencyHistogram UNDO_SNAPSHOT = register("Rückgängig-Schnappschuss");
+    public static final LatencyHistogram UNDO_COMPLETE = register("Rückgängig-Eintrag");
+    public static final LatencyHistogram UNDO_REDO = register("Rückgängig/Wiederholen");
+    public static final LatencyHistogram PAINT_QUEUE = register("Zeichen-Warteschlange");
+    public static final LatencyHistogram REPAINT = register("Neuzeichnen");
+    public static final LatencyHistogram FILE_OPEN = register("Datei öffnen");
+    public static final LatencyHistogram FILE_SAVE = register("Datei speichern");
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(PerformanceMetrics::dumpOnExit, "BasicPaint-Metriken"));
+    }
+
+    /**
+     * Creates a histogram and adds it to the overlay and the dump.
+     *
+     * @param name The name of the measured operation.
+     * @return The new histogram.
+     */
+    public static LatencyHistogram register(String name) {
+        LatencyHistogram histogram = new LatencyHistogram(name);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Getter methods for accessing the collected metrics.
+     */
+    public static List<LatencyHistogram> getHistograms() { return List.copyOf(histograms); }
+    public static long getFrameCount() { return frameCount.get(); }
+
+    /**
+     * Counts a frame drawn by the painting panel.
+     */
+    public static void countFrame() {
+        frameCount.incrementAndGet();
+    }
+
+    /**
+     * Discards everything measured so far, for example before replaying a recorded session.
+     */
+    public static void reset() {
+        histograms.forEach(LatencyHistogram::reset);
+        frameCount.set(0);
+    }
+
+    /**
+     * Returns the heap memory currently in use.
+     *
+     * @return The used heap in bytes.
+     */
+    public static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Writes the summary and the distribution of all histograms that recorded anything.
+     *
+     * @param file The file to write, replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void dump(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("BasicPaint Leistungsmessung, " + DateTimeStamp.dateTime() + System.lineSeparator());
+            writer.write(String.format("Bilder gezeichnet: %d, Heap belegt: %d MB%n%n", getFrameCount(), getUsedHeap() >> 20));
+            for (LatencyHistogram histogram : histograms) {
+                if (histogram.getTotalCount() == 0) continue;
+                writer.write(histogram.formatSummary() + System.lineSeparator());
+                writer.write(histogram.formatDistribution() + System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * Writes the dump file configured by the system property when the application exits.
+     */
+    private static void dumpOnExit() {
+        String fileName = System.getProperty(FILE_PROPERTY, Paths.get(System.getProperty("java.io.tmpdir"), "basicpaint-metrics.txt").toString());
+        if (fileName.isBlank() || histograms.stream().allMatch(histogram -> histogram.getTotalCount() == 0)) return;
+
+        try {
+            dump(Paths.get(fileName));
+            logger.info("Leistungsmessung gespeichert: " + fileName);
+        } catch (IOException e) {
+            logger.error("Leistungsmessung konnte nicht gespeichert werden: " + e.getMessage());
+        }
+    }
+}
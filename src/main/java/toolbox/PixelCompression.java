@@ -0,0 +1,88 @@
+package toolbox;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Utility class for compressing raw ARGB pixel data with deflate.
+ */
+public class PixelCompression {
+
+    /**
+     * Compresses an array of packed ARGB pixels.
+     *
+     * @param pixels The pixels to compress.
+     * @return The deflated pixel data.
+     * @throws ArithmeticException If the pixels do not fit into a byte array (more than 512M pixels).
+     */
+    public static byte[] compress(int[] pixels) {
+        ByteBuffer raw = ByteBuffer.allocate(Math.multiplyExact(pixels.length, Integer.BYTES));
+        raw.asIntBuffer().put(pixels);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(raw.array());
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, pixels.length / 4));
+        byte[] buffer = new byte[64 * 1024];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompresses pixel data created by {@link #compress(int[])}.
+     *
+     * @param data       The deflated pixel data.
+     * @param pixelCount The number of pixels that were compressed.
+     * @return The restored pixels.
+     * @throws IllegalStateException If the data is corrupt.
+     * @throws ArithmeticException   If the pixels do not fit into a byte array (more than 512M pixels).
+     */
+    public static int[] decompress(byte[] data, int pixelCount) {
+        byte[] raw = new byte[Math.multiplyExact(pixelCount, Integer.BYTES)];
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        try {
+            int offset = 0;
+            while (offset < raw.length && !inflater.finished()) {
+                int length = inflater.inflate(raw, offset, raw.length - offset);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                offset += length;
+            }
+            if (offset != raw.length) {
+                throw new IllegalStateException("Pixeldaten unvollständig: " + offset + " von " + raw.length + " Bytes.");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Pixeldaten beschädigt: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+
+        int[] pixels = new int[pixelCount];
+        ByteBuffer.wrap(raw).asIntBuffer().get(pixels);
+        return pixels;
+    }
+
+    /**
+     * Combines two pixel arrays with XOR. Unchanged pixels become zero, which compresses very well.
+     * Applying the method again to the result restores the original pixels.
+     *
+     * @param pixels    The pixels to encode.
+     * @param reference The reference pixels (same length).
+     * @return A new array holding {@code pixels ^ reference}.
+     */
+    public static int[] xor(int[] pixels, int[] reference) {
+        int[] result = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            result[i] = pixels[i] ^ reference[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,387 @@
+package toolbox;
+
+import model.TiledCanvas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder that compresses a canvas on all cores.
+ * <p>
+ * The scanlines are split into chunks of about {@value #CHUNK_BYTES} bytes that are filtered and deflated
+ * independently on the {@link ForkJoinPool#commonPool()}. Like pigz, each chunk uses the last 32 KB of the
+ * preceding (filtered) data as its preset dictionary and ends with a sync flush, so the concatenated chunks form
+ * a single standard zlib stream whose checksum is combined from the per-chunk checksums. The chunks are written
+ * in order as {@code IDAT} chunks directly to a {@link FileChannel}. The image is stored as 8-bit RGBA, so it
+ * decodes to exactly the pixels of the canvas.
+ * </p>
+ * <p>
+ * The row filter can be chosen per encoder; the default is read from the system property
+ * {@value #FILTER_PROPERTY} ({@code none}, {@code sub}, {@code up}, {@code average}, {@code paeth} or
+ * {@code adaptive}, default {@code adaptive}).
+ * </p>
+ */
+public class PngEncoder {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(PngEncoder.class);
+    public static final String FILTER_PROPERTY = "basicpaint.pngFilter";
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The PNG row filters. {@link #ADAPTIVE} chooses the filter with the smallest sum of absolute
+     * differences for each row.
+     */
+    public enum RowFilter {
+        NONE, SUB, UP, AVERAGE, PAETH, ADAPTIVE;
+
+        /**
+         * Reads the default filter from the system property {@value PngEncoder#FILTER_PROPERTY}.
+         *
+         * @return The configured filter, or {@link #ADAPTIVE} if none or an unknown one is configured.
+         */
+        public static RowFilter fromSystemProperty() {
+            String value = System.getProperty(FILTER_PROPERTY, "adaptive");
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unbekannter PNG-Filter '" + value + "', adaptive Auswahl wird verwendet.");
+                return ADAPTIVE;
+            }
+        }
+    }
+
+    private final RowFilter filter;
+    private final int compressionLevel;
+
+    /**
+     * Constructs an encoder with the given row filter and the default compression level.
+     *
+     * @param filter The row filter.
+     */
+    public PngEncoder(RowFilter filter) {
+        this(filter, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructs an encoder with the given row filter and compression level.
+     *
+     * @param filter           The row filter.
+     * @param compressionLevel The deflate level (0-9, or {@link Deflater#DEFAULT_COMPRESSION}).
+     */
+    public PngEncoder(RowFilter filter, int compressionLevel) {
+        this.filter = filter;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Encodes a canvas as PNG and writes it to a channel.
+     *
+     * @param canvas      The canvas to encode. It must not be modified during encoding (use a copy).
+     * @param channel     The channel to write to, positioned at the start of the file.
+     * @param onProgress  Receives the progress in percent, or {@code null}.
+     * @param isCancelled Checked between chunks; encoding stops once it returns {@code true}.
+     * @return {@code true} if the image was written completely, {@code false} if it was cancelled.
+     * @throws IOException If writing fails.
+     */
+    public boolean encode(TiledCanvas canvas, FileChannel channel, IntConsumer onProgress, BooleanSupplier isCancelled)
+            throws IOException {
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+        int rowBytes = 1 + width * BYTES_PER_PIXEL;
+        int rowsPerChunk = Math.max(1, CHUNK_BYTES / rowBytes);
+        int chunkCount = (height + rowsPerChunk - 1) / rowsPerChunk;
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism() + 1; // Chunks in flight, limits memory use
+
+        channel.write(ByteBuffer.wrap(SIGNATURE));
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height)
+                .put((byte) 8)  // Bit depth
+                .put((byte) 6)  // Colour type RGBA
+                .put((byte) 0)  // Compression: deflate
+                .put((byte) 0)  // Filter method: adaptive filtering with five types
+                .put((byte) 0); // No interlacing
+        writeChunk(channel, "IHDR", header.array());
+
+        Deque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+        long adler = 1; // Adler-32 of the empty stream
+        int submitted = 0;
+        for (int index = 0; index < chunkCount; index++) {
+            while (submitted < chunkCount && pending.size() < window) {
+                int startRow = submitted * rowsPerChunk;
+                int endRow = Math.min(height, startRow + rowsPerChunk);
+                pending.add(CompletableFuture.supplyAsync(() -> encodeChunk(canvas, startRow, endRow),
+                        ForkJoinPool.commonPool()));
+                submitted++;
+            }
+            if (isCancelled.getAsBoolean()) {
+                pending.forEach(future -> future.cancel(false));
+                return false;
+            }
+
+            Chunk chunk;
+            try {
+                chunk = pending.poll().join();
+            } catch (CompletionException e) {
+                throw new IOException("PNG-Kodierung fehlgeschlagen: " + e.getCause().getMessage(), e.getCause());
+            }
+            adler = combineAdler32(adler, chunk.adler, chunk.length);
+
+            byte[] prefix = (index == 0) ? zlibHeader() : new byte[0];
+            byte[] suffix = (index == chunkCount - 1) ? ByteBuffer.allocate(4).putInt((int) adler).array() : new byte[0];
+            writeChunk(channel, "IDAT", prefix, chunk.data, suffix);
+
+            if (onProgress != null) {
+                onProgress.accept((int) ((index + 1) * 100L / chunkCount));
+            }
+        }
+        writeChunk(channel, "IEND");
+        return true;
+    }
+
+    /**
+     * Filters and deflates the rows of one chunk. The dictionary is rebuilt from the rows in front of the chunk,
+     * so chunks can be compressed in any order.
+     */
+    private Chunk encodeChunk(TiledCanvas canvas, int startRow, int endRow) {
+        RowEncoder rows = new RowEncoder(canvas, filter);
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (startRow > 0) {
+                int dictionaryRows = (DICTIONARY_SIZE + rows.rowBytes - 1) / rows.rowBytes;
+                int firstRow = Math.max(0, startRow - dictionaryRows);
+                byte[] history = new byte[(startRow - firstRow) * rows.rowBytes];
+                rows.start(firstRow);
+                for (int y = firstRow; y < startRow; y++) {
+                    System.arraycopy(rows.encode(y), 0, history, (y - firstRow) * rows.rowBytes, rows.rowBytes);
+                }
+                int length = Math.min(DICTIONARY_SIZE, history.length);
+                deflater.setDictionary(history, history.length - length, length);
+            } else {
+                rows.start(0);
+            }
+
+            Adler32 adler = new Adler32();
+            ByteArrayOutputStream out = new ByteArrayOutputStream((endRow - startRow) * rows.rowBytes / 2);
+            byte[] buffer = new byte[64 * 1024];
+            for (int y = startRow; y < endRow; y++) {
+                byte[] row = rows.encode(y);
+                adler.update(row, 0, rows.rowBytes);
+                deflater.setInput(row, 0, rows.rowBytes);
+                while (!deflater.needsInput()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            }
+
+            if (endRow == canvas.getHeight()) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // Sync flush: byte-aligned end without a final block, so the next chunk can follow directly
+                int length;
+                do {
+                    length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, length);
+                } while (length == buffer.length);
+            }
+            return new Chunk(out.toByteArray(), adler.getValue(), (long) (endRow - startRow) * rows.rowBytes);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Creates the two-byte zlib header matching the compression level.
+     */
+    private byte[] zlibHeader() {
+        int level = (compressionLevel == Deflater.DEFAULT_COMPRESSION) ? 6 : compressionLevel;
+        int levelFlag = (level < 2) ? 0 : (level < 6) ? 1 : (level == 6) ? 2 : 3;
+        int cmf = 0x78; // Deflate with a 32 KB window
+        int flg = levelFlag << 6;
+        flg += 31 - ((cmf << 8) + flg) % 31;
+        return new byte[]{(byte) cmf, (byte) flg};
+    }
+
+    /**
+     * Writes a PNG chunk whose data consists of the given parts.
+     */
+    private static void writeChunk(FileChannel channel, String type, byte[]... parts) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        int length = 0;
+        for (byte[] part : parts) {
+            crc.update(part);
+            length += part.length;
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[parts.length + 2];
+        buffers[0] = ByteBuffer.allocate(8).putInt(length).put(typeBytes).flip();
+        for (int i = 0; i < parts.length; i++) {
+            buffers[i + 1] = ByteBuffer.wrap(parts[i]);
+        }
+        buffers[buffers.length - 1] = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+
+        long remaining = 12L + length;
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two consecutive byte sequences (as zlib's {@code adler32_combine}).
+     *
+     * @param adler1  The checksum of the first sequence.
+     * @param adler2  The checksum of the second sequence.
+     * @param length2 The length of the second sequence.
+     * @return The checksum of both sequences.
+     */
+    private static long combineAdler32(long adler1, long adler2, long length2) {
+        final long base = 65521;
+        long remainder = length2 % base;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (remainder * sum1) % base;
+        sum1 += (adler2 & 0xFFFF) + base - 1;
+        sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + base - remainder;
+        if (sum1 >= base) sum1 -= base;
+        if (sum1 >= base) sum1 -= base;
+        if (sum2 >= (base << 1)) sum2 -= (base << 1);
+        if (sum2 >= base) sum2 -= base;
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * A compressed chunk with the checksum and length of its uncompressed (filtered) data.
+     */
+    private record Chunk(byte[] data, long adler, long length) { }
+
+    /**
+     * Converts canvas rows into filtered PNG scanlines, one row after the other.
+     */
+    private static final class RowEncoder {
+        private final TiledCanvas canvas;
+        private final RowFilter filter;
+        private final int width;
+        private final int rowBytes;
+        private final int[] argb;
+        private byte[] previous;
+        private byte[] current;
+        private final byte[] filtered;
+        private final byte[] candidate;
+
+        private RowEncoder(TiledCanvas canvas, RowFilter filter) {
+            this.canvas = canvas;
+            this.filter = filter;
+            this.width = canvas.getWidth();
+            this.rowBytes = 1 + width * BYTES_PER_PIXEL;
+            this.argb = new int[width];
+            this.previous = new byte[rowBytes];
+            this.current = new byte[rowBytes];
+            this.filtered = new byte[rowBytes];
+            this.candidate = (filter == RowFilter.ADAPTIVE) ? new byte[rowBytes] : null;
+        }
+
+        /**
+         * Prepares encoding from the given row on by loading the row above it.
+         */
+        private void start(int y) {
+            if (y == 0) {
+                Arrays.fill(previous, (byte) 0);
+            } else {
+                load(y - 1, previous);
+            }
+        }
+
+        /**
+         * Filters the next row. Rows have to be encoded in order after {@link #start(int)}.
+         *
+         * @return The filter type byte followed by the filtered row (valid until the next call).
+         */
+        private byte[] encode(int y) {
+            load(y, current);
+            if (filter == RowFilter.ADAPTIVE) {
+                long bestSum = Long.MAX_VALUE;
+                for (int type = 0; type <= 4; type++) {
+                    long sum = apply(type, candidate);
+                    if (sum < bestSum) {
+                        bestSum = sum;
+                        System.arraycopy(candidate, 0, filtered, 0, rowBytes);
+                    }
+                }
+            } else {
+                apply(filter.ordinal(), filtered);
+            }
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+            return filtered;
+        }
+
+        /**
+         * Converts a canvas row into RGBA bytes (starting at index 1, after the filter type byte).
+         */
+        private void load(int y, byte[] row) {
+            canvas.getRGB(0, y, width, 1, argb);
+            for (int x = 0, i = 1; x < width; x++, i += BYTES_PER_PIXEL) {
+                int pixel = argb[x];
+                row[i] = (byte) (pixel >> 16);
+                row[i + 1] = (byte) (pixel >> 8);
+                row[i + 2] = (byte) pixel;
+                row[i + 3] = (byte) (pixel >>> 24);
+            }
+        }
+
+        /**
+         * Applies a filter type to the current row.
+         *
+         * @return The sum of the absolute values of the filtered bytes (as signed bytes).
+         */
+        private long apply(int type, byte[] out) {
+            out[0] = (byte) type;
+            long sum = 0;
+            for (int i = 1; i < rowBytes; i++) {
+                int raw = current[i] & 0xFF;
+                int left = (i > BYTES_PER_PIXEL) ? current[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                int up = previous[i] & 0xFF;
+                int upLeft = (i > BYTES_PER_PIXEL) ? previous[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                int value = switch (type) {
+                    case 1 -> raw - left;
+                    case 2 -> raw - up;
+                    case 3 -> raw - ((left + up) >> 1);
+                    case 4 -> raw - paeth(left, up, upLeft);
+                    default -> raw;
+                };
+                out[i] = (byte) value;
+                sum += Math.abs((byte) value);
+            }
+            return sum;
+        }
+
+        private static int paeth(int a, int b, int c) {
+            int p = a + b - c;
+            int pa = Math.abs(p - a);
+            int pb = Math.abs(p - b);
+            int pc = Math.abs(p - c);
+            if (pa <= pb && pa <= pc) return a;
+            return (pb <= pc) ? b : c;
+        }
+    }
+}
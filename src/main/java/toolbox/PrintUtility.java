@@ -1,28 +1,29 @@
 package toolbox;
 
+import model.TiledCanvas;
 import view.MainWindow;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.awt.print.*;
 
 /**
  * Utility class for printing images from the application.
  */
 public class PrintUtility extends JPanel {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(PrintUtility.class);
 
     /**
      * Prints the given image from the application.
      *
      * @param mainWindow The main application window, used for error dialogs.
-     * @param image      The image to be printed.
+     * @param image      The canvas to be printed.
      */
-    public void printPicture(MainWindow mainWindow, BufferedImage image) {
+    public void printPicture(MainWindow mainWindow, TiledCanvas image) {
         PrinterJob job = PrinterJob.getPrinterJob();
         if (job == null) {
             JOptionPane.showMessageDialog(mainWindow, "Drucken wird auf diesem System nicht unterstützt.", "Fehler", JOptionPane.ERROR_MESSAGE);
-            LoggingHelper.log("Druckauftrag konnte nicht erstellt werden. \n");
+            logger.error("Druckauftrag konnte nicht erstellt werden. \n");
             return;
         }
 
@@ -31,24 +32,24 @@ public class PrintUtility extends JPanel {
         if (job.printDialog()) {
             try {
                 job.print();
-                LoggingHelper.log("Druckvorgang gestartet. \n");
+                logger.info("Druckvorgang gestartet. \n");
             } catch (PrinterException e) {
                 JOptionPane.showMessageDialog(mainWindow, "Fehler beim Drucken.", "Fehler", JOptionPane.ERROR_MESSAGE);
-                LoggingHelper.log("Druck fehlgeschlagen: \n" +
+                logger.error("Druck fehlgeschlagen: \n" +
                         DateTimeStamp.time() + ": " + e.getMessage() + "\n");
             }
         } else {
-            LoggingHelper.log("Druckvorgang vom Benutzer abgebrochen. \n");
+            logger.info("Druckvorgang vom Benutzer abgebrochen. \n");
         }
     }
 
     /**
      * Creates a {@link Printable} instance for printing the given image.
      *
-     * @param image The image to be printed.
+     * @param image The canvas to be printed.
      * @return A {@link Printable} that scales the image to fit the printable area.
      */
-    private Printable createPrintable(BufferedImage image) {
+    private Printable createPrintable(TiledCanvas image) {
         return (graphics, pageFormat, pageIndex) -> {
             if (pageIndex > 0) {
                 return Printable.NO_SUCH_PAGE;
@@ -61,7 +62,7 @@ public class PrintUtility extends JPanel {
             Graphics2D g2d = (Graphics2D) graphics;
             g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
             g2d.scale(scale, scale);
-            g2d.drawImage(image, 0, 0, null);
+            image.draw(g2d, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
 
             return Printable.PAGE_EXISTS;
         };
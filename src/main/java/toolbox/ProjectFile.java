@@ -0,0 +1,430 @@
+package toolbox;
+
+import model.TiledCanvas;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Native BasicPaint project file ({@code .bpaint}) that stores the canvas as independently compressed tiles.
+ * <p>
+ * Layout: a header of {@value #HEADER_SIZE} bytes (magic, version, width, height, background colour,
+ * tile size and the position of the index), followed by the deflated tiles and the index, which holds
+ * offset and length of every tile (length 0 = blank tile).
+ * </p>
+ * <p>
+ * On open, the file is memory-mapped and the tiles are only decoded when the canvas first accesses them.
+ * Saving into the same file only appends the tiles changed since the last save (recognised by the
+ * copy-on-write identity of the tiles) and a new index; the header is updated last, so an interrupted
+ * save leaves the previous state intact. Once more than half of the file is taken up by replaced tiles,
+ * the file is rewritten compactly.
+ * </p>
+ */
+public class ProjectFile implements Closeable {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(ProjectFile.class);
+    public static final String EXTENSION = "bpaint";
+    private static final byte[] MAGIC = {'B', 'P', 'A', 'I', 'N', 'T'};
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int INDEX_POSITION_OFFSET = 24; // Position of the index offset within the header
+    private static final int INDEX_ENTRY_SIZE = 12;      // long offset, int length
+    private static final int TILE_PIXELS = TiledCanvas.TILE_SIZE * TiledCanvas.TILE_SIZE;
+    private static final int MAX_TILE_BYTES = 2 * 1024 * 1024; // Deflated tiles never exceed this
+    private static final long REGION_SIZE = 1L << 30;         // Size of a mapped region (1 GB)
+    private static final int BATCH_SIZE = 64;                  // Tiles compressed in parallel before writing
+
+    private final Path path;
+    private FileChannel channel;
+    private boolean isWritable;      // Whether the channel has been reopened for writing by save()
+    private TiledCanvas savedCanvas; // The canvas as stored in the file; shares its tiles with later copies
+    private long[] offsets;
+    private int[] lengths;
+    private long fileLength;
+    private long garbageBytes;       // Bytes of replaced tiles and indices
+
+    private ProjectFile(Path path, FileChannel channel, TiledCanvas savedCanvas, long[] offsets, int[] lengths, long fileLength) {
+        this.path = path;
+        this.channel = channel;
+        this.savedCanvas = savedCanvas;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.fileLength = fileLength;
+        this.garbageBytes = fileLength - HEADER_SIZE - (long) lengths.length * INDEX_ENTRY_SIZE - Arrays.stream(lengths).asLongStream().sum();
+    }
+
+    /**
+     * Checks whether a file name has the project file extension.
+     *
+     * @param path The file to check.
+     * @return {@code true} if it is a project file.
+     */
+    public static boolean isProjectFile(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith("." + EXTENSION);
+    }
+
+    /**
+     * Opens a project file for reading, so read-only files can be opened as well. The tiles are mapped into
+     * memory and decoded lazily.
+     *
+     * @param path The file to open.
+     * @return The opened project file.
+     * @throws IOException If the file cannot be read or is not a valid project file.
+     */
+    public static ProjectFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileLength = channel.size();
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || header.getShort() != VERSION) {
+                throw new IOException("Keine gültige BasicPaint-Projektdatei: " + path.getFileName());
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            int backgroundRGB = header.getInt();
+            int tileSize = header.getInt();
+            long indexOffset = header.getLong();
+            if (width <= 0 || height <= 0 || tileSize != TiledCanvas.TILE_SIZE) {
+                throw new IOException("Nicht unterstütztes Format der Projektdatei: " + width + "x" + height + ", Kacheln " + tileSize);
+            }
+
+            int tilesX = (width + tileSize - 1) / tileSize;
+            int tileCount = Math.multiplyExact(tilesX, (height + tileSize - 1) / tileSize);
+            if (indexOffset < HEADER_SIZE || indexOffset + (long) tileCount * INDEX_ENTRY_SIZE > fileLength) {
+                throw new IOException("Projektdatei ist beschädigt (Index fehlt): " + path.getFileName());
+            }
+            ByteBuffer index = readFully(channel, indexOffset, tileCount * INDEX_ENTRY_SIZE);
+            long[] offsets = new long[tileCount];
+            int[] lengths = new int[tileCount];
+            for (int i = 0; i < tileCount; i++) {
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                if (lengths[i] < 0 || lengths[i] > MAX_TILE_BYTES || (lengths[i] > 0 && offsets[i] < HEADER_SIZE)
+                        || offsets[i] + lengths[i] > indexOffset) {
+                    throw new IOException("Projektdatei ist beschädigt (Kachel " + i + "): " + path.getFileName());
+                }
+            }
+
+            MappedTiles source = new MappedTiles(map(channel, indexOffset), tilesX, offsets.clone(), lengths.clone());
+            TiledCanvas canvas = TiledCanvas.fromTileSource(width, height, backgroundRGB, source);
+            return new ProjectFile(path, channel, canvas, offsets, lengths, fileLength);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a canvas into a new project file (replacing an existing file once it is complete).
+     *
+     * @param path        The file to write.
+     * @param snapshot    The canvas to store. It must not be modified during saving (use a copy).
+     * @param onProgress  Receives the progress in percent, or {@code null}.
+     * @param isCancelled Checked between tiles; saving stops once it returns {@code true}.
+     * @return The project file, or {@code null} if saving was cancelled.
+     * @throws IOException If writing fails.
+     */
+    public static ProjectFile create(Path path, TiledCanvas snapshot, IntConsumer onProgress, BooleanSupplier isCancelled)
+            throws IOException {
+        return writeComplete(path, snapshot, null, onProgress, isCancelled);
+    }
+
+    /**
+     * Getter methods for accessing ProjectFile properties.
+     */
+    public Path getPath() { return path; }
+
+    /**
+     * Returns the canvas stored in the file. Tiles that have not been accessed yet are still only mapped.
+     *
+     * @return A copy-on-write copy of the stored canvas, which can be edited freely.
+     */
+    public TiledCanvas getCanvas() {
+        return savedCanvas.copy();
+    }
+
+    /**
+     * Saves a canvas into this file. If the size of the canvas is unchanged, only the tiles changed since the
+     * last save are written, so the time needed depends on the size of the edit rather than the canvas.
+     *
+     * @param snapshot    The canvas to store. It must not be modified during saving (use a copy).
+     * @param onProgress  Receives the progress in percent, or {@code null}.
+     * @param isCancelled Checked between tiles; saving stops once it returns {@code true}.
+     * @return {@code true} if the canvas was saved, {@code false} if saving was cancelled.
+     * @throws IOException If writing fails.
+     */
+    public boolean save(TiledCanvas snapshot, IntConsumer onProgress, BooleanSupplier isCancelled) throws IOException {
+        if (snapshot.getWidth() != savedCanvas.getWidth() || snapshot.getHeight() != savedCanvas.getHeight()
+                || snapshot.getBackgroundRGB() != savedCanvas.getBackgroundRGB()) {
+            return rewrite(snapshot, onProgress, isCancelled);
+        }
+
+        int tilesX = snapshot.getTilesX();
+        int[] changed = IntStream.range(0, lengths.length)
+                .filter(i -> !snapshot.isSameTile(savedCanvas, i % tilesX, i / tilesX))
+                .toArray();
+        logger.debug(() -> "Projektdatei: " + changed.length + " von " + lengths.length + " Kacheln geändert.");
+        if (changed.length == 0) {
+            this.savedCanvas = snapshot;
+            return true;
+        }
+
+        openForWriting();
+        long[] newOffsets = offsets.clone();
+        int[] newLengths = lengths.clone();
+        long position = fileLength;
+        long replacedBytes = (long) lengths.length * INDEX_ENTRY_SIZE; // The previous index
+        for (int from = 0; from < changed.length; from += BATCH_SIZE) {
+            if (isCancelled.getAsBoolean()) {
+                channel.truncate(fileLength);
+                return false;
+            }
+            int to = Math.min(changed.length, from + BATCH_SIZE);
+            byte[][] compressed = compressTiles(snapshot, changed, from, to);
+            for (int i = from; i < to; i++) {
+                int tile = changed[i];
+                replacedBytes += lengths[tile];
+                byte[] data = compressed[i - from];
+                newOffsets[tile] = (data == null) ? 0 : position;
+                newLengths[tile] = (data == null) ? 0 : data.length;
+                if (data != null) {
+                    position += writeFully(channel, position, ByteBuffer.wrap(data));
+                }
+            }
+            reportProgress(onProgress, to, changed.length);
+        }
+
+        // The new index becomes valid only once the header points to it
+        long indexOffset = position;
+        position += writeFully(channel, indexOffset, encodeIndex(newOffsets, newLengths));
+        channel.force(false);
+        writeFully(channel, INDEX_POSITION_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(0, indexOffset));
+        channel.force(false);
+
+        this.offsets = newOffsets;
+        this.lengths = newLengths;
+        this.fileLength = position;
+        this.garbageBytes += replacedBytes;
+        this.savedCanvas = snapshot;
+
+        if (garbageBytes > fileLength / 2) {
+            logger.info("Projektdatei wird komprimiert (" + garbageBytes / 1024 + " KB ungenutzt).");
+            rewrite(savedCanvas, null, () -> false);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the file. Tiles of opened canvases that have not been decoded yet stay readable from the mapping.
+     *
+     * @throws IOException If closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reopens the file for reading and writing the first time a save appends to it.
+     *
+     * @throws IOException If the file cannot be opened for writing, e.g. because it is read-only.
+     */
+    private void openForWriting() throws IOException {
+        if (isWritable) return;
+
+        FileChannel writable = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.close(); // Mapped tiles stay readable
+        this.channel = writable;
+        this.isWritable = true;
+    }
+
+    /**
+     * Rewrites the whole file, copying tiles that are unchanged since the last save without recompressing them.
+     *
+     * @return {@code true} if the file was rewritten, {@code false} if it was cancelled.
+     */
+    private boolean rewrite(TiledCanvas snapshot, IntConsumer onProgress, BooleanSupplier isCancelled) throws IOException {
+        ProjectFile rewritten = writeComplete(path, snapshot, this, onProgress, isCancelled);
+        if (rewritten == null) return false;
+
+        channel.close();
+        this.channel = rewritten.channel;
+        this.isWritable = false;
+        this.savedCanvas = rewritten.savedCanvas;
+        this.offsets = rewritten.offsets;
+        this.lengths = rewritten.lengths;
+        this.fileLength = rewritten.fileLength;
+        this.garbageBytes = rewritten.garbageBytes;
+        return true;
+    }
+
+    /**
+     * Writes a complete project file into a temporary file next to the target and replaces the target with it.
+     *
+     * @param previous The project file currently stored at the target, whose unchanged tiles are copied as they
+     *                 are, or {@code null}.
+     * @return The new project file, or {@code null} if writing was cancelled.
+     */
+    private static ProjectFile writeComplete(Path target, TiledCanvas snapshot, ProjectFile previous,
+                                             IntConsumer onProgress, BooleanSupplier isCancelled) throws IOException {
+        // Like for images, File.createTempFile applies the umask; Files.createTempFile would make the file owner-only
+        File directory = target.toAbsolutePath().getParent().toFile();
+        Path temporaryFile = File.createTempFile(target.getFileName() + ".", ".tmp", directory).toPath();
+        boolean isComplete = false;
+        int tilesX = snapshot.getTilesX();
+        int tileCount = tilesX * snapshot.getTilesY();
+        long[] offsets = new long[tileCount];
+        int[] lengths = new int[tileCount];
+        long position = HEADER_SIZE;
+        try {
+            try (FileChannel out = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                boolean canCopy = previous != null && previous.savedCanvas.getTilesX() == tilesX
+                        && previous.lengths.length == tileCount;
+
+                List<Integer> compressedTiles = new ArrayList<>();
+                for (int i = 0; i < tileCount; i++) {
+                    if (canCopy && snapshot.isSameTile(previous.savedCanvas, i % tilesX, i / tilesX) && previous.lengths[i] > 0) {
+                        // Unchanged tile: copy the stored bytes
+                        offsets[i] = position;
+                        lengths[i] = previous.lengths[i];
+                        position += writeFully(out, position, readFully(previous.channel, previous.offsets[i], previous.lengths[i]));
+                    } else if (snapshot.getTilePixels(i % tilesX, i / tilesX) != null) {
+                        compressedTiles.add(i);
+                    }
+                }
+
+                int[] pending = compressedTiles.stream().mapToInt(Integer::intValue).toArray();
+                for (int from = 0; from < pending.length; from += BATCH_SIZE) {
+                    if (isCancelled.getAsBoolean()) return null;
+
+                    int to = Math.min(pending.length, from + BATCH_SIZE);
+                    byte[][] compressed = compressTiles(snapshot, pending, from, to);
+                    for (int i = from; i < to; i++) {
+                        offsets[pending[i]] = position;
+                        lengths[pending[i]] = compressed[i - from].length;
+                        position += writeFully(out, position, ByteBuffer.wrap(compressed[i - from]));
+                    }
+                    reportProgress(onProgress, to, pending.length);
+                }
+
+                long indexOffset = position;
+                position += writeFully(out, indexOffset, encodeIndex(offsets, lengths));
+                writeFully(out, 0, encodeHeader(snapshot, indexOffset));
+                out.force(false);
+            } // The temporary file is closed before it replaces the target
+
+            FileHandler.replaceFile(temporaryFile, target);
+            isComplete = true;
+            FileChannel channel = FileChannel.open(target, StandardOpenOption.READ);
+            return new ProjectFile(target, channel, snapshot, offsets, lengths, position);
+        } finally {
+            if (!isComplete) {
+                Files.deleteIfExists(temporaryFile);
+            }
+        }
+    }
+
+    /**
+     * Compresses tiles in parallel.
+     *
+     * @return The deflated tiles; {@code null} for blank tiles.
+     */
+    private static byte[][] compressTiles(TiledCanvas canvas, int[] tiles, int from, int to) {
+        int tilesX = canvas.getTilesX();
+        byte[][] compressed = new byte[to - from][];
+        IntStream.range(from, to).parallel().forEach(i -> {
+            int[] pixels = canvas.getTilePixels(tiles[i] % tilesX, tiles[i] / tilesX);
+            compressed[i - from] = (pixels == null) ? null : PixelCompression.compress(pixels);
+        });
+        return compressed;
+    }
+
+    private static ByteBuffer encodeHeader(TiledCanvas canvas, long indexOffset) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).putShort(VERSION)
+                .putInt(canvas.getWidth()).putInt(canvas.getHeight())
+                .putInt(canvas.getBackgroundRGB()).putInt(TiledCanvas.TILE_SIZE)
+                .putLong(indexOffset);
+        return header.flip();
+    }
+
+    private static ByteBuffer encodeIndex(long[] offsets, int[] lengths) {
+        ByteBuffer index = ByteBuffer.allocate(lengths.length * INDEX_ENTRY_SIZE);
+        for (int i = 0; i < lengths.length; i++) {
+            index.putLong(offsets[i]).putInt(lengths[i]);
+        }
+        return index.flip();
+    }
+
+    /**
+     * Maps the tile area of a file in overlapping regions, so that every tile lies within a single region.
+     */
+    private static MappedByteBuffer[] map(FileChannel channel, long length) throws IOException {
+        int regionCount = (int) Math.max(1, (length + REGION_SIZE - 1) / REGION_SIZE);
+        MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            long start = i * REGION_SIZE;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length - start, REGION_SIZE + MAX_TILE_BYTES));
+        }
+        return regions;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unerwartetes Dateiende bei Position " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + length - buffer.remaining());
+        }
+        return length;
+    }
+
+    private static void reportProgress(IntConsumer onProgress, int done, int total) {
+        if (onProgress != null) {
+            onProgress.accept((int) (done * 100L / total));
+        }
+    }
+
+    /**
+     * Decodes tiles from the memory-mapped file on demand.
+     */
+    private record MappedTiles(MappedByteBuffer[] regions, int tilesX, long[] offsets, int[] lengths)
+            implements TiledCanvas.TileSource {
+
+        @Override
+        public boolean isBlank(int tx, int ty) {
+            return lengths[ty * tilesX + tx] == 0;
+        }
+
+        @Override
+        public void decode(int tx, int ty, int[] pixels) {
+            int index = ty * tilesX + tx;
+            long offset = offsets[index];
+            byte[] data = new byte[lengths[index]];
+            regions[(int) (offset / REGION_SIZE)].get((int) (offset % REGION_SIZE), data);
+            System.arraycopy(PixelCompression.decompress(data, TILE_PIXELS), 0, pixels, 0, TILE_PIXELS);
+        }
+    }
+}
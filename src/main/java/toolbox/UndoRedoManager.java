@@ -1,24 +1,79 @@
 package toolbox;
 
 import model.PaintingModel;
+import model.TiledCanvas;
 import view.MainWindow;
+import view.components.MenuBarView;
 
+import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Manages the undo and redo functionality for the painting application.
+ * <p>
+ * An edit starts with {@link #saveCanvasState()} and ends with {@link #completeCanvasState()}.
+ * For ordinary painting operations only the region touched by the tool is stored, together with its
+ * pixels before and after the edit, and undo/redo patch that region back in place.
+ * Edits that replace or resize the canvas, and edits whose bounding box exceeds {@value #MAX_REGION_PIXELS} pixels,
+ * are stored as copy-on-write canvas copies, which only hold the tiles changed by the edit.
+ * </p>
+ * <p>
+ * The history is limited by a memory budget (system property {@value #BUDGET_PROPERTY} in MB,
+ * default {@value #DEFAULT_BUDGET_MB} MB). All but the most recent entries are deflated on a
+ * background thread and decompressed on demand; the oldest entries are dropped once the budget is exceeded.
+ * </p>
+ * <p>
+ * Unless disabled via the system property {@value #DISK_TIER_PROPERTY}, compressed entries beyond the
+ * most recent {@value #HEAP_STEPS} steps are moved into a memory-mapped {@link UndoScratchFile}, so heap
+ * usage stays flat while the history grows. Their pages are released as soon as the entries are discarded.
+ * </p>
+ * <p>
+ * The manager reads and restores the canvas, so its methods have to be called on the thread that owns the
+ * painting model (the painting thread of the application). The undo/redo menu items and the window title
+ * are updated on the EDT.
+ * </p>
  */
 public class UndoRedoManager {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(UndoRedoManager.class);
+    public static final String BUDGET_PROPERTY = "basicpaint.undoBudgetMB";
+    public static final int DEFAULT_BUDGET_MB = 256;
+    public static final String DISK_TIER_PROPERTY = "basicpaint.undoDiskTier";
+    private static final int UNCOMPRESSED_STEPS = 2; // Most recent entries kept uncompressed for fast undo
+    private static final int HEAP_STEPS = 16;        // Most recent entries kept on the heap
+    private static final int MAX_REGION_PIXELS = 1 << 20; // Larger regions are not copied into pixel arrays
+
+    private static final ExecutorService compressionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "UndoCompression");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
     private final Deque<CanvasState> undoStack = new ArrayDeque<>();
     private final Deque<CanvasState> redoStack = new ArrayDeque<>();
     private final PaintingModel paintingModel;
-    private final MainWindow mainWindow;
+    private final MenuBarView menuBarView;
+    private final Consumer<String> titleConsumer;
+    private final Executor modelExecutor; // Runs tasks on the thread that owns the painting model
     private File currentFile;
 
+    private TiledCanvas pendingCanvas;  // The canvas being edited since saveCanvasState()
+    private TiledCanvas pendingBefore;  // Copy-on-write copy of that canvas before the edit
+    private String pendingFileName;
+    private long historySize; // Estimated memory of both stacks, updated when entries are added, shrunk or dropped
+    private final long memoryBudget = Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MB) * 1024 * 1024;
+    private final boolean isDiskTierEnabled = Boolean.parseBoolean(System.getProperty(DISK_TIER_PROPERTY, "true"));
+    private final UndoScratchFile scratchFile = new UndoScratchFile();
+
     /**
      * Constructs the UndoRedoManager.
      *
@@ -26,31 +81,100 @@ public class UndoRedoManager {
      * @param mainWindow    The main window of the application.
      */
     public UndoRedoManager(PaintingModel paintingModel, MainWindow mainWindow) {
+        this(paintingModel, mainWindow.getMenuBarView(), mainWindow::setTitle,
+                mainWindow.getPaintingPanelView().getPaintingExecutor()::execute);
+    }
+
+    /**
+     * Constructs the UndoRedoManager without a main window (for example, for benchmarks on a headless system).
+     * The painting model is owned by the EDT.
+     *
+     * @param paintingModel The painting model managing the canvas.
+     * @param menuBarView   The menu bar whose undo and redo items and buttons are updated.
+     * @param titleConsumer Receives the window title after an undo or redo.
+     */
+    public UndoRedoManager(PaintingModel paintingModel, MenuBarView menuBarView, Consumer<String> titleConsumer) {
+        this(paintingModel, menuBarView, titleConsumer, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Constructs the UndoRedoManager.
+     *
+     * @param paintingModel The painting model managing the canvas.
+     * @param menuBarView   The menu bar whose undo and redo items and buttons are updated.
+     * @param titleConsumer Receives the window title after an undo or redo (called on the EDT).
+     * @param modelExecutor Runs tasks on the thread that owns the painting model, such as trimming the history
+     *                      after a background compression.
+     */
+    public UndoRedoManager(PaintingModel paintingModel, MenuBarView menuBarView, Consumer<String> titleConsumer, Executor modelExecutor) {
         this.paintingModel = paintingModel;
-        this.mainWindow = mainWindow;
+        this.menuBarView = menuBarView;
+        this.titleConsumer = titleConsumer;
+        this.modelExecutor = modelExecutor;
 
         updateUndoRedoState();
     }
 
     /**
      * Saves the current canvas state for undo functionality.
+     * <p>
+     * Marks the start of an edit. The copy taken here shares all tiles with the canvas,
+     * so it only costs memory for tiles that the edit actually modifies.
+     * </p>
      */
     public void saveCanvasState() {
-        BufferedImage currentState = copyImage(paintingModel.getCanvas());
-        if (currentState == null || (!undoStack.isEmpty() && imagesAreEqual(undoStack.peek().image, currentState))) {
-            return; // No need to save duplicate states
+        completeCanvasState();
+
+        FlightRecorderEvents.UndoCaptureEvent event = new FlightRecorderEvents.UndoCaptureEvent();
+        long start = System.nanoTime();
+        event.begin();
+        pendingCanvas = paintingModel.getCanvas();
+        pendingBefore = pendingCanvas.copy();
+        pendingFileName = getCurrentFileName();
+        paintingModel.resetDirtyRegion();
+        updateUndoRedoState();
+        PerformanceMetrics.UNDO_SNAPSHOT.recordSince(start);
+        commitCaptureEvent(event, "Beginn", null); // Copy-on-write, no pixels are copied
+    }
+
+    /**
+     * Completes the edit started by {@link #saveCanvasState()} and records it in the history.
+     * Edits without any visible change are discarded.
+     */
+    public void completeCanvasState() {
+        if (pendingBefore == null) return;
+
+        FlightRecorderEvents.UndoCaptureEvent event = new FlightRecorderEvents.UndoCaptureEvent();
+        long start = System.nanoTime();
+        event.begin();
+        CanvasState state;
+        try {
+            state = createCanvasState();
+        } finally {
+            pendingCanvas = null; // A failed edit must not block the following ones
+            pendingBefore = null;
+        }
+
+        if (state != null) {
+            undoStack.push(state);
+            updateHistorySize(state);
+            discardAll(redoStack); // Redo becomes invalid
+            scheduleCompression();
+            enforceMemoryBudget();
         }
-        undoStack.push(new CanvasState(currentState, getCurrentFileName()));
-        redoStack.clear(); // Redo becomes invalid
         updateUndoRedoState();
+        PerformanceMetrics.UNDO_COMPLETE.recordSince(start);
+        commitCaptureEvent(event, "Abschluss", state);
     }
 
     /**
      * Clears the entire undo/redo history.
      */
     public void clearHistory() {
-        undoStack.clear();
-        redoStack.clear();
+        pendingCanvas = null;
+        pendingBefore = null;
+        discardAll(undoStack);
+        discardAll(redoStack);
         updateUndoRedoState();
     }
 
@@ -58,10 +182,21 @@ public class UndoRedoManager {
      * Restores the previous canvas state (undo operation).
      */
     public void undo() {
+        completeCanvasState();
         if (!undoStack.isEmpty()) {
-            redoStack.push(createCanvasState());
-            applyCanvasState(undoStack.pop());
+            FlightRecorderEvents.UndoRestoreEvent event = new FlightRecorderEvents.UndoRestoreEvent();
+            long start = System.nanoTime();
+            event.begin();
+            CanvasState state = undoStack.pop();
+            applyCanvasState(state, true);
+            redoStack.push(state);
             updateUndoRedoState();
+            PerformanceMetrics.UNDO_REDO.recordSince(start);
+            if (event.shouldCommit()) {
+                event.operation = "Rückgängig";
+                event.bytesCopied = state.getRegionBytes();
+                event.commit();
+            }
         }
     }
 
@@ -69,61 +204,177 @@ public class UndoRedoManager {
      * Restores the next canvas state (redo operation).
      */
     public void redo() {
+        completeCanvasState();
         if (!redoStack.isEmpty()) {
-            undoStack.push(createCanvasState());
-            applyCanvasState(redoStack.pop());
+            FlightRecorderEvents.UndoRestoreEvent event = new FlightRecorderEvents.UndoRestoreEvent();
+            long start = System.nanoTime();
+            event.begin();
+            CanvasState state = redoStack.pop();
+            applyCanvasState(state, false);
+            undoStack.push(state);
             updateUndoRedoState();
+            PerformanceMetrics.UNDO_REDO.recordSince(start);
+            if (event.shouldCommit()) {
+                event.operation = "Wiederholen";
+                event.bytesCopied = state.getRegionBytes();
+                event.commit();
+            }
         }
     }
 
     /**
      * Applies a saved canvas state to the painting model.
      *
-     * @param state The canvas state to apply.
+     * @param state  The canvas state to apply.
+     * @param isUndo {@code true} to restore the state before the edit, {@code false} for the state after it.
      */
-    private void applyCanvasState(CanvasState state) {
-        paintingModel.setCanvas(state.image);
+    private void applyCanvasState(CanvasState state, boolean isUndo) {
+        // The painting model reports the changed area, so the view repaints only that part
+        if (state.region != null) {
+            Rectangle region = state.region;
+            paintingModel.getCanvas().setRGB(region.x, region.y, region.width, region.height,
+                    isUndo ? state.getBeforePixels() : state.getAfterPixels());
+            paintingModel.markDirty(region);
+        } else {
+            paintingModel.setCanvas((isUndo ? state.beforeCanvas : state.afterCanvas).copy());
+        }
+
         currentFile = new File(state.fileName);
-        mainWindow.setTitle("BasicPaint | " + state.fileName);
-        mainWindow.getPaintingPanelView().repaint();
+        runOnEventDispatchThread(() -> titleConsumer.accept("BasicPaint | " + state.fileName));
     }
 
     /**
-     * Creates a snapshot of the current canvas state.
+     * Creates the history entry for the pending edit.
      *
-     * @return A CanvasState object containing the current canvas information.
+     * @return A CanvasState object describing the edit, or {@code null} if nothing has changed.
      */
     private CanvasState createCanvasState() {
-        return new CanvasState(copyImage(paintingModel.getCanvas()), getCurrentFileName());
+        TiledCanvas current = paintingModel.getCanvas();
+
+        // Canvas replaced or resized -> keep copies of both canvases
+        if (current != pendingCanvas) {
+            if (current.contentEquals(pendingBefore)) return null;
+            return new CanvasState(pendingBefore, current.copy(), pendingFileName);
+        }
+
+        Rectangle region = paintingModel.getDirtyRegion();
+        if (region == null) return null;
+
+        // Large edits (e.g. filling the whole canvas) keep the tiles already copied by the edit
+        if ((long) region.width * region.height > MAX_REGION_PIXELS) {
+            if (current.contentEquals(pendingBefore)) return null;
+            return new CanvasState(pendingBefore, current.copy(), pendingFileName);
+        }
+
+        int[] before = pendingBefore.getRGB(region.x, region.y, region.width, region.height, null);
+        int[] after = current.getRGB(region.x, region.y, region.width, region.height, null);
+        if (Arrays.equals(before, after)) {
+            return null; // No need to save unchanged states
+        }
+        return new CanvasState(region, before, after, pendingFileName);
     }
 
     /**
-     * Checks if two images are identical.
+     * Commits a flight recorder event for the capture of an undo snapshot.
      *
-     * @param img1 The first image.
-     * @param img2 The second image.
-     * @return {@code true} if both images are identical, otherwise {@code false}.
+     * @param event The event, begun before the capture.
+     * @param step  The step of the edit ("Beginn" or "Abschluss").
+     * @param state The recorded entry whose region pixels were copied, or {@code null} if no pixels were copied.
+     */
+    private static void commitCaptureEvent(FlightRecorderEvents.UndoCaptureEvent event, String step, CanvasState state) {
+        if (!event.shouldCommit()) return;
+        event.step = step;
+        event.bytesCopied = (state != null) ? 2 * state.getRegionBytes() : 0; // Pixels before and after the edit
+        event.commit();
+    }
+
+    /**
+     * Queues all undo entries beyond the most recent ones for background compression
+     * and, if the disk tier is enabled, older entries for moving into the scratch file.
+     * The single compression thread guarantees that an entry is compressed before it is moved.
      */
-    private boolean imagesAreEqual(BufferedImage img1, BufferedImage img2) {
-        if (img1 == null || img2 == null || img1.getWidth() != img2.getWidth() || img1.getHeight() != img2.getHeight()) {
-            return false;
+    private void scheduleCompression() {
+        int index = 0;
+        for (CanvasState state : undoStack) {
+            if (index >= UNCOMPRESSED_STEPS && state.markCompressionQueued()) {
+                compressionExecutor.execute(() -> {
+                    state.compress();
+                    modelExecutor.execute(() -> updateHistorySizeAndBudget(state));
+                });
+            }
+            if (isDiskTierEnabled && index >= HEAP_STEPS && state.markSpillQueued()) {
+                compressionExecutor.execute(() -> {
+                    state.spill(scratchFile);
+                    modelExecutor.execute(() -> updateHistorySizeAndBudget(state));
+                });
+            }
+            index++;
         }
-        return img1.getData().equals(img2.getData()); // Efficient pixel comparison
     }
 
     /**
-     * Creates a deep copy of an image.
+     * Removes all entries from a stack and releases their scratch file pages.
+     *
+     * @param stack The stack to clear.
+     */
+    private void discardAll(Deque<CanvasState> stack) {
+        stack.forEach(this::discard);
+        stack.clear();
+    }
+
+    /**
+     * Releases an entry removed from the history and subtracts its size from the history size.
+     *
+     * @param state The removed entry.
+     */
+    private void discard(CanvasState state) {
+        historySize -= state.recordedSize;
+        state.recordedSize = 0;
+        state.release();
+    }
+
+    /**
+     * Records the current size of an entry in the history size, replacing the size recorded before.
+     * Entries that have already been dropped are ignored.
+     *
+     * @param state The entry whose size may have changed.
+     */
+    private void updateHistorySize(CanvasState state) {
+        if (state.isReleased()) return;
+        long size = state.getByteSize(paintingModel.getCanvas());
+        historySize += size - state.recordedSize;
+        state.recordedSize = size;
+    }
+
+    /**
+     * Updates the history size after an entry has been compressed or moved to disk, then trims the history.
      *
-     * @param image The image to copy.
-     * @return A copied BufferedImage or {@code null} if the input is invalid.
+     * @param state The entry that has been compressed or moved.
      */
-    private BufferedImage copyImage(BufferedImage image) {
-        if (image == null) return null;
-        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = copy.createGraphics();
-        g2d.drawImage(image, 0, 0, null);
-        g2d.dispose();
-        return copy;
+    private void updateHistorySizeAndBudget(CanvasState state) {
+        updateHistorySize(state);
+        enforceMemoryBudget();
+    }
+
+    /**
+     * Drops the oldest history entries until the history fits into the memory budget.
+     * The most recent undo and redo entries are always kept.
+     */
+    private void enforceMemoryBudget() {
+        int evicted = 0;
+
+        while (historySize > memoryBudget) {
+            Deque<CanvasState> stack = undoStack.size() > 1 ? undoStack : redoStack.size() > 1 ? redoStack : null;
+            if (stack == null) break;
+            discard(stack.removeLast());
+            evicted++;
+        }
+
+        if (evicted > 0) {
+            logger.info("Speicherbudget für Rückgängig überschritten: " + evicted + " Schritt(e) verworfen. \n" +
+                    LoggingHelper.formatMessage("Belegter Speicher: " + (historySize / 1024) + " KB von " + (memoryBudget / 1024) + " KB \n"));
+        }
+        updateUndoRedoState();
     }
 
     /**
@@ -139,32 +390,234 @@ public class UndoRedoManager {
      * Updates the undo/redo state in the UI.
      */
     private void updateUndoRedoState() {
-        boolean canUndo = !undoStack.isEmpty();
+        boolean canUndo = !undoStack.isEmpty() || pendingBefore != null;
         boolean canRedo = !redoStack.isEmpty();
+        int undoSteps = undoStack.size();
+        int redoSteps = redoStack.size();
+
+        runOnEventDispatchThread(() -> {
+            menuBarView.getUndoItem().setEnabled(canUndo);
+            menuBarView.getUndoButton().setEnabled(canUndo);
 
-        mainWindow.getMenuBarView().getUndoItem().setEnabled(canUndo);
-        mainWindow.getMenuBarView().getUndoButton().setEnabled(canUndo);
+            menuBarView.getRedoItem().setEnabled(canRedo);
+            menuBarView.getRedoButton().setEnabled(canRedo);
+
+            // Show the number of available steps in the 'Edit' menu
+            menuBarView.getUndoItem().setText("Rückgängig (" + undoSteps + ")");
+            menuBarView.getRedoItem().setText("Wiederherstellen (" + redoSteps + ")");
+        });
+    }
 
-        mainWindow.getMenuBarView().getRedoItem().setEnabled(canRedo);
-        mainWindow.getMenuBarView().getRedoButton().setEnabled(canRedo);
+    /**
+     * Runs a user interface update on the EDT: immediately if called there, otherwise queued.
+     */
+    private static void runOnEventDispatchThread(Runnable update) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            update.run();
+        } else {
+            SwingUtilities.invokeLater(update);
+        }
     }
 
     /**
-     * Represents a snapshot of the canvas state for undo/redo operations.
+     * Represents a single edit of the canvas for undo/redo operations.
+     * <p>
+     * Either a region with its pixels before and after the edit, or (for edits that replace or resize
+     * the canvas or change a large region) copy-on-write copies of the whole canvas before and after the edit.
+     * Region pixels can be deflated in the background; the after-pixels are stored as XOR
+     * difference to the before-pixels, so unchanged pixels compress to almost nothing.
+     * </p>
      */
     private static final class CanvasState {
-        private final BufferedImage image;
+        private final Rectangle region;
+        private final TiledCanvas beforeCanvas;
+        private final TiledCanvas afterCanvas;
         private final String fileName;
 
+        private int[] beforePixels;  // null once compressed
+        private int[] afterPixels;
+        private byte[] compressedBefore;
+        private byte[] compressedAfterDelta;
+        private boolean compressionQueued;
+
+        private UndoScratchFile scratchFile;  // Set once the compressed data has been moved to disk
+        private UndoScratchFile.Record spilledBefore;
+        private UndoScratchFile.Record spilledAfterDelta;
+        private boolean spillQueued;
+        private boolean released;
+        private long recordedSize; // The size counted in the history size, only accessed on the model thread
+
+        /**
+         * Constructs a CanvasState object for an edit limited to a region.
+         *
+         * @param region       The bounding rectangle of the edit.
+         * @param beforePixels The pixels of the region before the edit.
+         * @param afterPixels  The pixels of the region after the edit.
+         * @param fileName     The name of the file associated with this state.
+         */
+        public CanvasState(Rectangle region, int[] beforePixels, int[] afterPixels, String fileName) {
+            this.region = region;
+            this.beforePixels = beforePixels;
+            this.afterPixels = afterPixels;
+            this.beforeCanvas = null;
+            this.afterCanvas = null;
+            this.fileName = fileName;
+        }
+
         /**
-         * Constructs a CanvasState object.
+         * Constructs a CanvasState object for an edit that replaced the canvas or changed a large part of it.
          *
-         * @param image    The saved image state.
-         * @param fileName The name of the file associated with this state.
+         * @param beforeCanvas The canvas before the edit.
+         * @param afterCanvas  The canvas after the edit.
+         * @param fileName     The name of the file associated with this state.
          */
-        public CanvasState(BufferedImage image, String fileName) {
-            this.image = image;
+        public CanvasState(TiledCanvas beforeCanvas, TiledCanvas afterCanvas, String fileName) {
+            this.region = null;
+            this.beforeCanvas = beforeCanvas;
+            this.afterCanvas = afterCanvas;
             this.fileName = fileName;
+            this.compressionQueued = true; // Canvas copies are never compressed
+            this.spillQueued = true;
+        }
+
+        /**
+         * Returns the pixels of the region before the edit, decompressing them if necessary.
+         */
+        private synchronized int[] getBeforePixels() {
+            if (beforePixels != null) return beforePixels;
+            byte[] data = (compressedBefore != null) ? compressedBefore : scratchFile.read(spilledBefore);
+            return PixelCompression.decompress(data, region.width * region.height);
+        }
+
+        /**
+         * Returns the pixels of the region after the edit, decompressing them if necessary.
+         */
+        private synchronized int[] getAfterPixels() {
+            if (afterPixels != null) return afterPixels;
+            byte[] data = (compressedAfterDelta != null) ? compressedAfterDelta : scratchFile.read(spilledAfterDelta);
+            int[] delta = PixelCompression.decompress(data, region.width * region.height);
+            return PixelCompression.xor(delta, getBeforePixels());
+        }
+
+        /**
+         * Marks the state as queued for compression.
+         *
+         * @return {@code true} if the state was not queued before.
+         */
+        private synchronized boolean markCompressionQueued() {
+            if (compressionQueued) return false;
+            compressionQueued = true;
+            return true;
+        }
+
+        /**
+         * Deflates the region pixels (called on the compression thread).
+         */
+        private void compress() {
+            int[] before;
+            int[] after;
+            synchronized (this) {
+                if (beforePixels == null) return;
+                before = beforePixels;
+                after = afterPixels;
+            }
+
+            byte[] packedBefore = PixelCompression.compress(before);
+            byte[] packedAfterDelta = PixelCompression.compress(PixelCompression.xor(after, before));
+
+            synchronized (this) {
+                compressedBefore = packedBefore;
+                compressedAfterDelta = packedAfterDelta;
+                beforePixels = null;
+                afterPixels = null;
+            }
+        }
+
+        /**
+         * Marks the state as queued for moving into the scratch file.
+         *
+         * @return {@code true} if the state was not queued before.
+         */
+        private synchronized boolean markSpillQueued() {
+            if (spillQueued) return false;
+            spillQueued = true;
+            return true;
+        }
+
+        /**
+         * Moves the compressed pixel data into the scratch file (called on the compression thread).
+         * If writing fails, the data simply stays on the heap.
+         *
+         * @param target The scratch file to write to.
+         */
+        private synchronized void spill(UndoScratchFile target) {
+            if (released || compressedBefore == null) return;
+            try {
+                UndoScratchFile.Record before = target.write(compressedBefore);
+                UndoScratchFile.Record afterDelta;
+                try {
+                    afterDelta = target.write(compressedAfterDelta);
+                } catch (IOException e) {
+                    target.free(before);
+                    throw e;
+                }
+                scratchFile = target;
+                spilledBefore = before;
+                spilledAfterDelta = afterDelta;
+                compressedBefore = null;
+                compressedAfterDelta = null;
+            } catch (IOException e) {
+                logger.warn("Auslagern in die Auslagerungsdatei fehlgeschlagen: " + e.getMessage() + "\n");
+            }
+        }
+
+        /**
+         * Releases the scratch file pages of this state once it has been removed from the history.
+         */
+        private synchronized void release() {
+            released = true;
+            if (scratchFile != null) {
+                scratchFile.free(spilledBefore);
+                scratchFile.free(spilledAfterDelta);
+                scratchFile = null;
+            }
+        }
+
+        /**
+         * Checks whether the state has been removed from the history.
+         */
+        private synchronized boolean isReleased() { return released; }
+
+        /**
+         * Returns the size of the uncompressed pixels of the region, which undo and redo copy into the canvas.
+         *
+         * @return The size in bytes, 0 for canvas copies (they are swapped in copy-on-write).
+         */
+        private long getRegionBytes() {
+            return (region == null) ? 0 : (long) region.width * region.height * Integer.BYTES;
+        }
+
+        /**
+         * Estimates the memory held by this state. Tiles of canvas copies that are still shared with each other
+         * or with the live canvas are not counted, since dropping the state would not free them. The estimate is
+         * taken when the state is recorded and after it has been compressed or moved to disk.
+         *
+         * @param liveCanvas The current canvas of the painting model.
+         * @return The size in bytes.
+         */
+        private synchronized long getByteSize(TiledCanvas liveCanvas) {
+            if (region == null) {
+                long tileBytes = (long) TiledCanvas.TILE_SIZE * TiledCanvas.TILE_SIZE * Integer.BYTES;
+                return tileBytes * (beforeCanvas.getUnsharedTileCount(liveCanvas)
+                        + afterCanvas.getUnsharedTileCount(beforeCanvas, liveCanvas));
+            }
+            if (beforePixels != null) {
+                return 2L * beforePixels.length * Integer.BYTES;
+            }
+            if (scratchFile != null) {
+                return (long) (spilledBefore.pages().length + spilledAfterDelta.pages().length) * Integer.BYTES; // Page index only
+            }
+            return compressedBefore.length + compressedAfterDelta.length;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,172 @@
+package toolbox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Memory-mapped scratch file used as disk tier for the undo history.
+ * <p>
+ * The file is divided into pages of {@value #PAGE_SIZE} bytes and mapped into memory in segments
+ * via {@link FileChannel#map}. Each stored record occupies a list of pages; the page numbers are kept
+ * on the heap as the record's index. Freed pages are reused by later records.
+ * </p>
+ * <p>
+ * The file is created lazily and opened with {@link StandardOpenOption#DELETE_ON_CLOSE}, which removes it from
+ * the directory right away on POSIX systems and when its handle is closed on Windows, so no file is left behind
+ * even after a crash. Segments at the end that no longer hold any page are unmapped and cut off the file, and
+ * once all records have been freed (e.g. when the history is cleared) the file is closed.
+ * </p>
+ */
+public class UndoScratchFile {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(UndoScratchFile.class);
+    public static final int PAGE_SIZE = 64 * 1024;
+    private static final int PAGES_PER_SEGMENT = 1024; // 64 MB per mapped segment
+    private static final long SEGMENT_SIZE = (long) PAGES_PER_SEGMENT * PAGE_SIZE;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final BitSet usedPages = new BitSet();
+    private FileChannel channel;
+    private Path path;
+
+    /**
+     * Reference to data stored in the scratch file.
+     *
+     * @param pages  The page numbers holding the data, in order.
+     * @param length The length of the data in bytes.
+     */
+    public record Record(int[] pages, int length) { }
+
+    /**
+     * Writes data into free pages of the scratch file, growing the file if necessary.
+     * If writing fails, the pages already taken for the data are released again.
+     *
+     * @param data The data to store.
+     * @return The record referencing the stored data.
+     * @throws IOException If the file cannot be created or grown.
+     */
+    public synchronized Record write(byte[] data) throws IOException {
+        int pageCount = Math.max(1, (data.length + PAGE_SIZE - 1) / PAGE_SIZE);
+        int[] pages = new int[pageCount];
+        int allocated = 0;
+
+        try {
+            for (int i = 0; i < pageCount; i++) {
+                pages[i] = allocatePage();
+                allocated++;
+                int offset = i * PAGE_SIZE;
+                pageBuffer(pages[i]).put(data, offset, Math.min(PAGE_SIZE, data.length - offset));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (int i = 0; i < allocated; i++) {
+                usedPages.clear(pages[i]);
+            }
+            throw e;
+        }
+        return new Record(pages, data.length);
+    }
+
+    /**
+     * Reads the data of a record back into the heap.
+     *
+     * @param record The record to read.
+     * @return The stored data.
+     */
+    public synchronized byte[] read(Record record) {
+        byte[] data = new byte[record.length()];
+        for (int i = 0; i < record.pages().length; i++) {
+            int offset = i * PAGE_SIZE;
+            pageBuffer(record.pages()[i]).get(data, offset, Math.min(PAGE_SIZE, data.length - offset));
+        }
+        return data;
+    }
+
+    /**
+     * Releases the pages of a record so that they can be reused, shrinking the file if its end is unused.
+     *
+     * @param record The record to release.
+     */
+    public synchronized void free(Record record) {
+        for (int page : record.pages()) {
+            usedPages.clear(page);
+        }
+        releaseUnusedSegments();
+    }
+
+    /**
+     * Finds a free page, mapping a new segment at the end of the file if all pages are used.
+     *
+     * @return The page number.
+     * @throws IOException If the file cannot be created or grown.
+     */
+    private int allocatePage() throws IOException {
+        int page = usedPages.nextClearBit(0);
+        while (page >= segments.size() * PAGES_PER_SEGMENT) {
+            mapNextSegment();
+        }
+        usedPages.set(page);
+        return page;
+    }
+
+    /**
+     * Maps the next segment of the scratch file.
+     *
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    private void mapNextSegment() throws IOException {
+        if (channel == null) {
+            path = Files.createTempFile("basicpaint-undo-", ".tmp");
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            logger.debug("Auslagerungsdatei für Rückgängig erstellt: " + path + "\n");
+        }
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+    }
+
+    /**
+     * Unmaps the unused segments at the end of the file and cuts them off. One spare segment is kept so that
+     * records freed and written at a segment border do not map and unmap it every time. Once no page is used
+     * at all, the file is closed and thereby deleted.
+     */
+    private void releaseUnusedSegments() {
+        int usedSegments = (usedPages.length() + PAGES_PER_SEGMENT - 1) / PAGES_PER_SEGMENT;
+        int keptSegments = (usedSegments == 0) ? 0 : usedSegments + 1;
+        if (segments.size() <= keptSegments) return;
+
+        segments.subList(keptSegments, segments.size()).clear(); // The mappings are released once collected
+        try {
+            if (keptSegments == 0) {
+                channel.close();
+                logger.debug("Auslagerungsdatei für Rückgängig geschlossen: " + path + "\n");
+            } else {
+                channel.truncate(keptSegments * SEGMENT_SIZE);
+            }
+        } catch (IOException e) {
+            logger.debug("Auslagerungsdatei konnte nicht verkleinert werden: " + e.getMessage() + "\n");
+        } finally {
+            if (keptSegments == 0) {
+                channel = null;
+                path = null;
+            }
+        }
+    }
+
+    /**
+     * Returns a buffer view of a single page.
+     *
+     * @param page The page number.
+     * @return A buffer positioned at the start of the page, limited to the page size.
+     */
+    private ByteBuffer pageBuffer(int page) {
+        MappedByteBuffer segment = segments.get(page / PAGES_PER_SEGMENT);
+        int offset = (page % PAGES_PER_SEGMENT) * PAGE_SIZE;
+        return segment.slice(offset, PAGE_SIZE);
+    }
+}
@@ -3,13 +3,14 @@ package toolbox.paintingtools;
 import model.PaintingModel;
 
 import java.awt.*;
+import java.awt.geom.Ellipse2D;
 
 /**
  * Draws basic shapes on the canvas using the current painting settings.
  */
 public class DrawEllipse {
     private final PaintingModel paintingModel;
-    private final Graphics2D g2d;
+    private final Ellipse2D.Float previewEllipse = new Ellipse2D.Float(); // Reused for every preview
 
     /**
      * Creates a new instance for drawing ellipses.
@@ -18,7 +19,6 @@ public class DrawEllipse {
      */
     public DrawEllipse(PaintingModel paintingModel) {
         this.paintingModel = paintingModel;
-        this.g2d = paintingModel.getG2D();
     }
 
     /**
@@ -30,16 +30,35 @@ public class DrawEllipse {
      * @param y2 The Y-coordinate of the opposite corner of the bounding box.
      */
     public void drawEllipse(int x1, int y1, int x2, int y2) {
-        g2d.setColor(paintingModel.getCurrentColour());
+        Color colour = paintingModel.getCurrentColour();
+        int strokeWidth = paintingModel.getStrokeWidth();
         int x = Math.min(x1, x2);
         int y = Math.min(y1, y2);
         int width = Math.abs(x2 - x1);
         int height = Math.abs(y2 - y1);
-        g2d.setStroke(new BasicStroke(
-                paintingModel.getStrokeWidth(),
-                BasicStroke.CAP_ROUND,
-                BasicStroke.JOIN_ROUND
-        ));
-        g2d.drawOval(x, y, width, height);
+        Stroke stroke = StrokeCache.get(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+        Rectangle bounds = new Rectangle(x, y, width, height);
+        bounds.grow(strokeWidth, strokeWidth);
+        paintingModel.paint(bounds, g2d -> {
+            g2d.setColor(colour);
+            g2d.setStroke(stroke);
+            g2d.drawOval(x, y, width, height);
+        });
+    }
+
+    /**
+     * Returns the preview of an ellipse from (x1, y1) to (x2, y2).
+     * The ellipse object is reused between calls.
+     *
+     * @param x1 The starting X-coordinate.
+     * @param y1 The starting Y-coordinate.
+     * @param x2 The ending X-coordinate.
+     * @param y2 The ending Y-coordinate.
+     * @return The preview shape.
+     */
+    public Shape getPreviewShape(int x1, int y1, int x2, int y2) {
+        previewEllipse.setFrame(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+        return previewEllipse;
     }
 }
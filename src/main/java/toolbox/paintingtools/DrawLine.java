@@ -3,13 +3,14 @@ package toolbox.paintingtools;
 import model.PaintingModel;
 
 import java.awt.*;
+import java.awt.geom.Line2D;
 
 /**
  * Handles the drawing of lines on the canvas using the current painting settings.
  */
 public class DrawLine {
     private final PaintingModel paintingModel;
-    private final Graphics2D g2d;
+    private final Line2D.Float previewLine = new Line2D.Float(); // Reused for every preview
 
     /**
      * Creates a new instance for drawing lines.
@@ -18,7 +19,6 @@ public class DrawLine {
      */
     public DrawLine(PaintingModel paintingModel) {
         this.paintingModel = paintingModel;
-        this.g2d = paintingModel.getG2D();
     }
 
     /**
@@ -30,12 +30,31 @@ public class DrawLine {
      * @param y2 The ending Y-coordinate.
      */
     public void drawLine(int x1, int y1, int x2, int y2) {
-        g2d.setColor(paintingModel.getCurrentColour());
-        g2d.setStroke(new BasicStroke(
-                paintingModel.getStrokeWidth(),
-                BasicStroke.CAP_BUTT,
-                BasicStroke.JOIN_MITER
-        ));
-        g2d.drawLine(x1, y1, x2, y2);
+        Color colour = paintingModel.getCurrentColour();
+        int strokeWidth = paintingModel.getStrokeWidth();
+        Stroke stroke = StrokeCache.get(strokeWidth, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+
+        Rectangle bounds = new Rectangle(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+        bounds.grow(strokeWidth, strokeWidth);
+        paintingModel.paint(bounds, g2d -> {
+            g2d.setColor(colour);
+            g2d.setStroke(stroke);
+            g2d.drawLine(x1, y1, x2, y2);
+        });
+    }
+
+    /**
+     * Returns the preview of a line from (x1, y1) to (x2, y2).
+     * The line object is reused between calls, so dragging allocates no geometry.
+     *
+     * @param x1 The starting X-coordinate.
+     * @param y1 The starting Y-coordinate.
+     * @param x2 The ending X-coordinate.
+     * @param y2 The ending Y-coordinate.
+     * @return The preview shape.
+     */
+    public Shape getPreviewShape(int x1, int y1, int x2, int y2) {
+        previewLine.setLine(x1, y1, x2, y2);
+        return previewLine;
     }
 }
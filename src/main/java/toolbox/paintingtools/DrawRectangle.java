@@ -3,13 +3,14 @@ package toolbox.paintingtools;
 import model.PaintingModel;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Draws rectangular shapes on the canvas using the current painting settings.
  */
 public class DrawRectangle {
     private final PaintingModel paintingModel;
-    private final Graphics2D g2d;
+    private final Rectangle2D.Float previewRectangle = new Rectangle2D.Float(); // Reused for every preview
 
     /**
      * Creates a new instance for drawing rectangles.
@@ -18,7 +19,6 @@ public class DrawRectangle {
      */
     public DrawRectangle(PaintingModel paintingModel) {
         this.paintingModel = paintingModel;
-        this.g2d = paintingModel.getG2D();
     }
 
     /**
@@ -30,16 +30,35 @@ public class DrawRectangle {
      * @param y2 The Y-coordinate of the opposite corner.
      */
     public void drawRectangle(int x1, int y1, int x2, int y2) {
-        g2d.setColor(paintingModel.getCurrentColour());
+        Color colour = paintingModel.getCurrentColour();
+        int strokeWidth = paintingModel.getStrokeWidth();
         int x = Math.min(x1, x2);
         int y = Math.min(y1, y2);
         int width = Math.abs(x2 - x1);
         int height = Math.abs(y2 - y1);
-        g2d.setStroke(new BasicStroke(
-                paintingModel.getStrokeWidth(),
-                BasicStroke.CAP_BUTT,
-                BasicStroke.JOIN_MITER
-        ));
-        g2d.drawRect(x, y, width, height);
+        Stroke stroke = StrokeCache.get(strokeWidth, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+
+        Rectangle bounds = new Rectangle(x, y, width, height);
+        bounds.grow(strokeWidth, strokeWidth);
+        paintingModel.paint(bounds, g2d -> {
+            g2d.setColor(colour);
+            g2d.setStroke(stroke);
+            g2d.drawRect(x, y, width, height);
+        });
+    }
+
+    /**
+     * Returns the preview of a rectangle from (x1, y1) to (x2, y2).
+     * The same shape object is updated and returned on every call, so no geometry is allocated while dragging.
+     *
+     * @param x1 The starting X-coordinate.
+     * @param y1 The starting Y-coordinate.
+     * @param x2 The ending X-coordinate.
+     * @param y2 The ending Y-coordinate.
+     * @return The preview shape.
+     */
+    public Shape getPreviewShape(int x1, int y1, int x2, int y2) {
+        previewRectangle.setRect(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+        return previewRectangle;
     }
 }
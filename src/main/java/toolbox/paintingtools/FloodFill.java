@@ -1,69 +1,157 @@
 package toolbox.paintingtools;
 
+import model.TiledCanvas;
+import toolbox.FlightRecorderEvents;
 import toolbox.LoggingHelper;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
 
 /**
  * Implements the flood fill (paint bucket) algorithm for filling an area with a new colour.
  * Ensures that the fill operation remains within the image boundaries and respects a tolerance level.
+ * <p>
+ * The fill works span by span (scanline fill) directly on the int pixel arrays of the canvas tiles.
+ * Seeds are kept in a primitive int stack and visited pixels in a bitset that is reused between fills,
+ * so a fill allocates almost nothing per pixel.
+ * </p>
+ * <p>
+ * Every fill starts serially. Once it has filled {@link #PARALLEL_THRESHOLD} pixels, its remaining seeds are
+ * handed over to {@link ParallelFloodFill}, which grows the region in tile strips on the common fork-join pool,
+ * so small fills never pay for the parallel machinery. The filled pixels are identical.
+ * </p>
+ * <p>
+ * Every fill is reported as {@link FlightRecorderEvents.FloodFillEvent} with the number of filled pixels.
+ * </p>
  */
 public class FloodFill {
-    private final BufferedImage canvas;
-    private final boolean[][] visited; // To track processed pixels
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(FloodFill.class);
+    private static final int TILE_SHIFT = TiledCanvas.TILE_SHIFT;
+    private static final int TILE_MASK = TiledCanvas.TILE_SIZE - 1;
+    public static final long PARALLEL_THRESHOLD = 4L * 1024 * 1024; // Filled pixels before handing over
+    private static final ThreadLocal<long[]> reusableVisited = ThreadLocal.withInitial(() -> new long[0]);
+
+    private final TiledCanvas canvas;
+    private final int width;
+    private final int height;
+    private final int backgroundRGB;
+    private final int[][] tilePixels;  // Cached tile arrays, null = blank or not fetched yet
+    private final boolean[] isWritable; // Whether the cached array of a tile is a private, writable copy
+
+    private int targetRed;
+    private int targetGreen;
+    private int targetBlue;
+    private int tolerance;
+    private long[] visited; // null if filled pixels can never match again
+    private long filledPixels;
+
+    private int[] stack = new int[256];
+    private int stackSize;
 
     /**
      * Constructs a FloodFill instance with the specified canvas.
      *
-     * @param canvas The image on which the flood fill operation will be performed.
+     * @param canvas The canvas on which the flood fill operation will be performed.
      */
-    public FloodFill(BufferedImage canvas) {
+    public FloodFill(TiledCanvas canvas) {
         this.canvas = canvas;
-        this.visited = new boolean[canvas.getWidth()][canvas.getHeight()];
+        this.width = canvas.getWidth();
+        this.height = canvas.getHeight();
+        this.backgroundRGB = canvas.getBackgroundRGB();
+        this.tilePixels = new int[canvas.getTilesX() * canvas.getTilesY()][];
+        this.isWritable = new boolean[tilePixels.length];
     }
 
     /**
-     * Performs the flood fill operation using an optimised iterative approach.
+     * Performs the flood fill operation using a scanline (span-based) approach.
      *
      * @param x         The x-coordinate of the starting point.
      * @param y         The y-coordinate of the starting point.
      * @param newColor  The colour to apply to the filled area.
      * @param tolerance The allowed colour difference for adjacent pixels.
+     * @return The bounding rectangle of the filled pixels, or {@code null} if nothing was filled.
+     */
+    public Rectangle fill(int x, int y, Color newColor, int tolerance) {
+        FlightRecorderEvents.FloodFillEvent event = new FlightRecorderEvents.FloodFillEvent();
+        event.begin();
+        filledPixels = 0;
+        Rectangle filled = fillRegion(x, y, newColor, tolerance);
+        if (event.shouldCommit()) {
+            event.filledPixels = filledPixels;
+            event.tolerance = tolerance;
+            event.commit();
+        }
+        return filled;
+    }
+
+    /**
+     * Fills the region connected to the starting point, choosing between the sequential and the parallel fill.
+     *
+     * @return The bounding rectangle of the filled pixels, or {@code null} if nothing was filled.
      */
-    public void fill(int x, int y, Color newColor, int tolerance) {
+    private Rectangle fillRegion(int x, int y, Color newColor, int tolerance) {
         if (!isInsideBounds(x, y)) {
-            LoggingHelper.log("FloodFill: Startkoordinaten außerhalb des gültigen Bereichs! (" + x + ", " + y + ")");
-            return;
+            logger.debug(() -> "FloodFill: Startkoordinaten außerhalb des gültigen Bereichs! (" + x + ", " + y + ")");
+            return null;
         }
 
-        int targetColor = canvas.getRGB(x, y);
-        if (targetColor == newColor.getRGB()) return;
+        int targetColor = getPixel(x, y);
+        int newRGB = newColor.getRGB();
+        if (targetColor == newRGB) return null;
+
+        boolean isParallelAvailable = canvas.getTilesY() > 1 && Runtime.getRuntime().availableProcessors() > 1;
+        this.targetRed = (targetColor >> 16) & 0xFF;
+        this.targetGreen = (targetColor >> 8) & 0xFF;
+        this.targetBlue = targetColor & 0xFF;
+        this.tolerance = tolerance;
+
+        // Filled pixels only need to be tracked if the new colour would still match the target
+        this.visited = colorWithinTolerance(newRGB) ? acquireVisited() : null;
 
-        Deque<Point> stack = new ArrayDeque<>();
-        stack.push(new Point(x, y));
+        int minX = x, minY = y, maxX = x, maxY = y;
+        stackSize = 0;
+        push(x, y);
 
-        while (!stack.isEmpty()) {
-            Point p = stack.pop();
+        while (stackSize > 0) {
+            int py = stack[--stackSize];
+            int px = stack[--stackSize];
+            if (!isFillable(px, py)) continue;
 
-            // Ensure pixel is within bounds and has not been visited
-            if (!isInsideBounds(p.x, p.y) || visited[p.x][p.y]) continue;
+            // Expand the span to the left and right
+            int left = px;
+            while (left > 0 && isFillable(left - 1, py)) left--;
+            int right = px;
+            while (right < width - 1 && isFillable(right + 1, py)) right++;
 
-            // Check if the colour is within the tolerance range
-            if (!colorWithinTolerance(canvas.getRGB(p.x, p.y), targetColor, tolerance)) continue;
+            fillSpan(left, right, py, newRGB);
+            minX = Math.min(minX, left);
+            maxX = Math.max(maxX, right);
+            minY = Math.min(minY, py);
+            maxY = Math.max(maxY, py);
+
+            // Seed one point per fillable span in the rows above and below
+            if (py > 0) pushSpans(left, right, py - 1);
+            if (py < height - 1) pushSpans(left, right, py + 1);
+
+            if (isParallelAvailable && filledPixels >= PARALLEL_THRESHOLD && stackSize > 0) break;
+        }
 
-            // Fill the pixel with the new colour
-            canvas.setRGB(p.x, p.y, newColor.getRGB());
-            visited[p.x][p.y] = true;
+        Rectangle filled = new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        if (stackSize > 0) {
+            // Large fill: the parallel fill continues from the remaining seeds and skips the pixels filled so far
+            ParallelFloodFill parallelFill = new ParallelFloodFill(canvas, targetColor, newRGB, tolerance, visited);
+            Rectangle parallelFilled = parallelFill.fill(stack, stackSize);
+            filledPixels += parallelFill.getFilledPixels();
+            stackSize = 0;
+            if (parallelFilled != null) {
+                filled = filled.union(parallelFilled);
+            }
+        }
 
-            // Add neighbouring pixels to the stack
-            stack.push(new Point(p.x + 1, p.y));
-            stack.push(new Point(p.x - 1, p.y));
-            stack.push(new Point(p.x, p.y + 1));
-            stack.push(new Point(p.x, p.y - 1));
+        if (visited != null) {
+            clearVisitedRows(minY, maxY);
         }
+        return filled;
     }
 
     /**
@@ -74,22 +162,130 @@ public class FloodFill {
      * @return true if the coordinates are within bounds, false otherwise.
      */
     private boolean isInsideBounds(int x, int y) {
-        return x >= 0 && y >= 0 && x < canvas.getWidth() && y < canvas.getHeight();
+        return x >= 0 && y >= 0 && x < width && y < height;
     }
 
     /**
-     * Determines whether two colours are within the specified tolerance.
+     * Determines whether a colour is within the specified tolerance of the target colour.
+     * Only the RGB channels are compared, the alpha channel is ignored.
      *
-     * @param color1    The first colour value.
-     * @param color2    The second colour value.
-     * @param tolerance The acceptable colour difference.
-     * @return true if the colours are within the tolerance, false otherwise.
+     * @param rgb The packed ARGB colour value.
+     * @return true if the colour is within the tolerance, false otherwise.
+     */
+    private boolean colorWithinTolerance(int rgb) {
+        return Math.abs(((rgb >> 16) & 0xFF) - targetRed) <= tolerance &&
+                Math.abs(((rgb >> 8) & 0xFF) - targetGreen) <= tolerance &&
+                Math.abs((rgb & 0xFF) - targetBlue) <= tolerance;
+    }
+
+    /**
+     * Checks whether a pixel has not been filled yet and matches the target colour.
+     */
+    private boolean isFillable(int x, int y) {
+        if (visited != null) {
+            long bit = (long) y * width + x;
+            if ((visited[(int) (bit >>> 6)] & (1L << bit)) != 0) return false;
+        }
+        return colorWithinTolerance(getPixel(x, y));
+    }
+
+    /**
+     * Pushes a seed for every run of fillable pixels in row y between left and right.
+     */
+    private void pushSpans(int left, int right, int y) {
+        boolean inSpan = false;
+        for (int x = left; x <= right; x++) {
+            if (isFillable(x, y)) {
+                if (!inSpan) {
+                    push(x, y);
+                    inSpan = true;
+                }
+            } else {
+                inSpan = false;
+            }
+        }
+    }
+
+    /**
+     * Fills the pixels from left to right (inclusive) in row y and marks them as visited.
+     */
+    private void fillSpan(int left, int right, int y, int rgb) {
+        int rowOffset = (y & TILE_MASK) << TILE_SHIFT;
+        filledPixels += right - left + 1;
+        int x = left;
+        while (x <= right) {
+            int tileEnd = Math.min(right, x | TILE_MASK);
+            int[] pixels = writablePixels(x >> TILE_SHIFT, y >> TILE_SHIFT);
+            Arrays.fill(pixels, rowOffset + (x & TILE_MASK), rowOffset + (tileEnd & TILE_MASK) + 1, rgb);
+            x = tileEnd + 1;
+        }
+
+        if (visited != null) {
+            long start = (long) y * width + left;
+            long end = (long) y * width + right;
+            for (long bit = start; bit <= end; bit++) {
+                visited[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Reads a pixel from the cached tile arrays.
+     */
+    private int getPixel(int x, int y) {
+        int index = (y >> TILE_SHIFT) * canvas.getTilesX() + (x >> TILE_SHIFT);
+        int[] pixels = tilePixels[index];
+        if (pixels == null) {
+            pixels = canvas.getTilePixels(x >> TILE_SHIFT, y >> TILE_SHIFT);
+            if (pixels == null) return backgroundRGB;
+            tilePixels[index] = pixels;
+        }
+        return pixels[((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK)];
+    }
+
+    /**
+     * Returns the writable pixel array of a tile, replacing the cached read-only array.
+     */
+    private int[] writablePixels(int tx, int ty) {
+        int index = ty * canvas.getTilesX() + tx;
+        if (!isWritable[index]) {
+            tilePixels[index] = canvas.getWritableTilePixels(tx, ty);
+            isWritable[index] = true;
+        }
+        return tilePixels[index];
+    }
+
+    /**
+     * Pushes a seed onto the primitive stack, growing it if necessary.
+     */
+    private void push(int x, int y) {
+        if (stackSize + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[stackSize++] = x;
+        stack[stackSize++] = y;
+    }
+
+    /**
+     * Returns the reusable visited bitset of the current thread, large enough for the canvas.
+     * The bitset is expected to be cleared.
+     */
+    private long[] acquireVisited() {
+        int words = (int) (((long) width * height + 63) >>> 6);
+        long[] bits = reusableVisited.get();
+        if (bits.length < words) {
+            bits = new long[words];
+            reusableVisited.set(bits);
+        }
+        return bits;
+    }
+
+    /**
+     * Clears the visited bits of the given rows so that the bitset can be reused by the next fill.
      */
-    private boolean colorWithinTolerance(int color1, int color2, int tolerance) {
-        Color c1 = new Color(color1, true);
-        Color c2 = new Color(color2, true);
-        return (Math.abs(c1.getRed() - c2.getRed()) <= tolerance &&
-                Math.abs(c1.getGreen() - c2.getGreen()) <= tolerance &&
-                Math.abs(c1.getBlue() - c2.getBlue()) <= tolerance);
+    private void clearVisitedRows(int firstRow, int lastRow) {
+        int fromWord = (int) (((long) firstRow * width) >>> 6);
+        int toWord = (int) ((((long) lastRow + 1) * width + 63) >>> 6);
+        Arrays.fill(visited, fromWord, Math.min(toWord, visited.length), 0L);
     }
 }
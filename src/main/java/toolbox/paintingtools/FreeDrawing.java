@@ -3,13 +3,26 @@ package toolbox.paintingtools;
 import model.PaintingModel;
 
 import java.awt.*;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
 
 /**
  * Handles freehand drawing, including circles and lines, using the current painting settings.
+ * <p>
+ * Freehand strokes are coalesced: the points of a stroke are buffered by {@link #addStrokePoint(int, int)}
+ * and rasterized together as one polyline with round joins by {@link #flushStroke()}, which the caller
+ * invokes once per display frame. The rendering cost per frame is therefore independent of the input rate.
+ * </p>
  */
 public class FreeDrawing {
     private final PaintingModel paintingModel;
-    private final Graphics2D g2d;
+
+    private final Path2D.Float strokePath = new Path2D.Float();
+    private int[] pendingPoints = new int[64]; // x, y pairs not rasterized yet
+    private int pendingCount;
+    private int lastX;
+    private int lastY;
+    private boolean isStrokeEraser;
 
     /**
      * Creates a new instance for freehand drawing.
@@ -18,7 +31,6 @@ public class FreeDrawing {
      */
     public FreeDrawing(PaintingModel paintingModel) {
         this.paintingModel = paintingModel;
-        this.g2d = paintingModel.getG2D();
     }
 
     /**
@@ -32,27 +44,104 @@ public class FreeDrawing {
     public void drawPoint(int x, int y, PaintingTool selectedTool) {
         int size = paintingModel.getStrokeWidth();
 
-        g2d.setColor(selectedTool == PaintingTool.ERASER ?
-                paintingModel.getBackgroundColour() : paintingModel.getCurrentColour());
+        Color colour = selectedTool == PaintingTool.ERASER ?
+                paintingModel.getBackgroundColour() : paintingModel.getCurrentColour();
 
         float correctedX = x - (size / 2.0f);
         float correctedY = y - (size / 2.0f);
+        int left = Math.round(correctedX);
+        int top = Math.round(correctedY);
+
+        paintingModel.paint(new Rectangle(left - 1, top - 1, size + 2, size + 2), g2d -> {
+            g2d.setColor(colour);
+            g2d.fillOval(left, top, size, size);
+        });
+    }
+
+    /**
+     * Sets a small square point at the given coordinates (used for brush sizes of up to 2 px).
+     *
+     * @param x The X-coordinate of the point.
+     * @param y The Y-coordinate of the point.
+     * @param selectedTool The currently selected painting tool.
+     */
+    public void drawSquarePoint(int x, int y, PaintingTool selectedTool) {
+        int size = paintingModel.getStrokeWidth();
 
-        g2d.fillOval(Math.round(correctedX), Math.round(correctedY), size, size);
+        Color colour = selectedTool == PaintingTool.ERASER ?
+                paintingModel.getBackgroundColour() : paintingModel.getCurrentColour();
+
+        paintingModel.paint(new Rectangle(x, y, size, size), g2d -> {
+            g2d.setColor(colour);
+            g2d.fillRect(x, y, size, size);
+        });
     }
 
     /**
-     * Draws a freehand line between two points using the selected tool's settings.
+     * Starts a new freehand stroke at the given point.
      *
-     * @param x1 The starting X-coordinate.
-     * @param y1 The starting Y-coordinate.
-     * @param x2 The ending X-coordinate.
-     * @param y2 The ending Y-coordinate.
+     * @param x The starting X-coordinate.
+     * @param y The starting Y-coordinate.
      * @param isEraser Whether the tool is an eraser (true) or a drawing tool (false).
      */
-    public void freeDrawing(int x1, int y1, int x2, int y2, boolean isEraser) {
-        g2d.setColor(isEraser ? paintingModel.getBackgroundColour() : paintingModel.getCurrentColour());
-        g2d.setStroke(new BasicStroke(paintingModel.getStrokeWidth(), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-        g2d.drawLine(x1, y1, x2, y2);
+    public void beginStroke(int x, int y, boolean isEraser) {
+        this.lastX = x;
+        this.lastY = y;
+        this.isStrokeEraser = isEraser;
+        this.pendingCount = 0;
+    }
+
+    /**
+     * Buffers a point of the current stroke. Nothing is drawn until {@link #flushStroke()} is called.
+     *
+     * @param x The X-coordinate of the point.
+     * @param y The Y-coordinate of the point.
+     */
+    public void addStrokePoint(int x, int y) {
+        int previousX = pendingCount == 0 ? lastX : pendingPoints[pendingCount - 2];
+        int previousY = pendingCount == 0 ? lastY : pendingPoints[pendingCount - 1];
+        if (x == previousX && y == previousY) return;
+
+        if (pendingCount + 2 > pendingPoints.length) {
+            pendingPoints = Arrays.copyOf(pendingPoints, pendingPoints.length * 2);
+        }
+        pendingPoints[pendingCount++] = x;
+        pendingPoints[pendingCount++] = y;
+    }
+
+    /**
+     * Draws all buffered points of the current stroke as one polyline with round joins,
+     * continuing from the last drawn point.
+     */
+    public void flushStroke() {
+        if (pendingCount == 0) return;
+
+        Color colour = isStrokeEraser ? paintingModel.getBackgroundColour() : paintingModel.getCurrentColour();
+        int strokeWidth = paintingModel.getStrokeWidth();
+        Stroke stroke = StrokeCache.get(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+        int minX = lastX, minY = lastY, maxX = lastX, maxY = lastY;
+        strokePath.reset();
+        strokePath.moveTo(lastX, lastY);
+        for (int i = 0; i < pendingCount; i += 2) {
+            int x = pendingPoints[i];
+            int y = pendingPoints[i + 1];
+            strokePath.lineTo(x, y);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        lastX = pendingPoints[pendingCount - 2];
+        lastY = pendingPoints[pendingCount - 1];
+        pendingCount = 0;
+
+        Rectangle bounds = new Rectangle(minX, minY, maxX - minX, maxY - minY);
+        bounds.grow(strokeWidth, strokeWidth);
+        paintingModel.paint(bounds, g2d -> {
+            g2d.setColor(colour);
+            g2d.setStroke(stroke);
+            g2d.draw(strokePath);
+        });
     }
-}
+}
\ No newline at end of file
@@ -5,7 +5,7 @@ package toolbox.paintingtools;
  */
 public enum PaintingTool {
 
-    /** Tool for filling an area with a selected colour. */
+    /** Tool for filling an area with a selected colour. See {@link FillMode} for the available modes. */
     FILL,
 
     /** Tool for erasing content by painting with the background colour. */
@@ -34,4 +34,16 @@ public enum PaintingTool {
     public String getDisplayName() {
         return name().charAt(0) + name().substring(1).toLowerCase();
     }
+
+    /**
+     * Enum representing the modes of the {@link #FILL} tool.
+     */
+    public enum FillMode {
+
+        /** Fills the area connected to the clicked pixel (paint bucket). */
+        CONTIGUOUS,
+
+        /** Replaces the clicked colour on the whole canvas, whether the pixels are connected or not. */
+        GLOBAL
+    }
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package toolbox.paintingtools;
+
+import model.TiledCanvas;
+
+import java.awt.*;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parallel variant of the scanline flood fill for very large fills. It continues a serial {@link FloodFill}
+ * from the seeds that fill has left over.
+ * <p>
+ * The canvas is partitioned into horizontal strips, one per row of tiles. Each strip is filled by at most
+ * one {@link ForkJoinPool} task at a time, so pixels, tiles and visited bits of a strip are never shared
+ * between threads. When a span reaches the border of its strip, it is handed over to the neighbouring strip,
+ * whose task is forked if it is not already running. The filled region is the same as with the serial fill.
+ * </p>
+ */
+class ParallelFloodFill {
+    private static final int TILE_SHIFT = TiledCanvas.TILE_SHIFT;
+    private static final int TILE_MASK = TiledCanvas.TILE_SIZE - 1;
+
+    private final TiledCanvas canvas;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int wordsPerRow;
+    private final int targetRed;
+    private final int targetGreen;
+    private final int targetBlue;
+    private final int tolerance;
+    private final int newRGB;
+    private final boolean isVisitedTracked;
+    private final long[] filledBefore; // Visited bits of the serial fill (one bit per pixel), only read
+    private final Strip[] strips;
+    private long filledPixels;
+
+    /**
+     * Prepares a parallel fill.
+     *
+     * @param canvas      The canvas to fill.
+     * @param targetColor The colour of the starting pixel.
+     * @param newRGB      The packed colour to fill with.
+     * @param tolerance   The allowed colour difference.
+     * @param filledBefore The visited bits of the serial fill that is continued, or {@code null} if filled
+     *                     pixels can never match again.
+     */
+    ParallelFloodFill(TiledCanvas canvas, int targetColor, int newRGB, int tolerance, long[] filledBefore) {
+        this.canvas = canvas;
+        this.width = canvas.getWidth();
+        this.height = canvas.getHeight();
+        this.tilesX = canvas.getTilesX();
+        this.wordsPerRow = (width + 63) >>> 6; // Rows never share a word, so strips never share one either
+        this.targetRed = (targetColor >> 16) & 0xFF;
+        this.targetGreen = (targetColor >> 8) & 0xFF;
+        this.targetBlue = targetColor & 0xFF;
+        this.tolerance = tolerance;
+        this.newRGB = newRGB;
+        this.isVisitedTracked = colorWithinTolerance(newRGB);
+        this.filledBefore = filledBefore;
+
+        this.strips = new Strip[canvas.getTilesY()];
+        for (int i = 0; i < strips.length; i++) {
+            strips[i] = new Strip(i);
+        }
+    }
+
+    /**
+     * Fills the region connected to the given seeds.
+     *
+     * @param seeds     The seed points as pairs of x- and y-coordinates.
+     * @param seedCount The number of used array entries (twice the number of seeds).
+     * @return The bounding rectangle of the pixels filled by this fill, or {@code null} if nothing was filled.
+     */
+    Rectangle fill(int[] seeds, int seedCount) {
+        List<StripTask> forked = new ArrayList<>();
+        for (int i = 0; i < seedCount; i += 2) {
+            strips[seeds[i + 1] >> TILE_SHIFT].post(seeds[i], seeds[i], seeds[i + 1], forked);
+        }
+        for (StripTask task : forked) {
+            task.join();
+        }
+
+        Rectangle bounds = null;
+        for (Strip strip : strips) {
+            filledPixels += strip.filledPixels;
+            if (strip.maxX < 0) continue;
+            Rectangle stripBounds = new Rectangle(strip.minX, strip.minY, strip.maxX - strip.minX + 1, strip.maxY - strip.minY + 1);
+            bounds = (bounds == null) ? stripBounds : bounds.union(stripBounds);
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the number of pixels changed by {@link #fill(int[], int)}.
+     *
+     * @return The number of filled pixels.
+     */
+    long getFilledPixels() {
+        return filledPixels;
+    }
+
+    /**
+     * Determines whether a colour is within the tolerance of the target colour (RGB channels only).
+     */
+    private boolean colorWithinTolerance(int rgb) {
+        return Math.abs(((rgb >> 16) & 0xFF) - targetRed) <= tolerance &&
+                Math.abs(((rgb >> 8) & 0xFF) - targetGreen) <= tolerance &&
+                Math.abs((rgb & 0xFF) - targetBlue) <= tolerance;
+    }
+
+    /**
+     * A horizontal strip of the canvas (one row of tiles) with its own seed stack and visited bits.
+     */
+    private final class Strip {
+        private final int top;
+        private final int bottom; // inclusive
+        private final int tileRow;
+        private final int[][] tilePixels;
+        private final boolean[] isWritable;
+        private final Queue<int[]> inbox = new ConcurrentLinkedQueue<>(); // Spans {left, right, y} handed over by neighbours
+        private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+        private long[] visited;
+        private int[] stack = new int[64];
+        private int stackSize;
+        private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        private long filledPixels;
+
+        /**
+         * Constructs the strip for the given row of tiles.
+         *
+         * @param tileRow The tile row.
+         */
+        private Strip(int tileRow) {
+            this.tileRow = tileRow;
+            this.top = tileRow << TILE_SHIFT;
+            this.bottom = Math.min(height, top + TiledCanvas.TILE_SIZE) - 1;
+            this.tilePixels = new int[tilesX][];
+            this.isWritable = new boolean[tilesX];
+        }
+
+        /**
+         * Processes all spans handed over to this strip and everything reachable from them inside the strip.
+         *
+         * @param forked Collects the tasks forked for neighbouring strips.
+         */
+        private void process(List<StripTask> forked) {
+            int[] span;
+            while ((span = inbox.poll()) != null) {
+                pushSpans(span[0], span[1], span[2]);
+            }
+
+            while (stackSize > 0) {
+                int py = stack[--stackSize];
+                int px = stack[--stackSize];
+                if (!isFillable(px, py)) continue;
+
+                int left = px;
+                while (left > 0 && isFillable(left - 1, py)) left--;
+                int right = px;
+                while (right < width - 1 && isFillable(right + 1, py)) right++;
+
+                fillSpan(left, right, py);
+
+                if (py > top) pushSpans(left, right, py - 1);
+                else if (py > 0) strips[tileRow - 1].post(left, right, py - 1, forked);
+
+                if (py < bottom) pushSpans(left, right, py + 1);
+                else if (py < height - 1) strips[tileRow + 1].post(left, right, py + 1, forked);
+            }
+        }
+
+        /**
+         * Hands a span over to this strip and forks its task if it is not running yet.
+         */
+        private void post(int left, int right, int y, List<StripTask> forked) {
+            inbox.add(new int[]{left, right, y});
+            if (isScheduled.compareAndSet(false, true)) {
+                StripTask task = new StripTask(this);
+                task.fork();
+                forked.add(task);
+            }
+        }
+
+        /**
+         * Releases the strip after processing.
+         *
+         * @return {@code true} if new spans arrived meanwhile and this task has to continue.
+         */
+        private boolean finish() {
+            isScheduled.set(false);
+            return !inbox.isEmpty() && isScheduled.compareAndSet(false, true);
+        }
+
+        private boolean isFillable(int x, int y) {
+            if (isVisitedTracked && visited != null) {
+                int bit = (y - top) * wordsPerRow * 64 + x;
+                if ((visited[bit >>> 6] & (1L << bit)) != 0) return false;
+            }
+            if (filledBefore != null) {
+                long bit = (long) y * width + x;
+                if ((filledBefore[(int) (bit >>> 6)] & (1L << bit)) != 0) return false;
+            }
+            return colorWithinTolerance(getPixel(x, y));
+        }
+
+        private void pushSpans(int left, int right, int y) {
+            boolean inSpan = false;
+            for (int x = left; x <= right; x++) {
+                if (isFillable(x, y)) {
+                    if (!inSpan) {
+                        push(x, y);
+                        inSpan = true;
+                    }
+                } else {
+                    inSpan = false;
+                }
+            }
+        }
+
+        private void fillSpan(int left, int right, int y) {
+            filledPixels += right - left + 1;
+            int rowOffset = (y & TILE_MASK) << TILE_SHIFT;
+            int x = left;
+            while (x <= right) {
+                int tileEnd = Math.min(right, x | TILE_MASK);
+                int[] pixels = writablePixels(x >> TILE_SHIFT);
+                Arrays.fill(pixels, rowOffset + (x & TILE_MASK), rowOffset + (tileEnd & TILE_MASK) + 1, newRGB);
+                x = tileEnd + 1;
+            }
+
+            if (isVisitedTracked) {
+                if (visited == null) {
+                    visited = new long[(bottom - top + 1) * wordsPerRow];
+                }
+                int rowStart = (y - top) * wordsPerRow * 64;
+                for (int bit = rowStart + left; bit <= rowStart + right; bit++) {
+                    visited[bit >>> 6] |= 1L << bit;
+                }
+            }
+
+            minX = Math.min(minX, left);
+            maxX = Math.max(maxX, right);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        private int getPixel(int x, int y) {
+            int tx = x >> TILE_SHIFT;
+            int[] pixels = tilePixels[tx];
+            if (pixels == null) {
+                pixels = canvas.getTilePixels(tx, tileRow);
+                if (pixels == null) return canvas.getBackgroundRGB();
+                tilePixels[tx] = pixels;
+            }
+            return pixels[((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK)];
+        }
+
+        private int[] writablePixels(int tx) {
+            if (!isWritable[tx]) {
+                tilePixels[tx] = canvas.getWritableTilePixels(tx, tileRow);
+                isWritable[tx] = true;
+            }
+            return tilePixels[tx];
+        }
+
+        private void push(int x, int y) {
+            if (stackSize + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[stackSize++] = x;
+            stack[stackSize++] = y;
+        }
+    }
+
+    /**
+     * Fork-join task processing one strip. Tasks forked for neighbouring strips are joined before it completes,
+     * so the root task only returns once the whole region has been filled.
+     */
+    private final class StripTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final transient Strip strip; // Tasks are never serialized
+
+        private StripTask(Strip strip) {
+            this.strip = strip;
+        }
+
+        @Override
+        protected void compute() {
+            List<StripTask> forked = new ArrayList<>();
+            do {
+                strip.process(forked);
+            } while (strip.finish());
+
+            for (StripTask task : forked) {
+                task.join();
+            }
+        }
+    }
+}
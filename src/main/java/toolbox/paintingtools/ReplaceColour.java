@@ -0,0 +1,149 @@
+package toolbox.paintingtools;
+
+import model.TiledCanvas;
+import toolbox.LoggingHelper;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Implements the global (non-contiguous) fill mode: every pixel of the canvas that matches the colour of
+ * the clicked pixel within a tolerance is replaced by the new colour, whether it is connected or not.
+ * <p>
+ * The tiles of the canvas are processed in parallel. The per-channel tolerance check is branch-free,
+ * so the inner loop can be vectorised by the JIT compiler. Tiles without any matching pixel are only read,
+ * which keeps tiles shared with the undo history untouched.
+ * </p>
+ */
+public class ReplaceColour {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(ReplaceColour.class);
+    private static final int TILE_SHIFT = TiledCanvas.TILE_SHIFT;
+    private static final int TILE_SIZE = TiledCanvas.TILE_SIZE;
+
+    private final TiledCanvas canvas;
+
+    private int targetRed;
+    private int targetGreen;
+    private int targetBlue;
+    private int tolerance;
+
+    /**
+     * Constructs a ReplaceColour instance with the specified canvas.
+     *
+     * @param canvas The canvas on which the colour will be replaced.
+     */
+    public ReplaceColour(TiledCanvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /**
+     * Replaces the colour of the pixel at the given point on the whole canvas.
+     *
+     * @param x         The x-coordinate of the pixel whose colour is replaced.
+     * @param y         The y-coordinate of the pixel whose colour is replaced.
+     * @param newColor  The colour to apply.
+     * @param tolerance The allowed colour difference per channel.
+     * @return The bounding rectangle of the changed tiles, or {@code null} if nothing was changed.
+     */
+    public Rectangle replace(int x, int y, Color newColor, int tolerance) {
+        if (x < 0 || y < 0 || x >= canvas.getWidth() || y >= canvas.getHeight()) {
+            logger.debug(() -> "ReplaceColour: Koordinaten außerhalb des gültigen Bereichs! (" + x + ", " + y + ")");
+            return null;
+        }
+
+        int targetColor = canvas.getRGB(x, y);
+        int newRGB = newColor.getRGB();
+        if (targetColor == newRGB) return null;
+
+        this.targetRed = (targetColor >> 16) & 0xFF;
+        this.targetGreen = (targetColor >> 8) & 0xFF;
+        this.targetBlue = targetColor & 0xFF;
+        this.tolerance = tolerance;
+
+        int tilesX = canvas.getTilesX();
+        boolean[] isChanged = new boolean[tilesX * canvas.getTilesY()];
+        IntStream.range(0, isChanged.length)
+                .parallel()
+                .forEach(index -> isChanged[index] = replaceInTile(index % tilesX, index / tilesX, newRGB));
+
+        Rectangle bounds = null;
+        for (int index = 0; index < isChanged.length; index++) {
+            if (!isChanged[index]) continue;
+            Rectangle tileBounds = tileBounds(index % tilesX, index / tilesX);
+            bounds = (bounds == null) ? tileBounds : bounds.union(tileBounds);
+        }
+        return bounds;
+    }
+
+    /**
+     * Replaces the matching pixels of a single tile. Only the part of the tile inside the canvas is processed.
+     *
+     * @return true if at least one pixel was replaced, false otherwise.
+     */
+    private boolean replaceInTile(int tx, int ty, int newRGB) {
+        Rectangle area = tileBounds(tx, ty);
+        int[] pixels = canvas.getTilePixels(tx, ty);
+
+        if (pixels == null) {
+            // A blank tile consists of the background colour only
+            if (matchMask(canvas.getBackgroundRGB()) == 0) return false;
+            pixels = canvas.getWritableTilePixels(tx, ty);
+            for (int row = 0; row < area.height; row++) {
+                Arrays.fill(pixels, row << TILE_SHIFT, (row << TILE_SHIFT) + area.width, newRGB);
+            }
+            return true;
+        }
+
+        int firstRow = findFirstMatchingRow(pixels, area.width, area.height);
+        if (firstRow < 0) return false;
+
+        pixels = canvas.getWritableTilePixels(tx, ty);
+        for (int row = firstRow; row < area.height; row++) {
+            int offset = row << TILE_SHIFT;
+            for (int i = offset; i < offset + area.width; i++) {
+                int mask = matchMask(pixels[i]);
+                pixels[i] = (newRGB & mask) | (pixels[i] & ~mask);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches the first tile row containing a matching pixel, without modifying the tile.
+     *
+     * @return The row index, or -1 if no pixel of the tile matches.
+     */
+    private int findFirstMatchingRow(int[] pixels, int width, int height) {
+        for (int row = 0; row < height; row++) {
+            int offset = row << TILE_SHIFT;
+            int matches = 0;
+            for (int i = offset; i < offset + width; i++) {
+                matches |= matchMask(pixels[i]);
+            }
+            if (matches != 0) return row;
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the RGB channels of a colour with the target colour without branching.
+     *
+     * @param rgb The packed ARGB colour value.
+     * @return -1 (all bits set) if every channel is within the tolerance, 0 otherwise.
+     */
+    private int matchMask(int rgb) {
+        int difference = Math.max(Math.abs(((rgb >> 16) & 0xFF) - targetRed),
+                Math.max(Math.abs(((rgb >> 8) & 0xFF) - targetGreen), Math.abs((rgb & 0xFF) - targetBlue)));
+        return ~((tolerance - difference) >> 31);
+    }
+
+    /**
+     * Returns the part of a tile that lies inside the canvas.
+     */
+    private Rectangle tileBounds(int tx, int ty) {
+        int x = tx << TILE_SHIFT;
+        int y = ty << TILE_SHIFT;
+        return new Rectangle(x, y, Math.min(TILE_SIZE, canvas.getWidth() - x), Math.min(TILE_SIZE, canvas.getHeight() - y));
+    }
+}
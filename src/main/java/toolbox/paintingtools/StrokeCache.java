@@ -0,0 +1,37 @@
+package toolbox.paintingtools;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Caches {@link BasicStroke} instances per (width, cap, join), so that drawing and previews
+ * do not create a new stroke for every operation. Strokes are immutable and can be shared freely.
+ */
+public class StrokeCache {
+    private static final int STYLE_COUNT = 3; // CAP_BUTT/ROUND/SQUARE and JOIN_MITER/ROUND/BEVEL are 0..2
+    private static final BasicStroke[][] strokes = new BasicStroke[STYLE_COUNT * STYLE_COUNT][0];
+
+    /**
+     * Returns the stroke for the given width, cap and join style, creating it on first use.
+     *
+     * @param width The stroke width in pixels (at least 0).
+     * @param cap   The cap style, e.g. {@link BasicStroke#CAP_ROUND}.
+     * @param join  The join style, e.g. {@link BasicStroke#JOIN_ROUND}.
+     * @return The cached stroke.
+     */
+    public static synchronized BasicStroke get(int width, int cap, int join) {
+        int style = cap * STYLE_COUNT + join;
+        BasicStroke[] byWidth = strokes[style];
+        if (width >= byWidth.length) {
+            byWidth = Arrays.copyOf(byWidth, Math.max(width + 1, byWidth.length * 2));
+            strokes[style] = byWidth;
+        }
+
+        BasicStroke stroke = byWidth[width];
+        if (stroke == null) {
+            stroke = new BasicStroke(width, cap, join);
+            byWidth[width] = stroke;
+        }
+        return stroke;
+    }
+}
@@ -0,0 +1,226 @@
+package view.components;
+
+import toolbox.LoggingHelper;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache of rendered display tiles for the painting panel.
+ * <p>
+ * The panel area is split into tiles of {@value #TILE_SIZE} × {@value #TILE_SIZE} screen pixels. A tile is
+ * rendered once at the current zoom level and afterwards only blitted, so scrolling does not resample the
+ * canvas again. Changes invalidate only the affected part of a tile, which is uploaded again the next time
+ * the tile is drawn. Re-rendered parts are cleared to the background colour first, so transparent canvas pixels
+ * never show stale tile contents. The least recently used tiles are dropped once the cache exceeds its memory budget
+ * (system property {@value #BUDGET_PROPERTY} in MB, default {@value #DEFAULT_BUDGET_MB} MB).
+ * </p>
+ * <p>
+ * Tiles are kept in {@link VolatileImage}s, so the rendering pipeline can hold them in video memory even
+ * though the canvas itself changes constantly. Lost contents are restored by rendering the whole tile again.
+ * Setting {@value #BACKING_PROPERTY} to {@code buffered} uses compatible {@link BufferedImage}s instead,
+ * which is also the fallback without a screen. With {@value #STATISTICS_PROPERTY} set to {@code true}, the
+ * average upload and blit times are logged to compare both variants.
+ * </p>
+ */
+public class DisplayTileCache {
+    private static final LoggingHelper.Logger logger = LoggingHelper.getLogger(DisplayTileCache.class);
+    public static final int TILE_SIZE = 256;
+    public static final String BUDGET_PROPERTY = "basicpaint.displayCacheMB";
+    public static final String BACKING_PROPERTY = "basicpaint.displayCache";
+    public static final String STATISTICS_PROPERTY = "basicpaint.blitStatistics";
+    public static final int DEFAULT_BUDGET_MB = 64;
+    private static final int TILE_BYTES = TILE_SIZE * TILE_SIZE * 4;
+    private static final int MAX_RESTORE_ATTEMPTS = 3;
+    private static final int STATISTICS_INTERVAL = 120; // Frames per log entry
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true); // Access order = LRU
+    private final int maxTiles = (int) Math.max(16, Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MB) * 1024 * 1024 / TILE_BYTES);
+    private final boolean isVolatile = !"buffered".equalsIgnoreCase(System.getProperty(BACKING_PROPERTY));
+    private final boolean isStatisticsEnabled = Boolean.getBoolean(STATISTICS_PROPERTY);
+
+    private long uploadNanos;
+    private long blitNanos;
+    private int frames;
+    private int contentsLostCount;
+
+    /**
+     * Draws an area of the panel from the cache, uploading missing or invalidated tiles first.
+     *
+     * @param g             The target graphics context (in panel coordinates).
+     * @param area          The area to draw in panel coordinates.
+     * @param configuration The graphics configuration of the screen, or {@code null} if unknown.
+     * @param background    The colour the re-rendered parts of the tiles are cleared to.
+     * @param renderer      Renders an area of the panel (second argument, in panel coordinates) into a graphics
+     *                      context that is set up in panel coordinates, clipped to that area and cleared to the
+     *                      background.
+     */
+    public void draw(Graphics g, Rectangle area, GraphicsConfiguration configuration, Color background,
+                     BiConsumer<Graphics2D, Rectangle> renderer) {
+        if (area.isEmpty()) return;
+
+        for (int ty = Math.floorDiv(area.y, TILE_SIZE); ty <= Math.floorDiv(area.y + area.height - 1, TILE_SIZE); ty++) {
+            for (int tx = Math.floorDiv(area.x, TILE_SIZE); tx <= Math.floorDiv(area.x + area.width - 1, TILE_SIZE); tx++) {
+                drawTile(g, getEntry(tx, ty, configuration), tx, ty, configuration, background, renderer);
+            }
+        }
+
+        if (isStatisticsEnabled && ++frames == STATISTICS_INTERVAL) {
+            logStatistics();
+        }
+    }
+
+    /**
+     * Marks an area of the panel as changed. Cached tiles are kept and only the changed part is uploaded again.
+     *
+     * @param area The changed area in panel coordinates.
+     */
+    public void invalidate(Rectangle area) {
+        if (area.isEmpty()) return;
+
+        for (int ty = Math.floorDiv(area.y, TILE_SIZE); ty <= Math.floorDiv(area.y + area.height - 1, TILE_SIZE); ty++) {
+            for (int tx = Math.floorDiv(area.x, TILE_SIZE); tx <= Math.floorDiv(area.x + area.width - 1, TILE_SIZE); tx++) {
+                Entry entry = entries.get(key(tx, ty));
+                if (entry == null) continue;
+
+                Rectangle tileArea = area.intersection(tileBounds(tx, ty));
+                entry.dirty = (entry.dirty == null) ? tileArea : entry.dirty.union(tileArea);
+            }
+        }
+    }
+
+    /**
+     * Drops all cached tiles, for example after the zoom level has changed.
+     */
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            entry.image.flush();
+        }
+        entries.clear();
+    }
+
+    /**
+     * Uploads the dirty part of a tile and blits it. If the contents of a volatile tile are lost in between,
+     * the whole tile is rendered again.
+     */
+    private void drawTile(Graphics g, Entry entry, int tx, int ty, GraphicsConfiguration configuration, Color background,
+                          BiConsumer<Graphics2D, Rectangle> renderer) {
+        for (int attempt = 0; attempt < MAX_RESTORE_ATTEMPTS; attempt++) {
+            if (entry.image instanceof VolatileImage volatileImage) {
+                int status = volatileImage.validate(configuration);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    volatileImage.flush();
+                    entry.image = createImage(configuration);
+                    entry.dirty = tileBounds(tx, ty);
+                } else if (status == VolatileImage.IMAGE_RESTORED) {
+                    entry.dirty = tileBounds(tx, ty);
+                }
+            }
+
+            long start = System.nanoTime();
+            if (entry.dirty != null) {
+                render(entry, tx, ty, background, renderer);
+            }
+            long uploaded = System.nanoTime();
+            g.drawImage(entry.image, tx * TILE_SIZE, ty * TILE_SIZE, null);
+            long blitted = System.nanoTime();
+            uploadNanos += uploaded - start;
+            blitNanos += blitted - uploaded;
+
+            if (!(entry.image instanceof VolatileImage volatileImage) || !volatileImage.contentsLost()) return;
+            contentsLostCount++;
+            entry.dirty = tileBounds(tx, ty);
+        }
+    }
+
+    /**
+     * Returns the cache entry of a tile, creating it (fully dirty) and evicting old tiles if necessary.
+     */
+    private Entry getEntry(int tx, int ty, GraphicsConfiguration configuration) {
+        long key = key(tx, ty);
+        Entry entry = entries.get(key);
+        if (entry != null) return entry;
+
+        evictOldest();
+        entry = new Entry(createImage(configuration), tileBounds(tx, ty));
+        entries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Creates the image of a tile: a volatile image if possible, otherwise an image in the screen's native format.
+     */
+    private Image createImage(GraphicsConfiguration configuration) {
+        if (configuration == null) {
+            return new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        }
+        if (isVolatile) {
+            return configuration.createCompatibleVolatileImage(TILE_SIZE, TILE_SIZE, Transparency.OPAQUE);
+        }
+        return configuration.createCompatibleImage(TILE_SIZE, TILE_SIZE, Transparency.OPAQUE);
+    }
+
+    /**
+     * Clears the dirty part of a tile to the background and renders it again.
+     */
+    private void render(Entry entry, int tx, int ty, Color background, BiConsumer<Graphics2D, Rectangle> renderer) {
+        Graphics2D g2d = (Graphics2D) entry.image.getGraphics();
+        g2d.translate(-tx * TILE_SIZE, -ty * TILE_SIZE);
+        g2d.clip(entry.dirty);
+        g2d.setBackground(background);
+        g2d.clearRect(entry.dirty.x, entry.dirty.y, entry.dirty.width, entry.dirty.height);
+        renderer.accept(g2d, entry.dirty);
+        g2d.dispose();
+        entry.dirty = null;
+    }
+
+    /**
+     * Drops the least recently used tiles until there is room for one more tile.
+     */
+    private void evictOldest() {
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxTiles && iterator.hasNext()) {
+            iterator.next().getValue().image.flush();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Logs the average upload and blit time per frame since the last log entry.
+     */
+    private void logStatistics() {
+        logger.info(String.format("Anzeige-Cache (%s): Upload %.3f ms, Blit %.3f ms pro Frame, %d Kacheln, Inhalt %d-mal verloren",
+                isVolatile ? "VolatileImage" : "BufferedImage",
+                uploadNanos / 1e6 / frames, blitNanos / 1e6 / frames, entries.size(), contentsLostCount));
+        uploadNanos = 0;
+        blitNanos = 0;
+        frames = 0;
+        contentsLostCount = 0;
+    }
+
+    private static Rectangle tileBounds(int tx, int ty) {
+        return new Rectangle(tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+    }
+
+    private static long key(int tx, int ty) {
+        return ((long) ty << 32) | (tx & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A cached tile and its area that has to be re-rendered (in panel coordinates, null if up to date).
+     */
+    private static final class Entry {
+        private Image image;
+        private Rectangle dirty;
+
+        private Entry(Image image, Rectangle dirty) {
+            this.image = image;
+            this.dirty = dirty;
+        }
+    }
+}
@@ -26,6 +26,10 @@ public class MenuBarView extends JMenuBar{
     private JMenuItem undoItem;
     private JMenuItem redoItem;
 
+    // View menu and its items
+    private JMenu viewMenu;
+    private JCheckBoxMenuItem performanceOverlayItem;
+
     // MenuBar-ToolBar
     private JToolBar menuBarToolBar;
     private JButton newFileButton;
@@ -42,6 +46,7 @@ public class MenuBarView extends JMenuBar{
         super();
         initFileMenu();
         initEditMenu();
+        initViewMenu();
         addSeparator();
         initMenuBarToolBar();
     }
@@ -63,6 +68,10 @@ public class MenuBarView extends JMenuBar{
     public JMenuItem getUndoItem() { return undoItem; }
     public JMenuItem getRedoItem() {  return redoItem; }
 
+    // View menu getter
+    public JMenu getViewMenu() { return viewMenu; }
+    public JCheckBoxMenuItem getPerformanceOverlayItem() { return performanceOverlayItem; }
+
     // MenuBar-ToolBar getter
     public JButton getNewFileButton() { return newFileButton; }
     public JButton getOpenFileButton() { return openFileButton; }
@@ -109,6 +118,18 @@ public class MenuBarView extends JMenuBar{
         add(editMenu);
     }
 
+    /**
+     * Initializes the View menu and its menu items.
+     */
+    private void initViewMenu() {
+        this.viewMenu = new JMenu("Ansicht");
+        this.performanceOverlayItem = new JCheckBoxMenuItem("Leistungsanzeige");
+
+        viewMenu.add(performanceOverlayItem);
+
+        add(viewMenu);
+    }
+
     /**
      * Initializes the toolbar inside the menu bar with quick action buttons.
      */
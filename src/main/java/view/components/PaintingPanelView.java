@@ -1,22 +1,59 @@
 package view.components;
 
+import model.CanvasMipmap;
+import model.PaintingExecutor;
 import model.PaintingModel;
+import model.TiledCanvas;
+import toolbox.FlightRecorderEvents;
+import toolbox.PerformanceMetrics;
+import toolbox.paintingtools.StrokeCache;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.util.function.BiConsumer;
 
 /**
  * A custom JPanel for displaying and handling painting operations.
+ * <p>
+ * The panel repaints only the areas damaged by changes to the painting model or to the previews.
+ * The canvas can be zoomed from 25 % to 3200 %: zoomed-in views are drawn with nearest-neighbour scaling,
+ * zoomed-out views from a {@link CanvasMipmap}. Previews are kept in canvas coordinates, mouse coordinates
+ * are converted with {@link #toCanvasX(int)} and {@link #toCanvasY(int)}.
+ * </p>
+ * <p>
+ * Only the visible part of the panel is rendered. Rendered areas are kept in a {@link DisplayTileCache},
+ * so scrolling and repainting previews only blit cached tiles.
+ * </p>
+ * <p>
+ * The painting model is owned by a {@link PaintingExecutor}. The panel draws the canvas copies it publishes,
+ * so repainting and the previews never wait for a drawing operation that is still running.
+ * </p>
+ * <p>
+ * Every repaint is timed in {@link PerformanceMetrics} and reported as {@link FlightRecorderEvents.RepaintEvent};
+ * a {@link PerformanceOverlay} can show the results on top of the canvas.
+ * </p>
  */
 public class PaintingPanelView extends JPanel {
+    public static final int[] ZOOM_LEVELS = {25, 50, 75, 100, 150, 200, 300, 400, 800, 1600, 3200};
+
     private final PaintingModel paintingModel;
-    private Dimension paintingPanelDimension;
+    private final transient PaintingExecutor paintingExecutor;
+    private Dimension paintingPanelDimension; // Size of the panel at 100 %
+    private int zoomPercent = 100;
+    private transient CanvasMipmap mipmap; // Only used while zoomed out
+    private final transient DisplayTileCache tileCache = new DisplayTileCache();
+    private final transient BiConsumer<Graphics2D, Rectangle> canvasRenderer = this::renderCanvas;
+    private transient PerformanceOverlay performanceOverlay; // Created when it is first shown
 
     private Shape previewShape = null;
-    private Point previewPoint = null;
+    private final Point previewPoint = new Point();
+    private boolean isPreviewPointVisible = false;
     private boolean isPreviewEraser = false; // Indicates if the preview is for the eraser
+    private final Rectangle previewShapeBounds = new Rectangle(); // Area covered by the preview shape, empty if none
+    private final Rectangle previewPointBounds = new Rectangle(); // Area covered by the preview point, empty if none
 
     /**
      * Constructs a new painting panel with a default size.
@@ -27,6 +64,7 @@ public class PaintingPanelView extends JPanel {
                 (int) paintingPanelDimension.getWidth(),
                 (int) paintingPanelDimension.getHeight()
         );
+        this.paintingExecutor = new PaintingExecutor(paintingModel);
         setPreferredSize(paintingPanelDimension);
         setOpaque(true);
     }
@@ -38,6 +76,144 @@ public class PaintingPanelView extends JPanel {
      */
     public PaintingModel getPaintingModel() { return paintingModel; }
 
+    /**
+     * Retrieves the painting thread that owns the painting model.
+     *
+     * @return The {@link PaintingExecutor} instance.
+     */
+    public PaintingExecutor getPaintingExecutor() { return paintingExecutor; }
+
+    /**
+     * Getter methods for accessing the display properties.
+     */
+    public int getZoomPercent() { return zoomPercent; }
+    public Dimension getDisplaySize() { return new Dimension(paintingPanelDimension); }
+
+    /**
+     * Shows or hides the performance overlay in the top left corner of the visible area.
+     *
+     * @param visible {@code true} to show the overlay.
+     */
+    public void setPerformanceOverlayVisible(boolean visible) {
+        if (performanceOverlay == null) {
+            if (!visible) return;
+            performanceOverlay = new PerformanceOverlay(this);
+        }
+        performanceOverlay.setVisible(visible);
+    }
+
+    /**
+     * Shows a state of the canvas published by the {@link PaintingExecutor}: updates the mipmap and the cached
+     * display tiles of the changed area and repaints it. Called on the EDT.
+     *
+     * @param canvas The published canvas.
+     * @param region The area changed since the previous publication, in canvas coordinates.
+     */
+    public void showPublishedCanvas(TiledCanvas canvas, Rectangle region) {
+        if (mipmap != null && mipmap.getCanvas().getWidth() == canvas.getWidth()
+                && mipmap.getCanvas().getHeight() == canvas.getHeight()) {
+            mipmap.setCanvas(canvas);
+            mipmap.markDirty(region);
+        } else {
+            mipmap = null; // Rebuilt for the new size when it is needed
+        }
+        tileCache.invalidate(toViewRectangle(region));
+        repaintCanvasRegion(region);
+    }
+
+    /**
+     * Sets the size of the panel at 100 % zoom. The actual panel size is scaled by the zoom level.
+     *
+     * @param width  The unscaled width.
+     * @param height The unscaled height.
+     */
+    public void setDisplaySize(int width, int height) {
+        this.paintingPanelDimension = new Dimension(width, height);
+        setPreferredSize(toViewSize(paintingPanelDimension));
+        tileCache.clear();
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Changes the zoom level, keeping the canvas point under the anchor at the same position on screen.
+     *
+     * @param newZoomPercent The new zoom level in percent (clamped to the supported range).
+     * @param anchor         The anchor in panel coordinates, or {@code null} for the centre of the visible area.
+     */
+    public void setZoom(int newZoomPercent, Point anchor) {
+        newZoomPercent = Math.max(ZOOM_LEVELS[0], Math.min(ZOOM_LEVELS[ZOOM_LEVELS.length - 1], newZoomPercent));
+        if (newZoomPercent == zoomPercent) return;
+
+        Rectangle visible = getVisibleRect();
+        if (anchor == null) {
+            anchor = new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+        }
+        double canvasX = anchor.x * 100.0 / zoomPercent;
+        double canvasY = anchor.y * 100.0 / zoomPercent;
+
+        this.zoomPercent = newZoomPercent;
+        if (zoomPercent >= 100) {
+            mipmap = null; // Only needed while zoomed out
+        }
+        tileCache.clear();
+        setPreferredSize(toViewSize(paintingPanelDimension));
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null) {
+            Dimension viewSize = getPreferredSize();
+            Dimension extent = viewport.getExtentSize();
+            viewport.setViewSize(viewSize);
+
+            int x = (int) Math.round(canvasX * zoomPercent / 100.0) - (anchor.x - visible.x);
+            int y = (int) Math.round(canvasY * zoomPercent / 100.0) - (anchor.y - visible.y);
+            x = Math.max(0, Math.min(x, viewSize.width - extent.width));
+            y = Math.max(0, Math.min(y, viewSize.height - extent.height));
+            viewport.setViewPosition(new Point(x, y));
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns the next larger or smaller zoom level.
+     *
+     * @param isZoomIn true for the next larger level, false for the next smaller level.
+     * @return The zoom level in percent.
+     */
+    public int getNextZoomLevel(boolean isZoomIn) {
+        if (isZoomIn) {
+            for (int level : ZOOM_LEVELS) {
+                if (level > zoomPercent) return level;
+            }
+            return ZOOM_LEVELS[ZOOM_LEVELS.length - 1];
+        }
+        for (int i = ZOOM_LEVELS.length - 1; i >= 0; i--) {
+            if (ZOOM_LEVELS[i] < zoomPercent) return ZOOM_LEVELS[i];
+        }
+        return ZOOM_LEVELS[0];
+    }
+
+    /**
+     * Converts a panel x-coordinate into a canvas x-coordinate.
+     *
+     * @param viewX The x-coordinate in the panel.
+     * @return The x-coordinate of the canvas pixel.
+     */
+    public int toCanvasX(int viewX) {
+        return (int) Math.floorDiv(viewX * 100L, zoomPercent);
+    }
+
+    /**
+     * Converts a panel y-coordinate into a canvas y-coordinate.
+     *
+     * @param viewY The y-coordinate in the panel.
+     * @return The y-coordinate of the canvas pixel.
+     */
+    public int toCanvasY(int viewY) {
+        return (int) Math.floorDiv(viewY * 100L, zoomPercent);
+    }
+
     /**
      * Sets a preview shape to be displayed temporarily while drawing.
      *
@@ -45,15 +221,26 @@ public class PaintingPanelView extends JPanel {
      */
     public void setPreviewShape(Shape shape) {
         this.previewShape = shape;
-        repaint();
+
+        if (shape instanceof RectangularShape r) {
+            updatePreviewBounds(previewShapeBounds, true, (int) r.getX(), (int) r.getY(), (int) Math.ceil(r.getWidth()), (int) Math.ceil(r.getHeight()));
+        } else if (shape instanceof Line2D l) {
+            int x = (int) Math.min(l.getX1(), l.getX2());
+            int y = (int) Math.min(l.getY1(), l.getY2());
+            updatePreviewBounds(previewShapeBounds, true, x, y, (int) Math.ceil(Math.abs(l.getX2() - l.getX1())), (int) Math.ceil(Math.abs(l.getY2() - l.getY1())));
+        } else if (shape != null) {
+            Rectangle bounds = shape.getBounds();
+            updatePreviewBounds(previewShapeBounds, true, bounds.x, bounds.y, bounds.width, bounds.height);
+        } else {
+            updatePreviewBounds(previewShapeBounds, false, 0, 0, 0, 0);
+        }
     }
 
     /**
      * Clears the preview shape after drawing is completed.
      */
     public void clearPreviewShape() {
-        this.previewShape = null;
-        repaint();
+        setPreviewShape(null);
     }
 
     /**
@@ -63,17 +250,51 @@ public class PaintingPanelView extends JPanel {
      * @param isEraser   True if eraser is active, false for normal brush.
      */
     public void setPreviewPoint(Point point, boolean isEraser) {
-        this.previewPoint = point;
+        if (point == null) {
+            clearPreviewPoint();
+        } else {
+            setPreviewPoint(point.x, point.y, isEraser);
+        }
+    }
+
+    /**
+     * Sets the preview point for eraser or brush cursor indication without allocating a point.
+     *
+     * @param x          The x-coordinate of the point.
+     * @param y          The y-coordinate of the point.
+     * @param isEraser   True if eraser is active, false for normal brush.
+     */
+    public void setPreviewPoint(int x, int y, boolean isEraser) {
+        this.previewPoint.setLocation(x, y);
+        this.isPreviewPointVisible = true;
         this.isPreviewEraser = isEraser;
-        repaint();
+        updatePreviewBounds(previewPointBounds, true, x, y, 0, 0);
     }
 
     /**
      * Clears the preview point, removing the visual indicator.
      */
     public void clearPreviewPoint() {
-        this.previewPoint = null;
-        repaint();
+        this.isPreviewPointVisible = false;
+        updatePreviewBounds(previewPointBounds, false, 0, 0, 0, 0);
+    }
+
+    /**
+     * Repaints the preview point, for example after the stroke width has changed.
+     */
+    public void refreshPreviewPoint() {
+        if (isPreviewPointVisible) {
+            setPreviewPoint(previewPoint.x, previewPoint.y, isPreviewEraser);
+        }
+    }
+
+    /**
+     * Repaints an area of the canvas.
+     *
+     * @param region The area in canvas coordinates.
+     */
+    public void repaintCanvasRegion(Rectangle region) {
+        repaint(toViewRectangle(region));
     }
 
     /**
@@ -83,13 +304,69 @@ public class PaintingPanelView extends JPanel {
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        g.drawImage(paintingModel.getCanvas(), 0, 0, null);
+        FlightRecorderEvents.RepaintEvent event = new FlightRecorderEvents.RepaintEvent();
+        long start = System.nanoTime();
+        event.begin();
+        // Only the visible part of the clip is rendered, however large the canvas is
+        Rectangle clip = g.getClipBounds();
+        Rectangle area = (clip != null) ? clip.intersection(getVisibleRect()) : getVisibleRect();
+        tileCache.draw(g, area, getGraphicsConfiguration(), getBackground(), canvasRenderer);
 
         Graphics2D g2d = (Graphics2D) g.create();
+        g2d.scale(zoomPercent / 100.0, zoomPercent / 100.0);
         drawPreviewShape(g2d);
         drawPreviewPoint(g2d);
         g2d.dispose();
+        PerformanceMetrics.REPAINT.recordSince(start);
+        PerformanceMetrics.countFrame();
+        if (event.shouldCommit()) {
+            event.clipWidth = area.width;
+            event.clipHeight = area.height;
+            event.zoomPercent = zoomPercent;
+            event.commit();
+        }
+
+        if (performanceOverlay != null) {
+            performanceOverlay.paint(g);
+        }
+    }
+
+    /**
+     * Renders an area of the panel at the current zoom level. Used by the {@link DisplayTileCache}
+     * to fill its tiles; the area has been cleared to the panel background, which shows outside the
+     * canvas and through transparent canvas pixels.
+     *
+     * @param g        The graphics context in panel coordinates, clipped to the area.
+     * @param viewArea The area to render in panel coordinates.
+     */
+    private void renderCanvas(Graphics2D g, Rectangle viewArea) {
+        TiledCanvas canvas = paintingExecutor.getPublishedCanvas();
+
+        // The part of the canvas covered by the area
+        int left = toCanvasX(viewArea.x);
+        int top = toCanvasY(viewArea.y);
+        Rectangle area = new Rectangle(left, top,
+                toCanvasX(viewArea.x + viewArea.width - 1) - left + 1, toCanvasY(viewArea.y + viewArea.height - 1) - top + 1);
+        double scale = zoomPercent / 100.0;
+
+        Graphics2D g2d = (Graphics2D) g.create();
+        if (zoomPercent >= 100) {
+            g2d.scale(scale, scale);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            canvas.draw(g2d, area);
+        } else {
+            // Zoomed out: draw the smallest mipmap level that still has enough resolution
+            int level = CanvasMipmap.levelForScale(scale);
+            double levelScale = scale * (1 << level);
+            g2d.scale(levelScale, levelScale);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            if (level == 0) {
+                canvas.draw(g2d, area);
+            } else {
+                getMipmap().draw(g2d, level, area);
+            }
+        }
+        g2d.dispose();
     }
 
     /**
@@ -103,17 +380,9 @@ public class PaintingPanelView extends JPanel {
         g2d.setColor(paintingModel.getCurrentColour());
 
         if (previewShape instanceof Rectangle2D || previewShape instanceof Line2D) {
-            g2d.setStroke(new BasicStroke(
-                    paintingModel.getStrokeWidth(),
-                    BasicStroke.CAP_BUTT,
-                    BasicStroke.JOIN_MITER
-            ));
+            g2d.setStroke(StrokeCache.get(paintingModel.getStrokeWidth(), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
         } else {
-            g2d.setStroke(new BasicStroke(
-                    paintingModel.getStrokeWidth(),
-                    BasicStroke.CAP_ROUND,
-                    BasicStroke.JOIN_ROUND
-            ));
+            g2d.setStroke(StrokeCache.get(paintingModel.getStrokeWidth(), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
         }
 
         g2d.draw(previewShape);
@@ -126,7 +395,7 @@ public class PaintingPanelView extends JPanel {
      */
     private void drawPreviewPoint(Graphics2D g2d) {
         // TODO: Make the preview and drawing result identical. The preview is a few pixels smaller at the top left of the image.
-        if (previewPoint == null) return;
+        if (!isPreviewPointVisible) return;
 
         g2d.setColor(isPreviewEraser ? paintingModel.getBackgroundColour() : paintingModel.getCurrentColour());
 
@@ -136,4 +405,57 @@ public class PaintingPanelView extends JPanel {
 
         g2d.fillOval(Math.round(correctedX), Math.round(correctedY), size, size);
     }
+
+    /**
+     * Repaints the area of a preview before and after it has changed, reusing its bounds rectangle.
+     *
+     * @param bounds    The bounds of the preview in canvas coordinates, updated in place (empty if hidden).
+     * @param isVisible Whether the preview is shown after the change.
+     * @param x         The new x-coordinate of the preview without the stroke.
+     * @param y         The new y-coordinate of the preview without the stroke.
+     * @param width     The new width of the preview without the stroke.
+     * @param height    The new height of the preview without the stroke.
+     */
+    private void updatePreviewBounds(Rectangle bounds, boolean isVisible, int x, int y, int width, int height) {
+        if (!bounds.isEmpty()) {
+            repaint(toViewRectangle(bounds));
+        }
+
+        if (isVisible) {
+            int margin = paintingModel.getStrokeWidth() / 2 + 2;
+            bounds.setBounds(x - margin, y - margin, width + 2 * margin, height + 2 * margin);
+            repaint(toViewRectangle(bounds));
+        } else {
+            bounds.setBounds(0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Converts a rectangle in canvas coordinates into the panel area covering it at the current zoom level,
+     * rounded outwards to whole panel pixels.
+     */
+    private Rectangle toViewRectangle(Rectangle region) {
+        int left = (int) Math.floorDiv((long) region.x * zoomPercent, 100);
+        int top = (int) Math.floorDiv((long) region.y * zoomPercent, 100);
+        int right = (int) -Math.floorDiv(-(long) (region.x + region.width) * zoomPercent, 100);
+        int bottom = (int) -Math.floorDiv(-(long) (region.y + region.height) * zoomPercent, 100);
+        return new Rectangle(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Scales a size in canvas pixels to the current zoom level.
+     */
+    private Dimension toViewSize(Dimension size) {
+        return new Dimension((int) Math.ceil(size.width * zoomPercent / 100.0), (int) Math.ceil(size.height * zoomPercent / 100.0));
+    }
+
+    /**
+     * Returns the mipmap pyramid of the published canvas, creating a new one if the canvas has been resized.
+     */
+    private CanvasMipmap getMipmap() {
+        if (mipmap == null || mipmap.getCanvas() != paintingExecutor.getPublishedCanvas()) {
+            mipmap = new CanvasMipmap(paintingExecutor.getPublishedCanvas());
+        }
+        return mipmap;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package view.components;
+
+import toolbox.LatencyHistogram;
+import toolbox.PerformanceMetrics;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Translucent panel in the top left corner of the visible area of a component, showing the frame rate, the heap
+ * use and the p50/p99 latencies of all {@link PerformanceMetrics} histograms.
+ * <p>
+ * The overlay is refreshed twice per second, so the frame rate includes these refreshes while nothing else is
+ * drawn. While it is visible, the viewport of the component scrolls without blitting, since blitting would move
+ * the overlay along with the content.
+ * </p>
+ */
+public class PerformanceOverlay {
+    private static final int REFRESH_INTERVAL = 500; // In milliseconds
+    private static final int MARGIN = 8;
+    private static final int PADDING = 6;
+    private static final int LINE_LENGTH = 50; // Characters per line
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+
+    private final JComponent component;
+    private final Timer refreshTimer;
+    private boolean isVisible = false;
+    private int previousScrollMode = JViewport.BLIT_SCROLL_MODE;
+
+    private long sampleFrameCount;
+    private long sampleNanos;
+    private double framesPerSecond;
+
+    /**
+     * Constructs a hidden overlay.
+     *
+     * @param component The component on which the overlay is painted.
+     */
+    public PerformanceOverlay(JComponent component) {
+        this.component = component;
+        this.refreshTimer = new Timer(REFRESH_INTERVAL, e -> refresh());
+    }
+
+    /**
+     * Getter methods for accessing PerformanceOverlay properties.
+     */
+    public boolean isVisible() { return isVisible; }
+
+    /**
+     * Shows or hides the overlay.
+     *
+     * @param visible {@code true} to show the overlay.
+     */
+    public void setVisible(boolean visible) {
+        if (visible == isVisible) return;
+        isVisible = visible;
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, component);
+        if (visible) {
+            sampleFrameCount = PerformanceMetrics.getFrameCount();
+            sampleNanos = System.nanoTime();
+            framesPerSecond = 0;
+            if (viewport != null) {
+                previousScrollMode = viewport.getScrollMode();
+                viewport.setScrollMode(JViewport.SIMPLE_SCROLL_MODE);
+            }
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+            if (viewport != null) {
+                viewport.setScrollMode(previousScrollMode);
+            }
+        }
+        component.repaint(getBounds());
+    }
+
+    /**
+     * Paints the overlay if it is visible.
+     *
+     * @param g The graphics context of the component.
+     */
+    public void paint(Graphics g) {
+        if (!isVisible) return;
+
+        Rectangle bounds = getBounds();
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setColor(BACKGROUND);
+        g2d.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+
+        g2d.setFont(FONT);
+        g2d.setColor(Color.WHITE);
+        FontMetrics metrics = g2d.getFontMetrics();
+        int y = bounds.y + PADDING + metrics.getAscent();
+        for (String line : formatLines()) {
+            g2d.drawString(line, bounds.x + PADDING, y);
+            y += metrics.getHeight();
+        }
+        g2d.dispose();
+    }
+
+    /**
+     * Samples the frame rate and repaints the overlay.
+     */
+    private void refresh() {
+        long frameCount = PerformanceMetrics.getFrameCount();
+        long now = System.nanoTime();
+        framesPerSecond = (frameCount - sampleFrameCount) * 1e9 / Math.max(1, now - sampleNanos);
+        sampleFrameCount = frameCount;
+        sampleNanos = now;
+        component.repaint(getBounds());
+    }
+
+    /**
+     * Formats one line per value: frame rate, heap, a header and one line per histogram.
+     */
+    private List<String> formatLines() {
+        Runtime runtime = Runtime.getRuntime();
+        List<LatencyHistogram> histograms = PerformanceMetrics.getHistograms();
+        String[] lines = new String[3 + histograms.size()];
+        lines[0] = String.format("Bildrate: %.1f fps", framesPerSecond);
+        lines[1] = String.format("Heap: %d / %d MB", PerformanceMetrics.getUsedHeap() >> 20, runtime.maxMemory() >> 20);
+        lines[2] = String.format("%-24s %7s %7s %8s", "Vorgang (ms)", "p50", "p99", "Anzahl");
+        for (int i = 0; i < histograms.size(); i++) {
+            LatencyHistogram histogram = histograms.get(i);
+            lines[3 + i] = (histogram.getTotalCount() == 0)
+                    ? String.format("%-24s %7s %7s %8d", histogram.getName(), "-", "-", 0)
+                    : String.format("%-24s %7.2f %7.2f %8d", histogram.getName(),
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getTotalCount());
+        }
+        return List.of(lines);
+    }
+
+    /**
+     * Returns the area of the overlay in component coordinates. Its size only depends on the number of histograms,
+     * so refreshing never has to repaint more than this area.
+     */
+    private Rectangle getBounds() {
+        FontMetrics metrics = component.getFontMetrics(FONT);
+        Rectangle visible = component.getVisibleRect();
+        int lineCount = 3 + PerformanceMetrics.getHistograms().size();
+        return new Rectangle(visible.x + MARGIN, visible.y + MARGIN,
+                metrics.charWidth('0') * LINE_LENGTH + 2 * PADDING, metrics.getHeight() * lineCount + 2 * PADDING);
+    }
+}
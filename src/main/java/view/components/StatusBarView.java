@@ -15,6 +15,8 @@ public class StatusBarView extends JPanel {
     private JButton zoomOutButton;
     private JButton zoomInButton;
     private JSlider zoomSlider;
+    private JProgressBar fileProgressBar;
+    private JButton cancelFileTaskButton;
 
     /**
      * Constructs the status bar view with predefined UI elements.
@@ -32,6 +34,8 @@ public class StatusBarView extends JPanel {
     public JButton getZoomOutButton() { return zoomOutButton; }
     public JButton getZoomInButton() { return zoomInButton; }
     public JSlider getZoomSlider() { return zoomSlider; }
+    public JProgressBar getFileProgressBar() { return fileProgressBar; }
+    public JButton getCancelFileTaskButton() { return cancelFileTaskButton; }
 
     /**
      * Initializes and configures the status bar layout and UI components.
@@ -43,11 +47,12 @@ public class StatusBarView extends JPanel {
 
         add(createMousePositionPanel(), BorderLayout.WEST);
         add(createImageSizePanel(), BorderLayout.CENTER);
-        // add(createZoomControlPanel(), BorderLayout.EAST); //TODO: Uncomment when zoom is implemented.
+        add(createZoomControlPanel(), BorderLayout.EAST);
     }
 
     /**
-     * Creates the left panel displaying the mouse position.
+     * Creates the left panel displaying the mouse position and the progress of a running file operation.
+     * The progress bar and its cancel button are only visible while a file is opened or saved.
      *
      * @return The constructed panel.
      */
@@ -55,7 +60,18 @@ public class StatusBarView extends JPanel {
         JPanel leftPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         mousePositionLabel = new JLabel("X: 0, Y: 0");
         mousePositionLabel.setToolTipText("Position des Mauszeigers.");
+
+        fileProgressBar = new JProgressBar(0, 100);
+        fileProgressBar.setStringPainted(true);
+        fileProgressBar.setPreferredSize(new Dimension(220, 18));
+        fileProgressBar.setVisible(false);
+        cancelFileTaskButton = new JButton("Abbrechen");
+        cancelFileTaskButton.setToolTipText("Öffnen bzw. Speichern abbrechen");
+        cancelFileTaskButton.setVisible(false);
+
         leftPanel.add(mousePositionLabel);
+        leftPanel.add(fileProgressBar);
+        leftPanel.add(cancelFileTaskButton);
         return leftPanel;
     }
 
@@ -73,10 +89,9 @@ public class StatusBarView extends JPanel {
         return centerPanel;
     }
 
-    //TODO: Use when Zoom function is implemented.
     /**
      * Creates the right panel containing zoom controls.
-     * This method is currently not in use but serves as a placeholder for future functionality.
+     * The slider selects one of the zoom levels of {@link PaintingPanelView#ZOOM_LEVELS} by its index.
      *
      * @return The constructed panel.
      */
@@ -85,12 +100,19 @@ public class StatusBarView extends JPanel {
         rightPanel.setLayout(new BoxLayout(rightPanel, BoxLayout.X_AXIS));
 
         zoomOutButton = CreateIcon.createButton("assets/icons/minus-solid.png","Verkleinern");
-        zoomDropdown = new JComboBox<>(new String[]{"25 %", "50 %", "75 %", "100 %", "150 %", "200 %", "300 %"});
+        String[] zoomLevels = new String[PaintingPanelView.ZOOM_LEVELS.length];
+        for (int i = 0; i < zoomLevels.length; i++) {
+            zoomLevels[i] = PaintingPanelView.ZOOM_LEVELS[i] + " %";
+        }
+        zoomDropdown = new JComboBox<>(zoomLevels);
         zoomDropdown.setToolTipText("Zoomstufe");
         zoomDropdown.setSelectedItem("100 %");
         zoomInButton = CreateIcon.createButton("assets/icons/plus-solid.png","Vergrößern");
 
-        zoomSlider = new JSlider(25, 300, 100);
+        zoomSlider = new JSlider(0, zoomLevels.length - 1, zoomDropdown.getSelectedIndex());
+        zoomSlider.setSnapToTicks(true);
+        zoomSlider.setMajorTickSpacing(1);
+        zoomSlider.setToolTipText("Zoomstufe");
         zoomSlider.setPreferredSize(new Dimension(100, 20));
 
         rightPanel.add(zoomOutButton);
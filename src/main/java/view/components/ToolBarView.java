@@ -6,6 +6,8 @@ import toolbox.paintingtools.PaintingTool;
 import javax.swing.*;
 import javax.swing.colorchooser.AbstractColorChooserPanel;
 import java.awt.*;
+import java.awt.event.ItemEvent;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,6 +16,8 @@ import java.util.Map;
  * Provides tools for drawing, shape selection, and colour selection.
  */
 public class ToolBarView extends JPanel {
+    public static final int[] BRUSH_SIZES = {1, 2, 3, 4, 5, 10, 20, 30, 50, 100, 150, 200, 250}; // In pixels
+
     private JComboBox<String> brushSizeSelector;
 
     private ButtonGroup paintingToolsButtonGroup;
@@ -34,6 +38,7 @@ public class ToolBarView extends JPanel {
     private JColorChooser colourChooser;
 
     private Map<JToggleButton, PaintingTool> toolMapping = new HashMap<>();
+    private PaintingTool selectedTool = PaintingTool.PENCIL; // Updated whenever the selection of the button group changes
 
     /**
      * Constructs a new toolbar view and initialises all components.
@@ -53,15 +58,23 @@ public class ToolBarView extends JPanel {
 
     /**
      * Retrieves the currently selected painting tool.
-     * @return The selected PaintingTool, or null if none is selected.
+     * @return The selected PaintingTool.
      */
     public PaintingTool getSelectedTool() {
-        return toolMapping.entrySet()
-                .stream()
-                .filter(entry -> entry.getKey().isSelected())
-                .map(Map.Entry::getValue)
+        return selectedTool;
+    }
+
+    /**
+     * Retrieves the button that selects a painting tool.
+     * @param tool The painting tool.
+     * @return The toggle button of the tool.
+     */
+    public JToggleButton getToolButton(PaintingTool tool) {
+        return toolMapping.entrySet().stream()
+                .filter(entry -> entry.getValue() == tool)
+                .map(Map.Entry::getKey)
                 .findFirst()
-                .orElse(null);
+                .orElseThrow();
     }
 
     /**
@@ -89,7 +102,7 @@ public class ToolBarView extends JPanel {
      * Initialises the brush size selector, allowing users to choose different brush thicknesses.
      */
     private void initBrushSizeSelector() {
-        this.brushSizeSelector = new JComboBox<>(new String[]{"1 px", "2 px", "3 px", "4 px", "5 px", "10 px", "20 px", "30 px", "50 px", "100 px", "150 px", "200 px", "250 px"});
+        this.brushSizeSelector = new JComboBox<>(Arrays.stream(BRUSH_SIZES).mapToObj(size -> size + " px").toArray(String[]::new));
         this.brushSizeSelector.setSelectedItem("3 px");
         this.brushSizeSelector.setToolTipText("Strichstärke | Kleiner [Q] / Größer [W]");
 
@@ -109,7 +122,7 @@ public class ToolBarView extends JPanel {
 
         this.pencilButton = CreateIcon.createToggleButton("assets/icons/pencil-solid.png", "Bleistift [P]");
         this.pencilButton.setSelected(true);
-        this.fillButton = CreateIcon.createToggleButton("assets/icons/fill-drip-solid.png","Füllen [B]");
+        this.fillButton = CreateIcon.createToggleButton("assets/icons/fill-drip-solid.png","Füllen [B] | Farbe überall ersetzen: Umschalt + Klick");
         this.eraserButton = CreateIcon.createToggleButton("assets/icons/eraser-solid.png", "Radierer [E]");
         this.magnifierButton = CreateIcon.createToggleButton("assets/icons/magnifying-glass-solid.png","Lupe [Z]");
 
@@ -195,7 +208,7 @@ public class ToolBarView extends JPanel {
     }
 
     /**
-     * Maps the painting tools to their respective buttons.
+     * Maps the painting tools to their respective buttons and keeps track of the selected tool.
      */
     private void initToolMapping() {
         toolMapping.put(pencilButton, PaintingTool.PENCIL);
@@ -205,6 +218,12 @@ public class ToolBarView extends JPanel {
         toolMapping.put(lineButton, PaintingTool.LINE);
         toolMapping.put(ellipseButton, PaintingTool.ELLIPSE);
         toolMapping.put(rectangleButton, PaintingTool.RECTANGLE);
+
+        toolMapping.forEach((button, tool) -> button.addItemListener(e -> {
+            if (e.getStateChange() == ItemEvent.SELECTED) {
+                selectedTool = tool;
+            }
+        }));
     }
 
     /**